@@ -0,0 +1,76 @@
+package tn.esprit.spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.services.bloc.AffectationChambres;
+import tn.esprit.spring.services.bloc.IBlocService;
+import tn.esprit.spring.services.chambre.IChambreService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Lectures des chambres (index de disponibilité, compteurs par type) et affectation d'un
+ * lot de chambres à un bloc. Les {@code affectation} premières chambres passent d'un bloc
+ * à l'autre à chaque appel : chaque affectation modifie réellement les lignes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChambreBenchmark {
+
+    @Param("100")
+    public int affectation;
+
+    private IChambreService chambreService;
+    private IBlocService blocService;
+    private List<Long> numeros;
+    private int appels;
+
+    @Setup
+    public void preparer(FoyerDonnees donnees) {
+        // Deux blocs au moins, sinon l'affectation vers Bloc-2 ne mesurerait qu'une recherche de bloc
+        if (affectation > donnees.chambres || donnees.chambres <= FoyerDonnees.CHAMBRES_PAR_BLOC) {
+            throw new IllegalArgumentException("affectation (" + affectation + ") et chambres ("
+                    + donnees.chambres + ") incompatibles");
+        }
+        chambreService = donnees.service(IChambreService.class);
+        blocService = donnees.service(IBlocService.class);
+        numeros = LongStream.rangeClosed(1, affectation).boxed().toList();
+        // Une structure en mémoire restée vide ferait mesurer une réponse vide
+        if (getChambresNonReserveParNomFoyerEtTypeChambre().isEmpty() || nbChambreParTypeEtBloc() == 0) {
+            throw new IllegalStateException("Chambres absentes de l'index de disponibilité ou des compteurs");
+        }
+    }
+
+    @Benchmark
+    public List<Chambre> getChambresNonReserveParNomFoyerEtTypeChambre() {
+        return chambreService.getChambresNonReserveParNomFoyerEtTypeChambre(FoyerDonnees.FOYER, TypeChambre.DOUBLE);
+    }
+
+    @Benchmark
+    public long nbChambreParTypeEtBloc() {
+        return chambreService.nbChambreParTypeEtBloc(TypeChambre.SIMPLE, 1L);
+    }
+
+    @Benchmark
+    public AffectationChambres affecterChambresABloc() {
+        String bloc = (appels++ & 1) == 0 ? "Bloc-2" : "Bloc-1";
+        return blocService.affecterChambresABloc(numeros, bloc);
+    }
+}
@@ -0,0 +1,127 @@
+package tn.esprit.spring.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.FoyerApplication;
+import tn.esprit.spring.config.SequenceAligner;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.reservation.ReservationService;
+
+import java.time.LocalDate;
+
+/**
+ * Application complète (services, proxys transactionnels, aspect de chronométrage, cache de
+ * second niveau) sur une base H2 en mode MySQL, remplie par SQL avant les mesures.
+ * <p>
+ * Un foyer, des blocs de {@value #CHAMBRES_PAR_BLOC} chambres (SIMPLE, DOUBLE et TRIPLE en
+ * alternance), des étudiants et un historique de réservations valides de l'année en cours,
+ * rattachées aux étudiants mais à aucune chambre : les chambres sont libres au départ.
+ * Tailles modifiables sans recompiler, par exemple {@code -p chambres=10000 -p reservations=1000000}.
+ */
+@State(Scope.Benchmark)
+public class FoyerDonnees {
+    static final String FOYER = "Foyer-1";
+    static final int CHAMBRES_PAR_BLOC = 100;
+    static final long CIN = 10_000_000L;
+    // Insertions par tranches validées une à une, pour borner la mémoire de H2
+    private static final int TRANCHE = 100_000;
+
+    @Param("1000")
+    public int chambres;
+    @Param("10000")
+    public int etudiants;
+    @Param("100000")
+    public int reservations;
+
+    ConfigurableApplicationContext contexte;
+    JdbcTemplate jdbcTemplate;
+    OccupancyLedger ledger;
+    AvailabilityIndex availabilityIndex;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        // Arguments de ligne de commande : prioritaires sur application.properties
+        contexte = new SpringApplicationBuilder(FoyerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bancs;MODE=MySQL",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--eureka.client.enabled=false",
+                        "--foyer.sql.seuil-lent=1h",
+                        "--logging.level.root=WARN",
+                        "--logging.level.tn.esprit.spring.schedular=OFF");
+        jdbcTemplate = contexte.getBean(JdbcTemplate.class);
+        entityManagerFactory = contexte.getBean(EntityManagerFactory.class);
+        ledger = contexte.getBean(OccupancyLedger.class);
+        availabilityIndex = contexte.getBean(AvailabilityIndex.class);
+
+        remplir();
+        // Structures en mémoire chargées au démarrage, sur une base encore vide
+        contexte.getBean(SequenceAligner.class).aligner();
+        contexte.getBean(NaturalKeyCache.class).initialiser();
+        contexte.getBean(RoomTypeCounters.class).initialiser();
+        ledger.initialiser();
+        // L'index de l'année déjà servi n'est reconstruit qu'une fois invalidé
+        availabilityIndex.invalider();
+        availabilityIndex.initialiser();
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        contexte.close();
+    }
+
+    <T> T service(Class<T> type) {
+        return contexte.getBean(type);
+    }
+
+    // Après une écriture SQL directe, le cache de second niveau ne reflète plus la base
+    void viderCaches() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    // Dans l'année universitaire que clôture ReservationService.annulerReservations()
+    LocalDate dateReservation() {
+        return service(ReservationService.class).getDateDebutAU().plusDays(1);
+    }
+
+    private void remplir() {
+        int blocs = (chambres + CHAMBRES_PAR_BLOC - 1) / CHAMBRES_PAR_BLOC;
+        jdbcTemplate.update("insert into t_foyer (id_foyer, nom_foyer, capacite_foyer) values (1, ?, ?)",
+                FOYER, 3L * chambres);
+        jdbcTemplate.update("insert into t_bloc (id_bloc, nom_bloc, capacite_bloc, foyer_id_foyer) " +
+                "select x, 'Bloc-' || x, ?, 1 from system_range(1, ?)", CHAMBRES_PAR_BLOC, blocs);
+        jdbcTemplate.update("insert into t_chambre (id_chambre, numero_chambre, typec, bloc_id_bloc) " +
+                "select x, x, case mod(x, 3) when 1 then 'SIMPLE' when 2 then 'DOUBLE' else 'TRIPLE' end, " +
+                "(x - 1) / ? + 1 from system_range(1, ?)", CHAMBRES_PAR_BLOC, chambres);
+        for (int de = 1; de <= etudiants; de += TRANCHE) {
+            jdbcTemplate.update("insert into t_etudiant (id_etudiant, cin, nom_et, prenom_et) " +
+                    "select x, ? + x, 'Nom', 'Prenom' from system_range(?, ?)",
+                    CIN, de, Math.min(etudiants, de + TRANCHE - 1));
+        }
+        LocalDate annee = dateReservation();
+        for (int de = 1; de <= reservations; de += TRANCHE) {
+            int a = Math.min(reservations, de + TRANCHE - 1);
+            jdbcTemplate.update("insert into t_reservation (id_reservation, annee_universitaire, est_valide) " +
+                    "select 'R-' || x, ?, true from system_range(?, ?)", annee, de, a);
+            jdbcTemplate.update("insert into t_reservation_etudiants (reservations_id_reservation, etudiants_id_etudiant) " +
+                    "select 'R-' || x, mod(x - 1, ?) + 1 from system_range(?, ?)", etudiants, de, a);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package tn.esprit.spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.services.reservation.IReservationService;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écritures des réservations. Chaque itération repart du même état, remis en place hors
+ * mesure : score en temps par itération, soit {@value #LOT} réservations ou annulations, ou
+ * une clôture de l'année sur {@code reservations} réservations valides.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class ReservationBenchmark {
+    static final int LOT = 100;
+
+    /**
+     * Une chambre différente par réservation : aucune n'est refusée pour cause de chambre
+     * complète. Les réservations de l'itération précédente sont supprimées et leurs places
+     * rendues au registre d'occupation.
+     */
+    @State(Scope.Benchmark)
+    public static class Ajouts {
+        private FoyerDonnees donnees;
+        private IReservationService service;
+        private int faites;
+
+        @Setup(Level.Iteration)
+        public void vider(FoyerDonnees donnees) {
+            if (donnees.chambres < LOT) {
+                throw new IllegalArgumentException("Au moins " + LOT + " chambres : " + donnees.chambres);
+            }
+            this.donnees = donnees;
+            service = donnees.service(IReservationService.class);
+            // Seules ces réservations sont rattachées à une chambre
+            donnees.jdbcTemplate.update("delete from t_chambre_reservations");
+            donnees.jdbcTemplate.update("delete from t_reservation_etudiants where reservations_id_reservation not like 'R-%'");
+            donnees.jdbcTemplate.update("delete from t_reservation where id_reservation not like 'R-%'");
+            donnees.viderCaches();
+            LocalDate aujourdhui = LocalDate.now();
+            for (long chambre = 1; chambre <= faites; chambre++) {
+                donnees.ledger.release(chambre, aujourdhui);
+            }
+            faites = 0;
+        }
+
+        Reservation suivante() {
+            int n = ++faites;
+            Reservation reservation = service.ajouterReservationEtAssignerAChambreEtAEtudiant((long) n,
+                    FoyerDonnees.CIN + (n - 1) % donnees.etudiants + 1);
+            if (reservation == null) {
+                throw new IllegalStateException("Réservation refusée pour la chambre " + n);
+            }
+            return reservation;
+        }
+    }
+
+    /**
+     * Une réservation valide, rattachée à une chambre, pour chacun des {@value #LOT} premiers
+     * étudiants, sur un historique de {@code reservations} réservations rendues non valides :
+     * la durée d'une annulation ne doit pas dépendre de la taille de l'historique.
+     */
+    @State(Scope.Benchmark)
+    public static class Annulations {
+        private IReservationService service;
+        private int faites;
+
+        @Setup(Level.Iteration)
+        public void preparer(FoyerDonnees donnees) {
+            if (donnees.chambres < LOT || donnees.etudiants < LOT) {
+                throw new IllegalArgumentException("Au moins " + LOT + " chambres et étudiants : "
+                        + donnees.chambres + ", " + donnees.etudiants);
+            }
+            service = donnees.service(IReservationService.class);
+            donnees.jdbcTemplate.update("update t_reservation set est_valide = false where id_reservation like 'R-%'");
+            donnees.jdbcTemplate.update("delete from t_chambre_reservations where reservations_id_reservation like 'A-%'");
+            donnees.jdbcTemplate.update("delete from t_reservation_etudiants where reservations_id_reservation like 'A-%'");
+            donnees.jdbcTemplate.update("delete from t_reservation where id_reservation like 'A-%'");
+            donnees.jdbcTemplate.update("insert into t_reservation (id_reservation, annee_universitaire, est_valide) " +
+                    "select 'A-' || x, ?, true from system_range(1, ?)", donnees.dateReservation(), LOT);
+            donnees.jdbcTemplate.update("insert into t_reservation_etudiants (reservations_id_reservation, etudiants_id_etudiant) " +
+                    "select 'A-' || x, x from system_range(1, ?)", LOT);
+            donnees.jdbcTemplate.update("insert into t_chambre_reservations (chambre_id_chambre, reservations_id_reservation) " +
+                    "select x, 'A-' || x from system_range(1, ?)", LOT);
+            donnees.viderCaches();
+            faites = 0;
+        }
+
+        String suivante() {
+            int n = ++faites;
+            String resultat = service.annulerReservation(FoyerDonnees.CIN + n);
+            if (resultat.startsWith("Aucune")) {
+                throw new IllegalStateException(resultat);
+            }
+            return resultat;
+        }
+    }
+
+    // Toutes les réservations de l'historique redeviennent valides avant chaque clôture
+    @State(Scope.Benchmark)
+    public static class Cloture {
+        private IReservationService service;
+
+        @Setup(Level.Iteration)
+        public void revalider(FoyerDonnees donnees) {
+            service = donnees.service(IReservationService.class);
+            donnees.jdbcTemplate.update("update t_reservation set est_valide = true where id_reservation like 'R-%'");
+            donnees.viderCaches();
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3, batchSize = LOT)
+    @Measurement(iterations = 10, batchSize = LOT)
+    public Reservation ajouterReservationEtAssignerAChambreEtAEtudiant(Ajouts ajouts) {
+        return ajouts.suivante();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3, batchSize = LOT)
+    @Measurement(iterations = 10, batchSize = LOT)
+    public String annulerReservation(Annulations annulations) {
+        return annulations.suivante();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void annulerReservations(Cloture cloture) {
+        cloture.service.annulerReservations();
+    }
+}
@@ -0,0 +1,35 @@
+package tn.esprit.spring.aop;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/instrumentation} : état de la mesure des services par paquet.
+ * {@code POST /actuator/instrumentation/{paquet}} avec {@code {"actif": false}} l'arrête
+ * pour ce paquet jusqu'au prochain changement ou redémarrage.
+ */
+@Component
+@Endpoint(id = "instrumentation")
+public class InstrumentationEndpoint {
+    private final ServiceTimingAspect aspect;
+
+    public InstrumentationEndpoint(ServiceTimingAspect aspect) {
+        this.aspect = aspect;
+    }
+
+    @ReadOperation
+    public Map<String, Boolean> paquets() {
+        return aspect.paquets();
+    }
+
+    @WriteOperation
+    public Map<String, Boolean> activer(@Selector String paquet, boolean actif) {
+        aspect.activer(paquet, actif);
+        return aspect.paquets();
+    }
+}
@@ -0,0 +1,132 @@
+package tn.esprit.spring.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durée de chaque méthode des services, publiée sur {@code /actuator/prometheus} sous
+ * {@code foyer.service.appels} (tags {@code classe}, {@code methode} et {@code resultat}).
+ * <p>
+ * Chaque timer a un histogramme de percentiles, agrégeable côté Prometheus, et les seuils
+ * {@code foyer.instrumentation.slo}. Les paquets de {@code tn.esprit.spring.services}
+ * listés dans {@code foyer.instrumentation.paquets-desactives} ne sont pas mesurés ; le
+ * réglage se change à chaud par l'endpoint {@link InstrumentationEndpoint}. Les timers
+ * d'une méthode sont créés au premier appel : un appel suivant coûte une lecture de table,
+ * deux lectures d'horloge et un enregistrement.
+ */
+@Aspect
+@Component
+@Slf4j
+public class ServiceTimingAspect {
+    public static final String NOM = "foyer.service.appels";
+    private static final String SERVICES = "tn.esprit.spring.services.";
+
+    private final MeterRegistry registry;
+    private final Duration[] slo;
+    private final double[] percentiles;
+    private final Map<String, Interrupteur> paquets = new ConcurrentHashMap<>();
+    private final Map<Method, Mesure> mesures = new ConcurrentHashMap<>();
+
+    public ServiceTimingAspect(MeterRegistry registry,
+                               @Value("${foyer.instrumentation.slo:5ms,25ms,100ms,500ms,1s}") List<Duration> slo,
+                               @Value("${foyer.instrumentation.percentiles:}") List<Double> percentiles,
+                               @Value("${foyer.instrumentation.paquets-desactives:}") List<String> desactives) {
+        this.registry = registry;
+        this.slo = slo.toArray(Duration[]::new);
+        this.percentiles = percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+        desactives.forEach(paquet -> activer(paquet, false));
+    }
+
+    @Around("execution(* tn.esprit.spring.services..*.*(..))")
+    public Object mesurer(ProceedingJoinPoint pjp) throws Throwable {
+        Method methode = ((MethodSignature) pjp.getSignature()).getMethod();
+        Mesure mesure = mesures.get(methode);
+        if (mesure == null) {
+            mesure = mesures.computeIfAbsent(methode, m -> nouvelleMesure(m, pjp.getTarget()));
+        }
+        if (!mesure.paquet.actif) {
+            return pjp.proceed();
+        }
+        long debut = System.nanoTime();
+        try {
+            Object resultat = pjp.proceed();
+            mesure.succes.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+            return resultat;
+        } catch (Throwable e) {
+            Timer erreur = mesure.erreur;
+            if (erreur == null) {
+                erreur = timer(mesure.classe, methode, "erreur");
+                mesure.erreur = erreur;
+            }
+            erreur.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    // Paquet relatif à tn.esprit.spring.services (« reservation », « chambre »...)
+    public void activer(String paquet, boolean actif) {
+        paquets.computeIfAbsent(paquet, p -> new Interrupteur()).actif = actif;
+        log.info("Mesure des services du paquet {} {}", paquet, actif ? "activée" : "désactivée");
+    }
+
+    public Map<String, Boolean> paquets() {
+        Map<String, Boolean> etats = new TreeMap<>();
+        paquets.forEach((paquet, interrupteur) -> etats.put(paquet, interrupteur.actif));
+        return etats;
+    }
+
+    private Mesure nouvelleMesure(Method methode, Object cible) {
+        Class<?> classe = cible != null ? cible.getClass() : methode.getDeclaringClass();
+        String nomPaquet = classe.getPackageName();
+        String paquet = nomPaquet.startsWith(SERVICES) ? nomPaquet.substring(SERVICES.length()) : nomPaquet;
+        Interrupteur interrupteur = paquets.computeIfAbsent(paquet, p -> new Interrupteur());
+        return new Mesure(classe, interrupteur, timer(classe, methode, "succes"));
+    }
+
+    private Timer timer(Class<?> classe, Method methode, String resultat) {
+        return Timer.builder(NOM)
+                .description("Durée des méthodes des services")
+                .tag("classe", classe.getSimpleName())
+                .tag("methode", methode.getName())
+                .tag("resultat", resultat)
+                .publishPercentileHistogram()
+                .publishPercentiles(percentiles)
+                .serviceLevelObjectives(slo)
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+
+    private static final class Interrupteur {
+        volatile boolean actif = true;
+    }
+
+    private static final class Mesure {
+        final Class<?> classe;
+        final Interrupteur paquet;
+        final Timer succes;
+        // Créé au premier échec : pas de série vide pour les méthodes qui n'échouent jamais
+        volatile Timer erreur;
+
+        Mesure(Class<?> classe, Interrupteur paquet, Timer succes) {
+            this.classe = classe;
+            this.paquet = paquet;
+            this.succes = succes;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Écrit les événements de journal depuis un thread dédié : le thread qui journalise ne fait
+ * que déposer l'événement dans une file circulaire bornée.
+ * <p>
+ * Quand la file est pleine, la {@link Politique} choisit entre perdre l'événement (compté
+ * par {@link #perdus()}) et attendre une place. Comme avec l'{@code AsyncAppender} de Logback,
+ * les événements WARN et ERROR ne sont jamais perdus : ils attendent une place quelle que soit
+ * la politique. Aucun événement n'est écarté sans être compté. À l'arrêt, les événements en
+ * file sont écrits avant l'arrêt des appenders délégués.
+ */
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public enum Politique {
+        // L'événement sous WARN est perdu : le thread appelant n'attend que pour WARN et ERROR
+        ABANDON,
+        // Le thread appelant attend une place : aucun événement n'est perdu
+        ATTENTE
+    }
+
+    private static final int LOT = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> delegues = new AppenderAttachableImpl<>();
+    private final LongAdder perdus = new LongAdder();
+    private int capacite = 8192;
+    private Politique politique = Politique.ABANDON;
+    private long delaiVidage = 1000;
+    private BlockingQueue<ILoggingEvent> file;
+    private Thread ecrivain;
+
+    public void setCapacite(int capacite) {
+        this.capacite = capacite;
+    }
+
+    public void setPolitique(Politique politique) {
+        this.politique = politique;
+    }
+
+    // Attente maximale à l'arrêt pour écrire les événements restants
+    public void setDelaiVidage(long millisecondes) {
+        this.delaiVidage = millisecondes;
+    }
+
+    public Politique getPolitique() {
+        return politique;
+    }
+
+    public int enFile() {
+        BlockingQueue<ILoggingEvent> f = file;
+        return f == null ? 0 : f.size();
+    }
+
+    public long perdus() {
+        return perdus.sum();
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (capacite < 1) {
+            addError("Capacité de file invalide : " + capacite);
+            return;
+        }
+        file = new ArrayBlockingQueue<>(capacite);
+        ecrivain = new Thread(this::ecrire, "journal-" + getName());
+        ecrivain.setDaemon(true);
+        super.start();
+        ecrivain.start();
+    }
+
+    @Override
+    public void stop() {
+        if (arreterEcrivain()) {
+            delegues.detachAndStopAllAppenders();
+        }
+    }
+
+    /**
+     * Arrête l'écriture asynchrone après avoir écrit les événements en file, et rend les
+     * appenders délégués détachés mais toujours démarrés.
+     */
+    public List<Appender<ILoggingEvent>> rendre() {
+        arreterEcrivain();
+        List<Appender<ILoggingEvent>> rendus = new ArrayList<>();
+        delegues.iteratorForAppenders().forEachRemaining(rendus::add);
+        rendus.forEach(delegues::detachAppender);
+        return rendus;
+    }
+
+    private boolean arreterEcrivain() {
+        if (!isStarted()) {
+            return false;
+        }
+        super.stop();
+        ecrivain.interrupt();
+        try {
+            ecrivain.join(delaiVidage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ecrivain.isAlive()) {
+            addWarn(file.size() + " événement(s) non écrits à l'arrêt");
+        }
+        return true;
+    }
+
+    @Override
+    protected void append(ILoggingEvent evenement) {
+        // Figé sur le thread appelant : MDC et paramètres sont lus plus tard par l'écrivain
+        evenement.prepareForDeferredProcessing();
+        if (file.offer(evenement)) {
+            return;
+        }
+        if (politique == Politique.ABANDON && !evenement.getLevel().isGreaterOrEqual(Level.WARN)) {
+            perdus.increment();
+            return;
+        }
+        boolean interrompu = false;
+        while (true) {
+            try {
+                file.put(evenement);
+                break;
+            } catch (InterruptedException e) {
+                interrompu = true;
+            }
+        }
+        if (interrompu) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ecrire() {
+        List<ILoggingEvent> lot = new ArrayList<>(LOT);
+        while (isStarted()) {
+            try {
+                lot.add(file.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            file.drainTo(lot, LOT - 1);
+            transmettre(lot);
+        }
+        // Arrêt : vidage de ce qui reste, sans l'interruption qui ferait échouer les écritures
+        Thread.interrupted();
+        while (file.drainTo(lot, LOT) > 0) {
+            transmettre(lot);
+        }
+    }
+
+    private void transmettre(List<ILoggingEvent> lot) {
+        for (ILoggingEvent evenement : lot) {
+            delegues.appendLoopOnAppenders(evenement);
+        }
+        lot.clear();
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        delegues.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return delegues.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String nom) {
+        return delegues.getAppender(nom);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return delegues.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        delegues.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return delegues.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String nom) {
+        return delegues.detachAppender(nom);
+    }
+}
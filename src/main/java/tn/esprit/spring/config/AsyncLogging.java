@@ -0,0 +1,114 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Place les appenders du logger racine (console, fichier) derrière un {@link AsyncLogAppender}
+ * et installe l'échantillonnage {@link LogSampler} des loggers bavards.
+ * <p>
+ * Publie {@code foyer.logs.file} (événements en attente d'écriture) et
+ * {@code foyer.logs.ecartes} (tag {@code raison} : {@code file_pleine} ou
+ * {@code echantillonnage}). À l'arrêt du contexte, la file est vidée et les appenders
+ * d'origine sont rattachés à la racine.
+ */
+@Component
+@Slf4j
+public class AsyncLogging {
+    static final String NOM = "ASYNC";
+
+    private final LoggerContext contexte;
+    private final AsyncLogAppender appender;
+    private final LogSampler echantillonnage;
+
+    public AsyncLogging(MeterRegistry registry,
+                        @Value("${foyer.logs.file-capacite:8192}") int capacite,
+                        @Value("${foyer.logs.politique:ABANDON}") AsyncLogAppender.Politique politique,
+                        @Value("${foyer.logs.echantillonnage:}") List<String> echantillonnage) {
+        this.contexte = (LoggerContext) LoggerFactory.getILoggerFactory();
+        this.echantillonnage = new LogSampler(taux(echantillonnage));
+        this.echantillonnage.setContext(contexte);
+        this.echantillonnage.start();
+        this.appender = new AsyncLogAppender();
+        appender.setName(NOM);
+        appender.setContext(contexte);
+        appender.setCapacite(capacite);
+        appender.setPolitique(politique);
+        installer();
+
+        Gauge.builder("foyer.logs.file", appender, AsyncLogAppender::enFile)
+                .description("Événements de journal en attente d'écriture")
+                .register(registry);
+        FunctionCounter.builder("foyer.logs.ecartes", appender, AsyncLogAppender::perdus)
+                .description("Événements de journal non écrits")
+                .tag("raison", "file_pleine")
+                .register(registry);
+        FunctionCounter.builder("foyer.logs.ecartes", this.echantillonnage, LogSampler::ecartes)
+                .description("Événements de journal non écrits")
+                .tag("raison", "echantillonnage")
+                .register(registry);
+        log.info("Journalisation asynchrone : file de {} événements, politique {}, échantillonnage {}",
+                capacite, politique, echantillonnage);
+    }
+
+    private void installer() {
+        Logger racine = contexte.getLogger(Logger.ROOT_LOGGER_NAME);
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        racine.iteratorForAppenders().forEachRemaining(appenders::add);
+        for (Appender<ILoggingEvent> a : appenders) {
+            // Un autre contexte Spring de la même JVM a déjà installé sa file : on reprend ses appenders
+            if (a instanceof AsyncLogAppender precedent) {
+                precedent.rendre().forEach(appender::addAppender);
+            } else {
+                appender.addAppender(a);
+            }
+            racine.detachAppender(a);
+        }
+        appender.start();
+        racine.addAppender(appender);
+        contexte.addTurboFilter(echantillonnage);
+    }
+
+    @PreDestroy
+    public void desinstaller() {
+        contexte.getTurboFilterList().remove(echantillonnage);
+        Logger racine = contexte.getLogger(Logger.ROOT_LOGGER_NAME);
+        // Logback réinitialisé entre-temps : la file a déjà été arrêtée et vidée
+        if (!racine.detachAppender(appender)) {
+            return;
+        }
+        appender.rendre().forEach(racine::addAppender);
+    }
+
+    AsyncLogAppender appender() {
+        return appender;
+    }
+
+    // Entrées « préfixe:N »
+    static Map<String, Integer> taux(List<String> entrees) {
+        Map<String, Integer> taux = new HashMap<>();
+        for (String entree : entrees) {
+            int separateur = entree.lastIndexOf(':');
+            if (separateur < 0) {
+                throw new IllegalArgumentException("Échantillonnage attendu sous la forme logger:N : " + entree);
+            }
+            taux.put(entree.substring(0, separateur).trim(), Integer.parseInt(entree.substring(separateur + 1).trim()));
+        }
+        return taux;
+    }
+}
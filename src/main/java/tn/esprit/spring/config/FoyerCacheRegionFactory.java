@@ -0,0 +1,58 @@
+package tn.esprit.spring.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache de second niveau Hibernate sur un gestionnaire Ehcache (JCache) en mémoire,
+ * propre à chaque SessionFactory.
+ * <p>
+ * Le gestionnaire par défaut du fournisseur est partagé par toute la JVM : deux contextes
+ * Spring ouverts en même temps (les tests en gardent plusieurs) y verraient les entités
+ * l'un de l'autre, et la fermeture du premier fermerait le cache du second. Chaque région
+ * est bornée à {@code foyer.cache.max-entrees} entrées, sauf celle des horodatages de mise
+ * à jour des tables : perdre une de ses entrées rendrait valides des requêtes périmées.
+ */
+public class FoyerCacheRegionFactory extends JCacheRegionFactory {
+    private static final long serialVersionUID = 1L;
+
+    public static final String MAX_ENTREES = "foyer.cache.max-entrees";
+    private static final long MAX_ENTREES_DEFAUT = 10_000;
+
+    private long maxEntrees = MAX_ENTREES_DEFAUT;
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map<String, Object> properties) {
+        Object max = properties.get(MAX_ENTREES);
+        if (max != null) {
+            maxEntrees = Long.parseLong(max.toString().trim());
+        }
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        ClassLoader classLoader = getClassLoader(provider);
+        URI uri = URI.create("urn:foyer:hibernate:" + UUID.randomUUID());
+        return provider.getCacheManager(uri, new DefaultConfiguration(classLoader));
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        long entrees = regionName.endsWith(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME)
+                ? Long.MAX_VALUE : maxEntrees;
+        return getCacheManager().createCache(regionName, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(entrees))));
+    }
+}
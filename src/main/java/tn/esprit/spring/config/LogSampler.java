@@ -0,0 +1,68 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ne garde qu'un événement sur N des loggers configurés (par préfixe de nom, le plus long
+ * l'emporte), avant même que l'événement ne soit construit. Les niveaux WARN et ERROR
+ * passent toujours ; les événements écartés sont comptés par {@link #ecartes()}.
+ */
+public class LogSampler extends TurboFilter {
+    private static final Echantillon TOUS = new Echantillon(1);
+
+    private final Map<String, Integer> taux;
+    private final Map<String, Echantillon> parLogger = new ConcurrentHashMap<>();
+    private final LongAdder ecartes = new LongAdder();
+
+    // Préfixe de nom de logger -> un événement gardé sur N
+    public LogSampler(Map<String, Integer> taux) {
+        this.taux = Map.copyOf(taux);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Sans format : simple test isXxxEnabled(), qui ne doit pas consommer de tirage
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Echantillon echantillon = parLogger.computeIfAbsent(logger.getName(), this::echantillon);
+        if (echantillon == TOUS || echantillon.compteur.getAndIncrement() % echantillon.taux == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        ecartes.increment();
+        return FilterReply.DENY;
+    }
+
+    public long ecartes() {
+        return ecartes.sum();
+    }
+
+    private Echantillon echantillon(String nom) {
+        String retenu = null;
+        for (String prefixe : taux.keySet()) {
+            boolean couvre = nom.equals(prefixe) || nom.startsWith(prefixe + ".");
+            if (couvre && (retenu == null || prefixe.length() > retenu.length())) {
+                retenu = prefixe;
+            }
+        }
+        return retenu == null || taux.get(retenu) <= 1 ? TOUS : new Echantillon(taux.get(retenu));
+    }
+
+    private static final class Echantillon {
+        final int taux;
+        final AtomicLong compteur = new AtomicLong();
+
+        Echantillon(int taux) {
+            this.taux = taux;
+        }
+    }
+}
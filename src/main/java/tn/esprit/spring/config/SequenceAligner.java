@@ -0,0 +1,71 @@
+package tn.esprit.spring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.Sequences;
+
+import java.util.Map;
+
+/**
+ * Aligne la table des identifiants sur les lignes déjà en base avant la première
+ * insertion : les identifiants attribués avant le passage aux blocs pooled
+ * (AUTO_INCREMENT) ne doivent pas être réattribués.
+ * <p>
+ * Exécuté une fois le contexte démarré, donc après la mise à jour du schéma, et avant
+ * les traitements de démarrage qui écrivent en base.
+ */
+@Component
+@Slf4j
+public class SequenceAligner implements ApplicationRunner {
+    // Ligne de la table des identifiants -> table et colonne d'identifiant de l'entité
+    static final Map<String, String[]> ENTITES = Map.of(
+            "T_BLOC", new String[]{"t_bloc", "id_bloc"},
+            "T_CHAMBRE", new String[]{"t_chambre", "id_chambre"},
+            "T_ETUDIANT", new String[]{"t_etudiant", "id_etudiant"},
+            "T_FOYER", new String[]{"t_foyer", "id_foyer"},
+            "T_UNIVERSITE", new String[]{"t_universite", "id_universite"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        aligner();
+    }
+
+    /**
+     * Porte chaque ligne de la table des identifiants au-delà du plus grand identifiant
+     * de son entité.
+     *
+     * @return le nombre de lignes créées ou relevées
+     */
+    public int aligner() {
+        int alignees = 0;
+        for (Map.Entry<String, String[]> entite : ENTITES.entrySet()) {
+            String sequence = entite.getKey();
+            Long max = jdbcTemplate.queryForObject("select coalesce(max(" + entite.getValue()[1] + "), 0) from "
+                    + entite.getValue()[0], Long.class);
+            long minimum = (max == null ? 0 : max) + 1 + Sequences.TAILLE_BLOC;
+            int relevees = jdbcTemplate.update("update " + Sequences.TABLE + " set " + Sequences.VALEUR + " = ? where "
+                    + Sequences.NOM + " = ? and " + Sequences.VALEUR + " < ?", minimum, sequence, minimum);
+            Integer existe = jdbcTemplate.queryForObject("select count(*) from " + Sequences.TABLE + " where "
+                    + Sequences.NOM + " = ?", Integer.class, sequence);
+            if (existe == null || existe == 0) {
+                jdbcTemplate.update("insert into " + Sequences.TABLE + " (" + Sequences.NOM + ", " + Sequences.VALEUR
+                        + ") values (?, ?)", sequence, minimum);
+                relevees = 1;
+            }
+            if (relevees > 0) {
+                log.info("Identifiants {} alignés après {}", sequence, max);
+                alignees++;
+            }
+        }
+        return alignees;
+    }
+}
@@ -0,0 +1,70 @@
+package tn.esprit.spring.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Place les sources de données derrière un proxy JDBC qui passe chaque instruction aux
+ * {@link QueryExecutionListener} du contexte ({@link SlowQueryLog}, {@link SqlBudget}). Ils sont
+ * résolus à la première instruction : un post-processeur ne peut pas dépendre directement du
+ * registre de métriques.
+ */
+@Component
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<QueryExecutionListener> ecouteurs;
+
+    public SlowQueryDataSourcePostProcessor(ObjectProvider<QueryExecutionListener> ecouteurs) {
+        this.ecouteurs = ecouteurs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String nom) {
+        if (bean instanceof DataSource source && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(nom, source)
+                    .listener(new Differe(ecouteurs))
+                    .build();
+        }
+        return bean;
+    }
+
+    private static final class Differe implements QueryExecutionListener {
+        private final ObjectProvider<QueryExecutionListener> fournisseur;
+        private volatile List<QueryExecutionListener> ecouteurs;
+
+        Differe(ObjectProvider<QueryExecutionListener> fournisseur) {
+            this.fournisseur = fournisseur;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+            for (QueryExecutionListener ecouteur : ecouteurs()) {
+                ecouteur.beforeQuery(execution, requetes);
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+            for (QueryExecutionListener ecouteur : ecouteurs()) {
+                ecouteur.afterQuery(execution, requetes);
+            }
+        }
+
+        private List<QueryExecutionListener> ecouteurs() {
+            List<QueryExecutionListener> e = ecouteurs;
+            if (e == null) {
+                e = fournisseur.orderedStream().toList();
+                ecouteurs = e;
+            }
+            return e;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package tn.esprit.spring.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/requetes} : requête normalisée de chaque empreinte publiée dans
+ * {@code foyer.sql.requetes}.
+ */
+@Component
+@Endpoint(id = "requetes")
+public class SlowQueryEndpoint {
+    private final SlowQueryLog journal;
+
+    public SlowQueryEndpoint(SlowQueryLog journal) {
+        this.journal = journal;
+    }
+
+    @ReadOperation
+    public Map<String, String> empreintes() {
+        return journal.empreintes();
+    }
+}
@@ -0,0 +1,222 @@
+package tn.esprit.spring.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Chronomètre chaque instruction passée par la source de données (voir
+ * {@link SlowQueryDataSourcePostProcessor}) et publie sa durée sous {@code foyer.sql.requetes},
+ * par empreinte : la requête dont les littéraux, les listes {@code in (...)} et les lignes
+ * d'un {@code values (...), (...)} sont remplacés par {@code ?}.
+ * <p>
+ * Les instructions plus longues que {@code foyer.sql.seuil-lent} sont journalisées avec leurs
+ * paramètres et la méthode de repository qui les a lancées, recherchée dans la pile
+ * seulement pour elles. L'empreinte d'une requête est calculée à sa première exécution.
+ */
+@Component
+@Slf4j
+public class SlowQueryLog implements QueryExecutionListener {
+    public static final String NOM = "foyer.sql.requetes";
+    static final String AUTRES = "autres";
+
+    private static final String DEBUT = "foyer.sql.debut";
+    private static final String APPLICATION = "tn.esprit.spring.";
+    private static final String REPOSITORIES = "tn.esprit.spring.dao.repositories.";
+    // Requêtes brutes gardées avant vidage (les listes in (...) de tailles variées s'y accumulent)
+    private static final int MAX_REQUETES = 10_000;
+    // Jeux de paramètres journalisés pour un lot, et longueur d'une valeur
+    private static final int MAX_JEUX = 5;
+    private static final int MAX_VALEUR = 100;
+
+    private static final Pattern CHAINES = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NOMBRES = Pattern.compile("(?<![\\w.$])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern ESPACES = Pattern.compile("\\s+");
+    private static final Pattern LIGNES = Pattern.compile("(values ?\\([^()]*\\))(?: ?, ?\\([^()]*\\))+",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern LISTES = Pattern.compile("\\( ?\\?(?: ?, ?\\?)+ ?\\)");
+    private static final StackWalker PILE = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final MeterRegistry registry;
+    private final long seuil;
+    private final Duration[] slo;
+    private final int maxEmpreintes;
+    private final Map<String, Empreinte> parRequete = new ConcurrentHashMap<>();
+    private final Map<String, Empreinte> empreintes = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(MeterRegistry registry,
+                        @Value("${foyer.sql.seuil-lent:200ms}") Duration seuil,
+                        @Value("${foyer.sql.slo:1ms,5ms,25ms,100ms,500ms,2s}") List<Duration> slo,
+                        @Value("${foyer.sql.max-empreintes:500}") int maxEmpreintes) {
+        this.registry = registry;
+        this.seuil = seuil.toNanos();
+        this.slo = slo.toArray(Duration[]::new);
+        this.maxEmpreintes = maxEmpreintes;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+        execution.addCustomValue(DEBUT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+        Long debut = execution.getCustomValue(DEBUT, Long.class);
+        if (debut == null || requetes.isEmpty()) {
+            return;
+        }
+        long duree = System.nanoTime() - debut;
+        // Lot de requêtes différentes (Statement.addBatch) : rangé sous l'empreinte de la première
+        String requete = requetes.get(0).getQuery();
+        Empreinte empreinte = empreinte(requete);
+        empreinte.timer.record(duree, TimeUnit.NANOSECONDS);
+        if (duree >= seuil) {
+            log.warn("Requête lente ({} ms) [{}] {} | paramètres {} | appelée par {}",
+                    TimeUnit.NANOSECONDS.toMillis(duree), empreinte.id, requete, parametres(requetes), appelant());
+        }
+    }
+
+    // Empreinte -> requête normalisée
+    public Map<String, String> empreintes() {
+        Map<String, String> requetes = new TreeMap<>();
+        empreintes.forEach((id, empreinte) -> requetes.put(id, empreinte.requete));
+        return requetes;
+    }
+
+    private Empreinte empreinte(String requete) {
+        Empreinte empreinte = parRequete.get(requete);
+        if (empreinte != null) {
+            return empreinte;
+        }
+        if (parRequete.size() >= MAX_REQUETES) {
+            parRequete.clear();
+        }
+        String normalisee = normaliser(requete);
+        String id = identifiant(normalisee);
+        empreinte = empreintes.get(id);
+        if (empreinte == null) {
+            empreinte = empreintes.size() < maxEmpreintes
+                    ? empreintes.computeIfAbsent(id, i -> new Empreinte(i, normalisee, timer(i, type(normalisee))))
+                    : empreintes.computeIfAbsent(AUTRES, i -> new Empreinte(i, "(empreintes au-delà de "
+                    + maxEmpreintes + ")", timer(i, AUTRES)));
+        }
+        parRequete.put(requete, empreinte);
+        return empreinte;
+    }
+
+    // 64 bits d'un SHA-256 : deux requêtes différentes ne partagent pas de série en pratique, là où
+    // un hashCode de 32 bits en fusionnerait dès quelques dizaines de milliers d'empreintes
+    static String identifiant(String normalisee) {
+        try {
+            byte[] condensat = MessageDigest.getInstance("SHA-256")
+                    .digest(normalisee.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(condensat, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est fourni par toute JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Timer timer(String empreinte, String type) {
+        return Timer.builder(NOM)
+                .description("Durée des instructions SQL par empreinte de requête")
+                .tag("empreinte", empreinte)
+                .tag("type", type)
+                .serviceLevelObjectives(slo)
+                .register(registry);
+    }
+
+    static String normaliser(String requete) {
+        String normalisee = CHAINES.matcher(requete).replaceAll("?");
+        normalisee = NOMBRES.matcher(normalisee).replaceAll("?");
+        normalisee = ESPACES.matcher(normalisee).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        normalisee = LIGNES.matcher(normalisee).replaceAll("$1");
+        return LISTES.matcher(normalisee).replaceAll("(?)");
+    }
+
+    private static String type(String normalisee) {
+        int fin = normalisee.indexOf(' ');
+        String verbe = fin < 0 ? normalisee : normalisee.substring(0, fin);
+        return switch (verbe) {
+            case "select", "insert", "update", "delete", "merge", "call" -> verbe;
+            default -> AUTRES;
+        };
+    }
+
+    static String parametres(List<QueryInfo> requetes) {
+        List<String> jeux = new ArrayList<>();
+        int total = 0;
+        for (QueryInfo requete : requetes) {
+            for (List<ParameterSetOperation> jeu : requete.getParametersList()) {
+                if (++total > MAX_JEUX) {
+                    continue;
+                }
+                List<String> valeurs = new ArrayList<>(jeu.size());
+                for (ParameterSetOperation operation : jeu) {
+                    Object[] args = operation.getArgs();
+                    String valeur = ParameterSetOperation.isSetNullParameterOperation(operation)
+                            ? "null" : String.valueOf(args[1]);
+                    if (valeur.length() > MAX_VALEUR) {
+                        valeur = valeur.substring(0, MAX_VALEUR) + "…";
+                    }
+                    valeurs.add(args[0] + "=" + valeur);
+                }
+                jeux.add(valeurs.toString());
+            }
+        }
+        String texte = jeux.isEmpty() ? "[]" : String.join(" ", jeux);
+        return total > MAX_JEUX ? texte + " (et " + (total - MAX_JEUX) + " autres jeux)" : texte;
+    }
+
+    // « ChambreRepository.findByX depuis ChambreService.methode:42 » : le repository est le proxy
+    // Spring Data dans la pile, l'appelant la première classe de l'application au-dessus
+    static String appelant() {
+        return PILE.walk(cadres -> {
+            String repository = null;
+            for (StackWalker.StackFrame cadre : (Iterable<StackWalker.StackFrame>) cadres::iterator) {
+                Class<?> classe = cadre.getDeclaringClass();
+                String nom = classe.getName();
+                if (repository == null && Proxy.isProxyClass(classe)) {
+                    for (Class<?> contrat : classe.getInterfaces()) {
+                        if (contrat.getName().startsWith(REPOSITORIES)) {
+                            repository = contrat.getSimpleName() + "." + cadre.getMethodName();
+                        }
+                    }
+                } else if (nom.startsWith(APPLICATION) && !journal(nom) && !nom.contains("$$")) {
+                    String code = classe.getSimpleName() + "." + cadre.getMethodName() + ":" + cadre.getLineNumber();
+                    return repository == null ? code : repository + " depuis " + code;
+                }
+            }
+            return repository == null ? "(hors application)" : repository;
+        });
+    }
+
+    private static boolean journal(String classe) {
+        return classe.equals(SlowQueryLog.class.getName())
+                || classe.startsWith(SlowQueryDataSourcePostProcessor.class.getName());
+    }
+
+    private record Empreinte(String id, String requete, Timer timer) {
+    }
+}
@@ -0,0 +1,87 @@
+package tn.esprit.spring.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compte les instructions SQL et leur durée cumulée sur le thread d'une requête HTTP, entre
+ * {@link #ouvrir(Consumer)} et {@link #fermer()} (voir {@link SqlBudgetFilter}). Le contrôle passé à
+ * l'ouverture est appelé après chaque instruction et peut la faire échouer. Une réponse écrite
+ * en asynchrone ({@code StreamingResponseBody}) rattache le même compte au thread qui l'écrit
+ * ({@link #rattacher(Compte)}). Hors requête, une instruction ne coûte qu'une lecture de
+ * {@link ThreadLocal}.
+ */
+@Component
+public class SqlBudget implements QueryExecutionListener {
+    private static final String DEBUT = "foyer.sql.budget.debut";
+
+    private final ThreadLocal<Compte> courant = new ThreadLocal<>();
+
+    public Compte ouvrir(Consumer<Compte> controle) {
+        Compte compte = new Compte(controle);
+        courant.set(compte);
+        return compte;
+    }
+
+    // Thread de la tâche asynchrone qui poursuit la requête : mêmes compte et contrôle
+    public void rattacher(Compte compte) {
+        courant.set(compte);
+    }
+
+    public void fermer() {
+        courant.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+        if (courant.get() != null) {
+            execution.addCustomValue(DEBUT, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> requetes) {
+        Compte compte = courant.get();
+        Long debut = execution.getCustomValue(DEBUT, Long.class);
+        if (compte != null && debut != null) {
+            compte.instructions++;
+            compte.nanos += System.nanoTime() - debut;
+            compte.controle.accept(compte);
+        }
+    }
+
+    // Un seul thread à la fois, celui de la requête puis celui de la tâche asynchrone, la remise de
+    // la tâche à l'exécuteur ordonnant les écritures : pas de synchronisation
+    public static final class Compte {
+        private final Consumer<Compte> controle;
+        private int instructions;
+        private long nanos;
+        private boolean signale;
+
+        private Compte(Consumer<Compte> controle) {
+            this.controle = controle;
+        }
+
+        public int instructions() {
+            return instructions;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        // Dépassement déjà levé pendant la requête : il n'est pas signalé une seconde fois
+        boolean signale() {
+            return signale;
+        }
+
+        void signaler() {
+            signale = true;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package tn.esprit.spring.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget d'instructions SQL et de temps en base par requête HTTP, sérialisation JSON et
+ * chargements paresseux compris. Publie par endpoint (tags {@code methode} et {@code uri},
+ * le motif de la route) {@code foyer.http.sql.instructions}, {@code foyer.http.sql.duree} et
+ * {@code foyer.http.sql.depassements}. Une réponse écrite en asynchrone ({@code StreamingResponseBody})
+ * est comptée jusqu'à la fin de son écriture, sur le thread de l'exécuteur MVC.
+ * <p>
+ * Un dépassement est journalisé ; sous les profils {@code foyer.sql.budget.profils-stricts},
+ * l'instruction qui franchit le budget lève une {@link IllegalStateException}, avant que la
+ * réponse ne soit écrite, pour qu'un test qui introduit un N+1 échoue. Ce mode est réservé
+ * aux tests : en production, la requête échouerait au milieu de son traitement.
+ */
+@Component
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    static final String INCONNUE = "inconnue";
+
+    private final SqlBudget budget;
+    private final MeterRegistry registry;
+    private final int instructions;
+    private final long nanos;
+    private final Map<String, Integer> parEndpoint;
+    private final boolean strict;
+    private final Map<String, Mesures> mesures = new ConcurrentHashMap<>();
+
+    public SqlBudgetFilter(SqlBudget budget, MeterRegistry registry, Environment environment,
+                           @Value("${foyer.sql.budget.instructions:25}") int instructions,
+                           @Value("${foyer.sql.budget.duree:1s}") Duration duree,
+                           @Value("${foyer.sql.budget.endpoints:}") List<String> parEndpoint,
+                           @Value("${foyer.sql.budget.profils-stricts:test}") List<String> profilsStricts) {
+        this.budget = budget;
+        this.registry = registry;
+        this.instructions = instructions;
+        this.nanos = duree.toNanos();
+        this.parEndpoint = budgets(parEndpoint);
+        this.strict = !profilsStricts.isEmpty()
+                && environment.acceptsProfiles(Profiles.of(profilsStricts.toArray(String[]::new)));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // En mode strict, le dépassement est levé par l'instruction fautive, avant que la réponse ne soit écrite
+        SqlBudget.Compte compte = budget.ouvrir(strict ? c -> controler(request, c) : c -> { });
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(SqlBudgetFilter.class.getName(),
+                new Poursuite(request, compte));
+        // Réponse écrite en asynchrone : le compte est clos par la tâche, après sa dernière instruction
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            budget.fermer();
+            if (!isAsyncStarted(request)) {
+                mesurer(request, compte);
+            }
+        }
+        if (!isAsyncStarted(request)) {
+            signaler(request, compte);
+        }
+    }
+
+    private void signaler(HttpServletRequest request, SqlBudget.Compte compte) {
+        String depassement = depassement(request, compte);
+        if (depassement != null && !compte.signale()) {
+            if (strict) {
+                throw new IllegalStateException(depassement);
+            }
+            log.warn(depassement);
+        }
+    }
+
+    private void controler(HttpServletRequest request, SqlBudget.Compte compte) {
+        String depassement = depassement(request, compte);
+        if (depassement != null && !compte.signale()) {
+            compte.signaler();
+            throw new IllegalStateException(depassement);
+        }
+    }
+
+    private void mesurer(HttpServletRequest request, SqlBudget.Compte compte) {
+        String uri = uri(request);
+        Mesures m = mesures.computeIfAbsent(request.getMethod() + " " + uri, cle -> new Mesures(request.getMethod(), uri));
+        m.instructions.record(compte.instructions());
+        m.duree.record(compte.nanos(), TimeUnit.NANOSECONDS);
+        if (depassement(request, compte) != null) {
+            m.depassements.increment();
+        }
+    }
+
+    private String depassement(HttpServletRequest request, SqlBudget.Compte compte) {
+        String uri = uri(request);
+        int maximum = parEndpoint.getOrDefault(uri, instructions);
+        if (compte.instructions() <= maximum && compte.nanos() <= nanos) {
+            return null;
+        }
+        return String.format("Budget SQL dépassé par %s %s : %d instructions (budget %d), %d ms en base "
+                        + "(budget %d ms)", request.getMethod(), uri, compte.instructions(), maximum,
+                TimeUnit.NANOSECONDS.toMillis(compte.nanos()), TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    // Motif de la route (/chambre/findById), posé par le DispatcherServlet avant l'appel du contrôleur
+    private static String uri(HttpServletRequest request) {
+        Object motif = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return motif == null ? INCONNUE : motif.toString();
+    }
+
+    // Entrées « motif:N », N instructions pour ce motif de route
+    static Map<String, Integer> budgets(List<String> entrees) {
+        Map<String, Integer> budgets = new HashMap<>();
+        for (String entree : entrees) {
+            int separateur = entree.lastIndexOf(':');
+            if (separateur < 0) {
+                throw new IllegalArgumentException("Budget attendu sous la forme motif:N : " + entree);
+            }
+            budgets.put(entree.substring(0, separateur).trim(), Integer.parseInt(entree.substring(separateur + 1).trim()));
+        }
+        return budgets;
+    }
+
+    // Tâche asynchrone de la requête (StreamingResponseBody) : le compte la suit sur le thread de l'exécuteur
+    private final class Poursuite implements CallableProcessingInterceptor {
+        private final HttpServletRequest request;
+        private final SqlBudget.Compte compte;
+
+        Poursuite(HttpServletRequest request, SqlBudget.Compte compte) {
+            this.request = request;
+            this.compte = compte;
+        }
+
+        @Override
+        public <T> void preProcess(NativeWebRequest webRequest, Callable<T> tache) {
+            budget.rattacher(compte);
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest webRequest, Callable<T> tache, Object resultat) {
+            budget.fermer();
+            mesurer(request, compte);
+            signaler(request, compte);
+        }
+    }
+
+    private final class Mesures {
+        final DistributionSummary instructions;
+        final Timer duree;
+        final Counter depassements;
+
+        Mesures(String methode, String uri) {
+            instructions = DistributionSummary.builder("foyer.http.sql.instructions")
+                    .description("Instructions SQL par requête HTTP")
+                    .tag("methode", methode)
+                    .tag("uri", uri)
+                    .serviceLevelObjectives(1, 5, 10, 25, 50, 100)
+                    .register(registry);
+            duree = Timer.builder("foyer.http.sql.duree")
+                    .description("Temps passé en base par requête HTTP")
+                    .tag("methode", methode)
+                    .tag("uri", uri)
+                    .serviceLevelObjectives(Duration.ofMillis(5), Duration.ofMillis(25), Duration.ofMillis(100),
+                            Duration.ofMillis(500), Duration.ofSeconds(1))
+                    .register(registry);
+            depassements = Counter.builder("foyer.http.sql.depassements")
+                    .description("Requêtes HTTP au-delà de leur budget SQL")
+                    .tag("methode", methode)
+                    .tag("uri", uri)
+                    .register(registry);
+        }
+    }
+}
@@ -4,13 +4,21 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "T_BLOC")
+@Table(name = "T_BLOC", indexes = @Index(columnList = "dateMiseAJour"))
+// Bloc et ses chambres en une requête, pour les rares cas qui parcourent les chambres
+@NamedEntityGraph(name = Bloc.AVEC_CHAMBRES, attributeNodes = @NamedAttributeNode("chambres"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Caches.BLOC)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,8 +26,12 @@ import java.util.List;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Bloc implements Serializable {
+    public static final String AVEC_CHAMBRES = "Bloc.chambres";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bloc_id")
+    @TableGenerator(name = "bloc_id", table = Sequences.TABLE, pkColumnName = Sequences.NOM,
+            valueColumnName = Sequences.VALEUR, pkColumnValue = "T_BLOC", allocationSize = Sequences.TAILLE_BLOC)
     Long idBloc;
     String nomBloc;
     long capaciteBloc;
@@ -27,7 +39,12 @@ public class Bloc implements Serializable {
     @ManyToOne
     @JsonIgnore
     Foyer foyer;
-    @OneToMany(mappedBy = "bloc", fetch = FetchType.EAGER)
+    // Hors cache : les chambres ne le sont pas, chaque chambre serait relue une à une
+    @OneToMany(mappedBy = "bloc")
     @JsonIgnore
     private List<Chambre> chambres= new ArrayList<>();
+    // Dernière modification du bloc
+    @UpdateTimestamp
+    @JsonIgnore
+    LocalDateTime dateMiseAJour;
 }
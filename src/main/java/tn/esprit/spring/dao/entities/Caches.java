@@ -0,0 +1,15 @@
+package tn.esprit.spring.dao.entities;
+
+/**
+ * Régions du cache de second niveau. Seules les entités de structure, peu modifiées
+ * et lues à chaque réservation (université, foyer, bloc), y sont gardées.
+ */
+public final class Caches {
+    public static final String UNIVERSITE = "universite";
+    public static final String FOYER = "foyer";
+    public static final String BLOC = "bloc";
+    public static final String FOYER_BLOCS = "foyer.blocs";
+
+    private Caches() {
+    }
+}
@@ -4,13 +4,15 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "T_CHAMBRE")
+@Table(name = "T_CHAMBRE", indexes = @Index(columnList = "dateMiseAJour"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +22,9 @@ import java.util.List;
 public class Chambre implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "chambre_id")
+    @TableGenerator(name = "chambre_id", table = Sequences.TABLE, pkColumnName = Sequences.NOM,
+            valueColumnName = Sequences.VALEUR, pkColumnValue = "T_CHAMBRE", allocationSize = Sequences.TAILLE_BLOC)
     Long idChambre;
     @Column(unique = true)
     long numeroChambre;
@@ -29,7 +33,12 @@ public class Chambre implements Serializable {
     @ManyToOne(cascade = CascadeType.ALL)
     @JsonIgnore
     private Bloc bloc;
+    // Ensemble : ajouter ou retirer une réservation n'écrit qu'une ligne de t_chambre_reservations
     @OneToMany
-    private List<Reservation> reservations= new ArrayList<>();
+    private Set<Reservation> reservations= new HashSet<>();
+    // Dernière modification de la chambre
+    @UpdateTimestamp
+    @JsonIgnore
+    LocalDateTime dateMiseAJour;
 
 }
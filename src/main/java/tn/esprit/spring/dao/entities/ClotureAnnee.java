@@ -0,0 +1,28 @@
+package tn.esprit.spring.dao.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Point de reprise de la clôture d'une année universitaire (annulation des réservations)
+@Entity
+@Table(name = "T_CLOTURE_ANNEE")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ClotureAnnee implements Serializable {
+    // Année de début de l'année universitaire
+    @Id
+    Integer anneeUniversitaire;
+    // Dernière réservation traitée : la reprise commence juste après
+    String dernierIdReservation;
+    long nbReservationsAnnulees;
+    boolean terminee;
+    LocalDateTime dateMiseAJour;
+}
@@ -10,7 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "T_ETUDIANT")
+@Table(name = "T_ETUDIANT", indexes = @Index(columnList = "cin"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,7 +19,9 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Etudiant implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "etudiant_id")
+    @TableGenerator(name = "etudiant_id", table = Sequences.TABLE, pkColumnName = Sequences.NOM,
+            valueColumnName = Sequences.VALEUR, pkColumnValue = "T_ETUDIANT", allocationSize = Sequences.TAILLE_BLOC)
     Long idEtudiant;
     String nomEt;
     String prenomEt;
@@ -29,5 +31,18 @@ public class Etudiant implements Serializable {
     @ManyToMany(mappedBy = "etudiants")
     private List<Reservation> reservations= new ArrayList<>();
 
+    // Identifiant généré à l'insertion : le hash ne doit pas en dépendre. Méthodes finales et
+    // lecture par getter : un proxy (getReferenceById) se compare sans être chargé
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Etudiant autre && getIdEtudiant() != null && getIdEtudiant().equals(autre.getIdEtudiant());
+    }
 
+    @Override
+    public final int hashCode() {
+        return Etudiant.class.hashCode();
+    }
 }
@@ -3,6 +3,8 @@ package tn.esprit.spring.dao.entities;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -10,6 +12,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "T_FOYER")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Caches.FOYER)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,12 +23,16 @@ import java.util.List;
 public class Foyer implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "foyer_id")
+    @TableGenerator(name = "foyer_id", table = Sequences.TABLE, pkColumnName = Sequences.NOM,
+            valueColumnName = Sequences.VALEUR, pkColumnValue = "T_FOYER", allocationSize = Sequences.TAILLE_BLOC)
     Long idFoyer;
     String nomFoyer;
     long capaciteFoyer;
-    @OneToOne(mappedBy = "foyer")
-    Universite universite;
+    // Pas de côté inverse vers l'université : sans colonne dans t_foyer, Hibernate la relirait
+    // à chaque chargement d'un foyer, même servi par le cache de second niveau.
+    // Le lien est porté par Universite.foyer.
     @OneToMany(mappedBy = "foyer")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Caches.FOYER_BLOCS)
     private List<Bloc> blocs= new ArrayList<>();
 }
@@ -7,8 +7,9 @@ import lombok.experimental.FieldDefaults;
 
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @Table(name = "T_RESERVATION")
@@ -25,6 +26,20 @@ public class Reservation implements Serializable {
     boolean estValide;
     @ManyToMany
     @JsonIgnore
-    private List<Etudiant> etudiants = new ArrayList<>();
+    private Set<Etudiant> etudiants = new HashSet<>();
 
+    // Identité portée par l'identifiant, attribué avant l'enregistrement
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Reservation autre && getIdReservation() != null
+                && getIdReservation().equals(autre.getIdReservation());
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hashCode(getIdReservation());
+    }
 }
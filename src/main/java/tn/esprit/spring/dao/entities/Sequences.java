@@ -0,0 +1,16 @@
+package tn.esprit.spring.dao.entities;
+
+/**
+ * Table des identifiants des entités. Chaque entité y a sa ligne et réserve ses
+ * identifiants par blocs de {@link #TAILLE_BLOC} : les INSERT ne dépendent plus d'une
+ * colonne AUTO_INCREMENT et Hibernate peut les regrouper en lots JDBC.
+ */
+public final class Sequences {
+    public static final String TABLE = "T_SEQUENCE";
+    public static final String NOM = "nom_sequence";
+    public static final String VALEUR = "valeur";
+    public static final int TAILLE_BLOC = 50;
+
+    private Sequences() {
+    }
+}
@@ -1,5 +1,16 @@
 package tn.esprit.spring.dao.entities;
 
 public enum TypeChambre {
-    SIMPLE, DOUBLE, TRIPLE
+    SIMPLE(1), DOUBLE(2), TRIPLE(3);
+
+    // Nombre maximal de réservations par chambre et par année universitaire
+    private final int capacite;
+
+    TypeChambre(int capacite) {
+        this.capacite = capacite;
+    }
+
+    public int getCapacite() {
+        return capacite;
+    }
 }
@@ -3,11 +3,15 @@ package tn.esprit.spring.dao.entities;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 
 @Entity
 @Table(name = "T_UNIVERSITE")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Caches.UNIVERSITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +20,9 @@ import java.io.Serializable;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Universite implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "universite_id")
+    @TableGenerator(name = "universite_id", table = Sequences.TABLE, pkColumnName = Sequences.NOM,
+            valueColumnName = Sequences.VALEUR, pkColumnValue = "T_UNIVERSITE", allocationSize = Sequences.TAILLE_BLOC)
     Long idUniversite;
     String nomUniversite;
     String adresse;
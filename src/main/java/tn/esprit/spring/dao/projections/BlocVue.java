@@ -0,0 +1,4 @@
+package tn.esprit.spring.dao.projections;
+
+public record BlocVue(Long idBloc, String nomBloc, long capaciteBloc) {
+}
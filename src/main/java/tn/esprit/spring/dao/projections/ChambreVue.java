@@ -0,0 +1,9 @@
+package tn.esprit.spring.dao.projections;
+
+import tn.esprit.spring.dao.entities.TypeChambre;
+
+/**
+ * Chambre renvoyée par l'API : ses colonnes seulement, sans ses réservations.
+ */
+public record ChambreVue(Long idChambre, long numeroChambre, TypeChambre typeC) {
+}
@@ -0,0 +1,7 @@
+package tn.esprit.spring.dao.projections;
+
+import java.time.LocalDate;
+
+public record EtudiantVue(Long idEtudiant, String nomEt, String prenomEt, long cin, String ecole,
+                          LocalDate dateNaissance) {
+}
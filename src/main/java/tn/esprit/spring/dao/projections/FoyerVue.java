@@ -0,0 +1,7 @@
+package tn.esprit.spring.dao.projections;
+
+/**
+ * Foyer renvoyé par l'API, sans ses blocs ni son université.
+ */
+public record FoyerVue(Long idFoyer, String nomFoyer, long capaciteFoyer) {
+}
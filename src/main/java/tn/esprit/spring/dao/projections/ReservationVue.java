@@ -0,0 +1,6 @@
+package tn.esprit.spring.dao.projections;
+
+import java.time.LocalDate;
+
+public record ReservationVue(String idReservation, LocalDate anneeUniversitaire, boolean estValide) {
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.dao.projections;
+
+/**
+ * Université et son foyer, lus en une seule requête (jointure externe sur le foyer).
+ */
+public record UniversiteVue(Long idUniversite, String nomUniversite, String adresse, FoyerVue foyer) {
+
+    // Constructeur des requêtes JPQL : colonnes du foyer à plat, nulles sans foyer
+    public UniversiteVue(Long idUniversite, String nomUniversite, String adresse,
+                         Long idFoyer, String nomFoyer, Long capaciteFoyer) {
+        this(idUniversite, nomUniversite, adresse,
+                idFoyer == null ? null : new FoyerVue(idFoyer, nomFoyer, capaciteFoyer));
+    }
+}
@@ -1,15 +1,35 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.BlocVue;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface BlocRepository extends JpaRepository<Bloc, Long> {
+    @Query("select new tn.esprit.spring.dao.projections.BlocVue(b.idBloc, b.nomBloc, b.capaciteBloc) " +
+            "from Bloc b order by b.idBloc")
+    List<BlocVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.BlocVue(b.idBloc, b.nomBloc, b.capaciteBloc) " +
+            "from Bloc b where b.idBloc > ?1 order by b.idBloc")
+    List<BlocVue> findVuesApres(long apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.BlocVue(b.idBloc, b.nomBloc, b.capaciteBloc) " +
+            "from Bloc b where b.idBloc = ?1")
+    Optional<BlocVue> findVueById(long id);
+
 
     @Query("select b from Bloc b where b.nomBloc=?1")
     Bloc selectByNomBJPQL1(String nom);
@@ -24,13 +44,17 @@ public interface BlocRepository extends JpaRepository<Bloc, Long> {
     Bloc selectByNomBSQL2(@Param("nom") String nom);
 
     @Modifying
-    @Query("update Bloc b set b.nomBloc=?1 where b.capaciteBloc<10")
+    @Query("update Bloc b set b.nomBloc=?1, b.dateMiseAJour=current_timestamp where b.capaciteBloc<10")
     void updateBlocJPQL(String nom);
 
     @Modifying
-    @Query(value = "update t_bloc set nom_bloc=?1 where capacite_bloc<10", nativeQuery = true)
+    @Query(value = "update t_bloc set nom_bloc=?1, date_miseajour=current_timestamp where capacite_bloc<10", nativeQuery = true)
     void updateBlocSQL(String nom);
 
+    // Blocs modifiés depuis une date : nom et capacité
+    @Query("select b.nomBloc, b.capaciteBloc from Bloc b where b.dateMiseAJour > ?1 order by b.nomBloc")
+    List<Object[]> findModifiesDepuis(LocalDateTime date);
+
     // Récupérer les blocs qui ont des chambres avec un typeChambre donné
     // Bloc (Child) 1--* Chambre (Parent-FK)
     @Query("select b from Bloc b join Chambre c on c.bloc.idBloc=b.idBloc  where c.typeC=?1")
@@ -40,8 +64,18 @@ public interface BlocRepository extends JpaRepository<Bloc, Long> {
     // 1- Recherche par nomBloc
     List<Bloc> getByNomBloc(String nom);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Bloc findByNomBloc(String nom);
 
+    @Query("select b.idBloc from Bloc b where b.nomBloc = ?1")
+    Optional<Long> findIdByNomBloc(String nom);
+
+    @EntityGraph(Bloc.AVEC_CHAMBRES)
+    Bloc findAvecChambresByNomBloc(String nom);
+
+    @EntityGraph(Bloc.AVEC_CHAMBRES)
+    Optional<Bloc> findAvecChambresByIdBloc(long idBloc);
+
     // 2- Recherche par capaciteBloc
     List<Bloc> getByCapaciteBloc(long cap);
 
@@ -69,9 +103,11 @@ public interface BlocRepository extends JpaRepository<Bloc, Long> {
     List<Bloc> findByFoyerIdFoyerJPQL(long idFoyer);
 
     // 10- Recherche des blocs pour un foyer d'une université donnée
+    // (le lien est porté par Universite.foyer : Foyer.universite n'est pas mappé)
+    @Query("select b from Bloc b join Universite u on u.foyer = b.foyer where u.idUniversite = ?1")
     List<Bloc> findByFoyerUniversiteIdUniversite(long idUniversite);
 
-    @Query("select b from Bloc b where b.foyer.universite.idUniversite=?1")
+    @Query("select b from Bloc b join Universite u on u.foyer = b.foyer where u.idUniversite = ?1")
     List<Bloc> findByFoyerUniversiteIdUniversiteJPQL(long idUniversite);
 
 
@@ -87,7 +123,7 @@ public interface BlocRepository extends JpaRepository<Bloc, Long> {
     List<Bloc> req9SQL(long idF);
 
     // 10- Recherche des blocs pour un foyer d'une université donnée
-    @Query("select b from Bloc b where b.foyer.universite.idUniversite=?1 ")
+    @Query("select b from Bloc b join Universite u on u.foyer = b.foyer where u.idUniversite = ?1")
     List<Bloc> req10JPQL(long idU);
     @Query(value = "SELECT * FROM t_bloc b JOIN t_foyer f " +
             "ON f.id_foyer= b.foyer_id_foyer JOIN t_universite u " +
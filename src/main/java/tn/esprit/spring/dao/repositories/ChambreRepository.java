@@ -1,17 +1,71 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ChambreVue;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ChambreRepository extends JpaRepository<Chambre, Long> {
+    // Projections de l'API : seules les colonnes renvoyées sont lues, sans chargement paresseux
+    @Query("select new tn.esprit.spring.dao.projections.ChambreVue(c.idChambre, c.numeroChambre, c.typeC) " +
+            "from Chambre c order by c.idChambre")
+    List<ChambreVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.ChambreVue(c.idChambre, c.numeroChambre, c.typeC) " +
+            "from Chambre c where c.idChambre > ?1 order by c.idChambre")
+    List<ChambreVue> findVuesApres(long apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.ChambreVue(c.idChambre, c.numeroChambre, c.typeC) " +
+            "from Chambre c where c.idChambre = ?1")
+    Optional<ChambreVue> findVueById(long id);
+
+    @Query("select new tn.esprit.spring.dao.projections.ChambreVue(c.idChambre, c.numeroChambre, c.typeC) " +
+            "from Chambre c join c.bloc b where b.nomBloc = ?1")
+    List<ChambreVue> findVuesParNomBloc(String nomBloc);
+
+    @Query("select new tn.esprit.spring.dao.projections.ChambreVue(c.idChambre, c.numeroChambre, c.typeC) " +
+            "from Chambre c where c.idChambre in ?1")
+    List<ChambreVue> findVuesParIds(Collection<Long> ids);
+
+    // Export complet, lu par lots sans contexte de persistance grandissant
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select c from Chambre c order by c.idChambre")
+    Stream<Chambre> streamAll();
+
     Chambre findByNumeroChambre(long num);
 
+    @Query("select c.idChambre from Chambre c where c.numeroChambre = ?1")
+    Optional<Long> findIdByNumeroChambre(long num);
+
+    @Query("select c from Chambre c left join fetch c.bloc where c.numeroChambre in ?1")
+    List<Chambre> findByNumeroChambreIn(Collection<Long> nums);
+
+    // Id, numéro et type des chambres demandées, sans charger les entités (affectation à un bloc)
+    @Query("select c.idChambre, c.numeroChambre, c.typeC from Chambre c where c.numeroChambre in ?1")
+    List<Object[]> findIdsParNumeros(Collection<Long> nums);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Chambre c set c.bloc = ?1, c.dateMiseAJour = ?2 where c.idChambre in ?3")
+    int affecterABloc(Bloc bloc, LocalDateTime dateMiseAJour, Collection<Long> ids);
+
 
     int countByTypeCAndBlocIdBloc(TypeChambre typeChambre, long idBloc);
 
@@ -26,6 +80,72 @@ public interface ChambreRepository extends JpaRepository<Chambre, Long> {
     //Keyword
     int countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(long chambreId, LocalDate dateDebutAU, LocalDate dateFinAU);
 
+    // Nombre de réservations par chambre et par date (initialisation du registre d'occupation)
+    @Query("select c.idChambre, r.anneeUniversitaire, count(r) from Chambre c join c.reservations r " +
+            "where r.anneeUniversitaire >= ?1 group by c.idChambre, r.anneeUniversitaire")
+    List<Object[]> countReservationsParChambreEtDateDepuis(LocalDate dateDebut);
+
+    // Verrou exclusif sur la chambre : les réservations d'une même chambre passent une par une
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from Chambre c where c.numeroChambre=?1")
+    Chambre findByNumeroChambreForUpdate(long num);
+
+    // Même verrou sur les chambres d'une tranche, pris dans l'ordre des identifiants : pas d'interblocage
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from Chambre c where c.idChambre in ?1 order by c.idChambre")
+    List<Chambre> findByIdChambreInForUpdate(Collection<Long> ids);
+
+    // Nombre de réservations de chacune des chambres sur une année universitaire
+    @Query("select c.idChambre, count(r) from Chambre c join c.reservations r " +
+            "where c.idChambre in ?1 and r.anneeUniversitaire between ?2 and ?3 group by c.idChambre")
+    List<Object[]> countReservationsParChambreEntre(Collection<Long> ids, LocalDate dateDebutAU, LocalDate dateFinAU);
+
+    // Seule la table de jointure est déclarée modifiée : le cache de second niveau reste valide
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_chambre_reservations"))
+    @Query(value = "insert into t_chambre_reservations (chambre_id_chambre, reservations_id_reservation) " +
+            "values (?1, ?2)", nativeQuery = true)
+    void ajouterReservationAChambre(long idChambre, String idReservation);
+
+    // Chambre d'une réservation, lue par la clé unique de la jointure sur la réservation
+    @Query(value = "select chambre_id_chambre from t_chambre_reservations where reservations_id_reservation = ?1",
+            nativeQuery = true)
+    Optional<Long> findIdChambreByIdReservation(String idReservation);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_chambre_reservations"))
+    @Query(value = "delete from t_chambre_reservations where reservations_id_reservation = ?1", nativeQuery = true)
+    int retirerReservationDeChambre(String idReservation);
+
+    // Emplacement de chaque chambre rattachée à un foyer : id, type et nom du foyer
+    @Query("select c.idChambre, c.typeC, f.nomFoyer from Chambre c join c.bloc b join b.foyer f")
+    List<Object[]> findEmplacements();
+
+    // Bloc et type de chaque chambre rattachée à un bloc (compteurs par bloc et par type)
+    @Query("select c.idChambre, c.bloc.idBloc, c.typeC from Chambre c where c.bloc is not null and c.typeC is not null")
+    List<Object[]> findPlacements();
+
+    @Query("select c.bloc.idBloc, c.typeC, count(c) from Chambre c " +
+            "where c.bloc is not null and c.typeC is not null group by c.bloc.idBloc, c.typeC")
+    List<Object[]> countChambresParBlocEtType();
+
+    // Chambres modifiées depuis une date : numéro, type et nom du bloc
+    @Query("select c.numeroChambre, c.typeC, b.nomBloc from Chambre c left join c.bloc b " +
+            "where c.dateMiseAJour > ?1 order by b.nomBloc, c.numeroChambre")
+    List<Object[]> findModifieesDepuis(LocalDateTime date);
+
+    @Query("select c.typeC, count(c) from Chambre c group by c.typeC")
+    List<Object[]> countChambresParType();
+
+    // Réservations valides de chaque chambre sur la période, chambres sans réservation comprises
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.idChambre, c.numeroChambre, c.typeC, count(r) from Chambre c left join c.reservations r " +
+            "on r.estValide = true and r.anneeUniversitaire between ?1 and ?2 " +
+            "group by c.idChambre, c.numeroChambre, c.typeC order by c.idChambre")
+    Stream<Object[]> countReservationsValidesParChambre(LocalDate dateDebut, LocalDate dateFin);
+
     //*****************************************************************
     Chambre findByReservationsIdReservation(String idReservation);
 
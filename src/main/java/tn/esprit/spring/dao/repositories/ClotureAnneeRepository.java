@@ -0,0 +1,10 @@
+package tn.esprit.spring.dao.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import tn.esprit.spring.dao.entities.ClotureAnnee;
+
+import java.util.List;
+
+public interface ClotureAnneeRepository extends JpaRepository<ClotureAnnee, Integer> {
+    List<ClotureAnnee> findByTermineeFalse();
+}
@@ -1,15 +1,49 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.projections.EtudiantVue;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
+    @Query("select new tn.esprit.spring.dao.projections.EtudiantVue(e.idEtudiant, e.nomEt, e.prenomEt, e.cin, " +
+            "e.ecole, e.dateNaissance) " +
+            "from Etudiant e order by e.idEtudiant")
+    List<EtudiantVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.EtudiantVue(e.idEtudiant, e.nomEt, e.prenomEt, e.cin, " +
+            "e.ecole, e.dateNaissance) " +
+            "from Etudiant e where e.idEtudiant > ?1 order by e.idEtudiant")
+    List<EtudiantVue> findVuesApres(long apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.EtudiantVue(e.idEtudiant, e.nomEt, e.prenomEt, e.cin, " +
+            "e.ecole, e.dateNaissance) " +
+            "from Etudiant e where e.idEtudiant = ?1")
+    Optional<EtudiantVue> findVueById(long id);
+
+    @Query("select new tn.esprit.spring.dao.projections.EtudiantVue(e.idEtudiant, e.nomEt, e.prenomEt, e.cin, " +
+            "e.ecole, e.dateNaissance) " +
+            "from Etudiant e where e.nomEt = ?1")
+    List<EtudiantVue> findVuesParNom(String nom);
+
+    // Tous les étudiants pour l'export NDJSON, lus par lots de 1000
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select e from Etudiant e order by e.idEtudiant")
+    Stream<Etudiant> streamAll();
+
 
     // Afficher la liste des étudiants avec le nom passé en paramétre
     List<Etudiant> findByNomEt(String nom);
@@ -66,6 +100,16 @@ public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
     //select * from Etudiant where cin=...
     Etudiant findByCin(long cin);
 
+    @Query("select e.idEtudiant from Etudiant e where e.cin = ?1")
+    Optional<Long> findIdByCin(long cin);
+
+    // Tous les CIN, pour le filtre des CIN inconnus
+    @Query("select e.cin from Etudiant e")
+    List<Long> findAllCins();
+
+    // select * from Etudiant where cin in (...)
+    List<Etudiant> findByCinIn(Collection<Long> cins);
+
     // select * from Etudiant where nomEt like ...
     List<Etudiant> findByNomEtLike(String nom);
 
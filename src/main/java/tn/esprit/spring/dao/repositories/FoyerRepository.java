@@ -1,14 +1,36 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tn.esprit.spring.dao.entities.Foyer;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.FoyerVue;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface FoyerRepository extends JpaRepository<Foyer,Long> {
+    @Query("select new tn.esprit.spring.dao.projections.FoyerVue(f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Foyer f order by f.idFoyer")
+    List<FoyerVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.FoyerVue(f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Foyer f where f.idFoyer > ?1 order by f.idFoyer")
+    List<FoyerVue> findVuesApres(long apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.FoyerVue(f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Foyer f where f.idFoyer = ?1")
+    Optional<FoyerVue> findVueById(long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Foyer findByNomFoyer(String nom);
+
+    @Query("select f.idFoyer from Foyer f where f.nomFoyer = ?1")
+    Optional<Long> findIdByNomFoyer(String nom);
     // select * from Foyer where capaciteFoyer > ....
     List<Foyer> findByCapaciteFoyerGreaterThan(int capacite);
     // select * from Foyer where capaciteFoyer < ....
@@ -18,6 +40,7 @@ public interface FoyerRepository extends JpaRepository<Foyer,Long> {
 
     // Afficher le foyer de l'université dont son nom est passé en paramétre.
     // select f from Foyer f JOIN Universite u ON <Condition de jointure> where <condition>
+    @Query("select u.foyer from Universite u where u.nomUniversite = ?1")
     Foyer findByUniversiteNomUniversite(String nom);
 
     // Afficher la liste des foyers qui comportent des chambres de meme type
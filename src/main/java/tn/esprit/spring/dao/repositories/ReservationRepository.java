@@ -1,16 +1,59 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.ReservationVue;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReservationRepository extends JpaRepository<Reservation, String> {
+    @Query("select new tn.esprit.spring.dao.projections.ReservationVue(r.idReservation, r.anneeUniversitaire, r.estValide) " +
+            "from Reservation r order by r.idReservation")
+    List<ReservationVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.ReservationVue(r.idReservation, r.anneeUniversitaire, r.estValide) " +
+            "from Reservation r where r.idReservation > ?1 order by r.idReservation")
+    List<ReservationVue> findVuesApres(String apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.ReservationVue(r.idReservation, r.anneeUniversitaire, r.estValide) " +
+            "from Reservation r where r.idReservation = ?1")
+    Optional<ReservationVue> findVueById(String id);
+
+    // Export NDJSON : lecture en flux, entités en lecture seule
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select r from Reservation r order by r.idReservation")
+    Stream<Reservation> streamAll();
+
     int countByAnneeUniversitaireBetween(LocalDate dateInf, LocalDate dateSup);
     Reservation findByEtudiantsCinAndEstValide(long cin,boolean isValid);
+    // Par identifiant d'étudiant : la jointure s'arrête à t_reservation_etudiants
+    @Query(value = "select r.* from t_reservation r " +
+            "join t_reservation_etudiants re on re.reservations_id_reservation = r.id_reservation " +
+            "where re.etudiants_id_etudiant = ?1 and r.est_valide = ?2", nativeQuery = true)
+    Reservation findReservationParIdEtudiant(long idEtudiant, boolean estValide);
     List<Reservation> findByEstValideAndAnneeUniversitaireBetween(boolean estValide, LocalDate dateDebut, LocalDate dateFin);
+    // Clôture de l'année : réservations valides suivantes, dans l'ordre des identifiants
+    @Query("select r.idReservation from Reservation r where r.estValide = true " +
+            "and r.anneeUniversitaire between ?1 and ?2 and r.idReservation > ?3 order by r.idReservation")
+    List<String> findIdsValidesApres(LocalDate dateDebut, LocalDate dateFin, String dernierId, Pageable page);
+
+    @Modifying
+    @Query("update Reservation r set r.estValide = false where r.idReservation in ?1")
+    int invaliderReservations(Collection<String> ids);
+
+    @Query("select r.idReservation from Reservation r where r.idReservation in ?1")
+    List<String> findExistingIds(Collection<String> ids);
     @Query(value = "SELECT c FROM Chambre c  WHERE c.idChambre = :idchambre")
     List<Reservation> findByChambreIdChambre(long idchambre);
 
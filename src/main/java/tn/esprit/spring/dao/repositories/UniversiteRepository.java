@@ -1,13 +1,39 @@
 package tn.esprit.spring.dao.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.UniversiteVue;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface UniversiteRepository extends JpaRepository<Universite, Long> {
+    @Query("select new tn.esprit.spring.dao.projections.UniversiteVue(u.idUniversite, u.nomUniversite, u.adresse, " +
+            "f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Universite u left join u.foyer f order by u.idUniversite")
+    List<UniversiteVue> findVues();
+
+    @Query("select new tn.esprit.spring.dao.projections.UniversiteVue(u.idUniversite, u.nomUniversite, u.adresse, " +
+            "f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Universite u left join u.foyer f where u.idUniversite > ?1 order by u.idUniversite")
+    List<UniversiteVue> findVuesApres(long apres, Pageable page);
+
+    @Query("select new tn.esprit.spring.dao.projections.UniversiteVue(u.idUniversite, u.nomUniversite, u.adresse, " +
+            "f.idFoyer, f.nomFoyer, f.capaciteFoyer) " +
+            "from Universite u left join u.foyer f where u.idUniversite = ?1")
+    Optional<UniversiteVue> findVueById(long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Universite findByNomUniversite(String nomUniversite);
+
+    @Query("select u.idUniversite from Universite u where u.nomUniversite = ?1")
+    Optional<Long> findIdByNomUniversite(String nomUniversite);
     // Afficher la liste des universités qui ont des étudiants dont leurs noms contiennet
     // la chaine de caractère en paramètre et leurs dates de naissance entre deux dates
     // passées en paramètre
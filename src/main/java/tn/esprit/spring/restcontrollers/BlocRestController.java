@@ -1,8 +1,11 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.projections.BlocVue;
+import tn.esprit.spring.services.bloc.AffectationChambres;
 import tn.esprit.spring.services.bloc.BlocService;
 
 import java.util.List;
@@ -24,13 +27,19 @@ public class BlocRestController {
     }
 
     @GetMapping("/findAll")
-    List<Bloc> findAll() {
-        return service.findAll();
+    ResponseEntity<List<BlocVue>> findAll(@RequestParam(required = false) String curseur,
+                                          @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                          @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apres(curseur), t), t, BlocVue::idBloc);
     }
 
     @GetMapping("/findById")
-    Bloc findById(@RequestParam long id) {
-        return service.findById(id);
+    BlocVue findById(@RequestParam long id) {
+        return service.findVueById(id);
     }
 
     @DeleteMapping("/delete")
@@ -44,7 +53,7 @@ public class BlocRestController {
     }
 
     @PutMapping("/affecterChambresABloc")
-    Bloc affecterChambresABloc(@RequestBody List<Long> numChambre, @RequestParam String nomBloc) {
+    AffectationChambres affecterChambresABloc(@RequestBody List<Long> numChambre, @RequestParam String nomBloc) {
         return service.affecterChambresABloc(numChambre, nomBloc);
     }
     // ...............?nomFoyer=....&nomBloc=....
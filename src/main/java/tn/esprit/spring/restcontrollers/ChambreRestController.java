@@ -1,11 +1,18 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ChambreVue;
 import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.PlacesDisponiblesWriter;
+import tn.esprit.spring.services.export.NdjsonExporter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -20,13 +27,26 @@ public class ChambreRestController {
     }
 
     @GetMapping("findAll")
-    List<Chambre> findAll() {
-        return service.findAll();
+    ResponseEntity<List<ChambreVue>> findAll(@RequestParam(required = false) String curseur,
+                                             @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                             @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apres(curseur), t), t, ChambreVue::idChambre);
+    }
+
+    @GetMapping("export")
+    ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> service.exporter(out));
     }
 
     @GetMapping("findById")
-    Chambre findById(@RequestParam long id) {
-        return service.findById(id);
+    ChambreVue findById(@RequestParam long id) {
+        return service.findVueById(id);
     }
 
     @DeleteMapping("delete")
@@ -40,8 +60,8 @@ public class ChambreRestController {
     }
 
     @GetMapping("getChambresParNomBloc")
-    public List<Chambre> getChambresParNomBloc(@RequestParam String nomBloc) {
-        return service.getChambresParNomBloc(nomBloc);
+    public List<ChambreVue> getChambresParNomBloc(@RequestParam String nomBloc) {
+        return service.getVuesChambresParNomBloc(nomBloc);
     }
 
     @GetMapping("nbChambreParTypeEtBloc")
@@ -50,7 +70,22 @@ public class ChambreRestController {
     }
 
     @GetMapping("getChambresNonReserveParNomFoyerEtTypeChambre")
-    List<Chambre> getChambresNonReserveParNomFoyerEtTypeChambre(@RequestParam String nomFoyer,@RequestParam TypeChambre type){
-        return service.getChambresNonReserveParNomFoyerEtTypeChambre(nomFoyer,type);
+    List<ChambreVue> getChambresNonReserveParNomFoyerEtTypeChambre(@RequestParam String nomFoyer,@RequestParam TypeChambre type){
+        return service.getVuesChambresNonReserveParNomFoyerEtTypeChambre(nomFoyer,type);
+    }
+
+    // Rapport d'occupation de l'année en cours, écrit au fil de la lecture (format=json|csv)
+    @GetMapping("nbPlacesDisponibleParChambreAnneeEnCours")
+    ResponseEntity<StreamingResponseBody> nbPlacesDisponibleParChambreAnneeEnCours(
+            @RequestParam(defaultValue = "json") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> {
+            try (PlacesDisponiblesWriter writer = csv ? PlacesDisponiblesWriter.csv(out) : PlacesDisponiblesWriter.json(out)) {
+                service.nbPlacesDisponibleParChambreAnneeEnCours(writer);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
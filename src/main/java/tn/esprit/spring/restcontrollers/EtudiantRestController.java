@@ -1,9 +1,13 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.projections.EtudiantVue;
 import tn.esprit.spring.services.etudiant.EtudiantService;
+import tn.esprit.spring.services.export.NdjsonExporter;
 
 import java.util.List;
 
@@ -19,13 +23,27 @@ public class EtudiantRestController {
     }
 
     @GetMapping("findAll")
-    List<Etudiant> findAll() {
-        return service.findAll();
+    ResponseEntity<List<EtudiantVue>> findAll(@RequestParam(required = false) String curseur,
+                                              @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                              @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apres(curseur), t), t, EtudiantVue::idEtudiant);
+    }
+
+    // Tous les étudiants, un objet JSON par ligne
+    @GetMapping("export")
+    ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> service.exporter(out));
     }
 
     @GetMapping("findById")
-    Etudiant findById(@RequestParam long id) {
-        return service.findById(id);
+    EtudiantVue findById(@RequestParam long id) {
+        return service.findVueById(id);
     }
 
     @DeleteMapping("delete")
@@ -39,7 +57,7 @@ public class EtudiantRestController {
     }
 
     @GetMapping("selectJPQL")
-    List<Etudiant> selectJPQL(@RequestParam String nom){
-        return service.selectJPQL(nom);
+    List<EtudiantVue> selectJPQL(@RequestParam String nom){
+        return service.selectVues(nom);
     }
 }
@@ -1,9 +1,11 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tn.esprit.spring.dao.entities.Foyer;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.FoyerVue;
 import tn.esprit.spring.services.foyer.FoyerService;
 
 import java.util.List;
@@ -20,13 +22,19 @@ public class FoyerRestController {
     }
 
     @GetMapping("findAll")
-    public List<Foyer> findAll() {
-        return service.findAll();
+    public ResponseEntity<List<FoyerVue>> findAll(@RequestParam(required = false) String curseur,
+                                                  @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                                  @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apres(curseur), t), t, FoyerVue::idFoyer);
     }
 
     @GetMapping("findById")
-    public Foyer findById(@RequestParam long id) {
-        return service.findById(id);
+    public FoyerVue findById(@RequestParam long id) {
+        return service.findVueById(id);
     }
 
     @DeleteMapping("delete")
@@ -0,0 +1,67 @@
+package tn.esprit.spring.restcontrollers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pagination par clé (keyset) des endpoints findAll : une page contient les lignes dont
+ * l'identifiant suit le curseur, dans l'ordre de l'identifiant. Le curseur de la page
+ * suivante est renvoyé dans l'en-tête {@value #CURSEUR_SUIVANT} ; il est opaque pour le
+ * client (dernier identifiant de la page, encodé en Base64) et absent sur la dernière page.
+ */
+final class Pagination {
+    static final String CURSEUR_SUIVANT = "X-Curseur-Suivant";
+    static final String TAILLE_DEFAUT = "50";
+    static final int TAILLE_MAX = 500;
+
+    private Pagination() {
+    }
+
+    static int taille(int demandee) {
+        return Math.min(Math.max(1, demandee), TAILLE_MAX);
+    }
+
+    // Identifiant numérique après lequel commence la page (avant le premier sans curseur)
+    static long apres(String curseur) {
+        if (curseur == null || curseur.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(decoder(curseur));
+        } catch (NumberFormatException e) {
+            throw curseurInvalide();
+        }
+    }
+
+    static String apresTexte(String curseur) {
+        return curseur == null || curseur.isEmpty() ? "" : decoder(curseur);
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> contenu, int taille, Function<T, ?> cle) {
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok();
+        if (contenu.size() >= taille) {
+            String derniere = String.valueOf(cle.apply(contenu.get(contenu.size() - 1)));
+            reponse.header(CURSEUR_SUIVANT, Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(derniere.getBytes(StandardCharsets.UTF_8)));
+        }
+        return reponse.body(contenu);
+    }
+
+    private static String decoder(String curseur) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw curseurInvalide();
+        }
+    }
+
+    private static ResponseStatusException curseurInvalide() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Curseur de pagination invalide");
+    }
+}
@@ -1,9 +1,17 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.ReservationVue;
+import tn.esprit.spring.services.export.NdjsonExporter;
+import tn.esprit.spring.services.reservation.DemandeReservation;
 import tn.esprit.spring.services.reservation.ReservationService;
+import tn.esprit.spring.services.reservation.ResultatReservation;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,14 +27,27 @@ public class ReservationRestController {
     }
 
     @GetMapping("findAll")
-    List<Reservation> findAll() {
-        return service.findAll();
+    ResponseEntity<List<ReservationVue>> findAll(@RequestParam(required = false) String curseur,
+                                                 @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                                 @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apresTexte(curseur), t), t, ReservationVue::idReservation);
+    }
+
+    @GetMapping("export")
+    ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> service.exporter(out));
     }
 
     // ......... ?id=1
     @GetMapping("findById")
-    Reservation findById(@RequestParam String id) {
-        return service.findById(id);
+    ReservationVue findById(@RequestParam String id) {
+        return service.findVueById(id);
     }
 
     // ......../1
@@ -50,6 +71,17 @@ public class ReservationRestController {
         return service.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
     }
 
+    // [{"numChambre": 101, "cin": 12345678}, ...]
+    @PostMapping("ajouterReservationsEnMasse")
+    List<ResultatReservation> ajouterReservationsEnMasse(@RequestBody List<DemandeReservation> demandes) {
+        try {
+            return service.ajouterReservationsEnMasse(demandes);
+        } catch (IllegalArgumentException e) {
+            // Trop de demandes dans un seul appel
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("getReservationParAnneeUniversitaire")
     long getReservationParAnneeUniversitaire(@RequestParam LocalDate debutAnnee, @RequestParam LocalDate finAnnee) {
         return service.getReservationParAnneeUniversitaire(debutAnnee, finAnnee);
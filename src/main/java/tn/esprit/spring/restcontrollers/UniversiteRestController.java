@@ -1,8 +1,10 @@
 package tn.esprit.spring.restcontrollers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.UniversiteVue;
 import tn.esprit.spring.services.universite.UniversiteService;
 
 import java.util.List;
@@ -19,13 +21,19 @@ public class UniversiteRestController {
     }
 
     @GetMapping("findAll")
-    List<Universite> findAll() {
-        return service.findAll();
+    ResponseEntity<List<UniversiteVue>> findAll(@RequestParam(required = false) String curseur,
+                                                @RequestParam(defaultValue = Pagination.TAILLE_DEFAUT) int taille,
+                                                @RequestParam(defaultValue = "false") boolean nonPagine) {
+        if (nonPagine) {
+            return ResponseEntity.ok(service.findAllVues());
+        }
+        int t = Pagination.taille(taille);
+        return Pagination.page(service.findAll(Pagination.apres(curseur), t), t, UniversiteVue::idUniversite);
     }
 
     @GetMapping("findById")
-    Universite findById(@RequestParam long id) {
-        return service.findById(id);
+    UniversiteVue findById(@RequestParam long id) {
+        return service.findVueById(id);
     }
 
     @DeleteMapping("delete")
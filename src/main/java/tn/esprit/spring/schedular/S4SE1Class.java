@@ -12,11 +12,11 @@ public class S4SE1Class {
 
     @Scheduled(fixedDelay = 300000)
     public void fixedDelayMethod() {
-        log.info("Hello fixedDelay "+ LocalDateTime.now());
+        log.info("Hello fixedDelay {}", LocalDateTime.now());
     }
 
     @Scheduled(fixedRate = 300000)
     public void fixedRateMethod() {
-       log.error("Hello fixedRate "+ LocalDateTime.now());
+       log.error("Hello fixedRate {}", LocalDateTime.now());
     }
 }
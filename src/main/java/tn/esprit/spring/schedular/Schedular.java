@@ -14,8 +14,15 @@ public class Schedular {
     IChambreService iChambreService;
     IReservationService iReservationService;
 
+    // Digest des modifications de l'inventaire (seule planification de listeChambresParBloc)
     @Scheduled(fixedRate = 300000)
     void service1() {
         iChambreService.listeChambresParBloc();
     }
+
+    // Clôture de l'année universitaire (par défaut le 1er juillet à 2h)
+    @Scheduled(cron = "${foyer.reservation.rollover-cron:0 0 2 1 7 *}")
+    void service2() {
+        iReservationService.annulerReservations();
+    }
 }
@@ -0,0 +1,43 @@
+package tn.esprit.spring.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions différées à la fin de la transaction en cours, pour les structures en mémoire
+ * (registre d'occupation, compteurs, index, caches) qui ne doivent refléter que des écritures
+ * validées. Hors transaction, l'action est exécutée tout de suite.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    // Après le commit seulement : un rollback n'exécute pas l'action
+    public static void apresCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Après le commit ou le rollback : invalidations, qu'une lecture pendant la transaction a pu devancer
+    public static void apresFin(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package tn.esprit.spring.services.bloc;
+
+import tn.esprit.spring.dao.entities.Bloc;
+
+import java.util.List;
+
+// Résultat d'une affectation de chambres à un bloc : un numéro inconnu est signalé sans bloquer les autres
+public record AffectationChambres(Bloc bloc, int nbChambresAffectees, List<Long> numerosIntrouvables) {
+}
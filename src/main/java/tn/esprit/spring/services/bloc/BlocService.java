@@ -1,44 +1,72 @@
 package tn.esprit.spring.services.bloc;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.BlocVue;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
 import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Transactional(readOnly = true)
 @AllArgsConstructor
 public class BlocService implements IBlocService {
+    // Taille maximale d'une liste IN
+    private static final int TAILLE_IN = 1000;
+
     BlocRepository repo;
     ChambreRepository chambreRepository;
     BlocRepository blocRepository;
     FoyerRepository foyerRepository;
+    AvailabilityIndex availabilityIndex;
+    RoomTypeCounters roomTypeCounters;
+    RoomTypeDistribution roomTypeDistribution;
+    NaturalKeyCache cles;
 
     @Override
+    @Transactional
     public Bloc addOrUpdate2(Bloc b) { //Cascade
         List<Chambre> chambres = b.getChambres();
         for (Chambre c : chambres) {
             c.setBloc(b);
-            chambreRepository.save(c);
+            enregistrerChambre(c);
         }
+        cles.blocModifie(b.getIdBloc());
+        availabilityIndex.invalider();
+        roomTypeDistribution.invalider();
         return b;
     }
 
     @Override
+    @Transactional
     public Bloc addOrUpdate(Bloc b) {
         List<Chambre> chambres = b.getChambres();
         b = repo.save(b);
+        cles.blocModifie(b.getIdBloc());
         for (Chambre chambre : chambres) {
             chambre.setBloc(b);
-            chambreRepository.save(chambre);
+            enregistrerChambre(chambre);
         }
+        availabilityIndex.invalider();
+        roomTypeDistribution.invalider();
         return b;
     }
 
@@ -47,6 +75,21 @@ public class BlocService implements IBlocService {
         return repo.findAll();
     }
 
+    @Override
+    public List<BlocVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<BlocVue> findAll(long apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public BlocVue findVueById(long id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
     @Override
     public Bloc findById(long id) {
         Optional<Bloc> optionalBloc = repo.findById(id);
@@ -54,68 +97,124 @@ public class BlocService implements IBlocService {
     }
 
     @Override
+    @Transactional
     public void deleteById(long id) {
-        Optional<Bloc> optionalBloc = repo.findById(id);
+        Optional<Bloc> optionalBloc = repo.findAvecChambresByIdBloc(id);
         if (optionalBloc.isPresent()) {
             Bloc b = optionalBloc.get();
             chambreRepository.deleteAll(b.getChambres());
+            b.getChambres().forEach(c -> oublierChambre(c.getIdChambre()));
             repo.delete(b);
+            cles.blocModifie(b.getIdBloc());
+            availabilityIndex.invalider();
+            roomTypeDistribution.invalider();
         }
     }
 
     @Override
+    @Transactional
     public void delete(Bloc b) {
         chambreRepository.deleteAll(b.getChambres());
+        b.getChambres().forEach(c -> oublierChambre(c.getIdChambre()));
         repo.delete(b);
+        cles.blocModifie(b.getIdBloc());
+        availabilityIndex.invalider();
+        roomTypeDistribution.invalider();
     }
 
+    /**
+     * Rattache les chambres au bloc : une requête IN et un UPDATE par lot de {@value #TAILLE_IN} numéros.
+     * Un bloc inconnu ne modifie aucune chambre et renvoie un bloc null.
+     */
     @Override
-    public Bloc affecterChambresABloc(List<Long> numChambre, String nomBloc) {
-        //1
-        Bloc b = repo.findByNomBloc(nomBloc);
-        List<Chambre> chambres = new ArrayList<>();
-        for (Long nu : numChambre) {
-            Chambre chambre = chambreRepository.findByNumeroChambre(nu);
-            chambres.add(chambre);
+    @Transactional
+    public AffectationChambres affecterChambresABloc(List<Long> numChambre, String nomBloc) {
+        Bloc b = bloc(nomBloc);
+        if (b == null) {
+            return new AffectationChambres(null, 0, List.of());
         }
-        // Keyword (2ème méthode)
-        //2 Parent==>Chambre  Child==> Bloc
-        for (Chambre cha : chambres) {
-            //3 On affecte le child au parent
-            cha.setBloc(b);
-            //4 save du parent
-            chambreRepository.save(cha);
+        List<Long> numeros = numChambre.stream().filter(Objects::nonNull).distinct().toList();
+        Set<Long> trouves = new HashSet<>();
+        // Même horloge que @UpdateTimestamp, pour le digest des chambres modifiées
+        LocalDateTime maintenant = LocalDateTime.now();
+        int affectees = 0;
+        for (int debut = 0; debut < numeros.size(); debut += TAILLE_IN) {
+            List<Object[]> chambres = chambreRepository.findIdsParNumeros(
+                    numeros.subList(debut, Math.min(numeros.size(), debut + TAILLE_IN)));
+            if (chambres.isEmpty()) {
+                continue;
+            }
+            List<Long> ids = new ArrayList<>(chambres.size());
+            for (Object[] chambre : chambres) {
+                ids.add((Long) chambre[0]);
+                trouves.add((Long) chambre[1]);
+            }
+            affectees += chambreRepository.affecterABloc(b, maintenant, ids);
+            for (Object[] chambre : chambres) {
+                roomTypeCounters.enregistrer((Long) chambre[0], b.getIdBloc(), (TypeChambre) chambre[2]);
+            }
         }
-        return b;
+        availabilityIndex.invalider();
+        return new AffectationChambres(b, affectees, numeros.stream().filter(n -> !trouves.contains(n)).toList());
     }
 
     @Override
+    @Transactional
     public Bloc affecterBlocAFoyer(String nomBloc, String nomFoyer) {
-        Bloc b = blocRepository.findByNomBloc(nomBloc); //Parent
-        Foyer f = foyerRepository.findByNomFoyer(nomFoyer); //Child
+        Bloc b = bloc(nomBloc); //Parent
+        Foyer f = foyer(nomFoyer); //Child
         //On affecte le child au parent
         b.setFoyer(f);
-        return blocRepository.save(b);
+        Bloc bloc = blocRepository.save(b);
+        availabilityIndex.invalider();
+        return bloc;
     }
 
     @Override
+    @Transactional
     public Bloc ajouterBlocEtSesChambres(Bloc b) {
         // Activer l'option cascade au niveau parent
         for (Chambre c : b.getChambres()) {
             c.setBloc(b);
-            chambreRepository.save(c);
+            enregistrerChambre(c);
         }
+        cles.blocModifie(b.getIdBloc());
+        availabilityIndex.invalider();
+        roomTypeDistribution.invalider();
         return b;
     }
 
     @Override
+    @Transactional
     public Bloc ajouterBlocEtAffecterAFoyer(Bloc b, String nomFoyer) {
         // Foyer: child , Bloc: Parent
-        Foyer f= foyerRepository.findByNomFoyer(nomFoyer);
+        Foyer f = foyer(nomFoyer);
         b.setFoyer(f);
-        return blocRepository.save(b);
+        Bloc bloc = blocRepository.save(b);
+        cles.blocModifie(bloc.getIdBloc());
+        availabilityIndex.invalider();
+        return bloc;
+    }
+
+    private void enregistrerChambre(Chambre c) {
+        Chambre chambre = chambreRepository.save(c);
+        roomTypeCounters.enregistrer(chambre);
+        cles.chambreModifiee(chambre.getIdChambre());
     }
 
+    private void oublierChambre(Long idChambre) {
+        roomTypeCounters.retirer(idChambre);
+        cles.chambreModifiee(idChambre);
+    }
 
+    // Nom résolu en identifiant en mémoire, puis lecture par clé primaire
+    private Bloc bloc(String nomBloc) {
+        long id = cles.idBloc(nomBloc);
+        return id == NaturalKeyCache.INCONNU ? null : repo.findById(id).orElse(null);
+    }
 
+    private Foyer foyer(String nomFoyer) {
+        long id = cles.idFoyer(nomFoyer);
+        return id == NaturalKeyCache.INCONNU ? null : foyerRepository.findById(id).orElse(null);
+    }
 }
@@ -1,6 +1,7 @@
 package tn.esprit.spring.services.bloc;
 
 import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.projections.BlocVue;
 
 import java.util.List;
 
@@ -11,13 +12,19 @@ public interface IBlocService {
 
     List<Bloc> findAll();
 
+    List<BlocVue> findAllVues();
+
+    List<BlocVue> findAll(long apres, int taille);
+
+    BlocVue findVueById(long id);
+
     Bloc findById(long id);
 
     void deleteById(long id);
 
     void delete(Bloc b);
 
-    Bloc affecterChambresABloc(List<Long> numChambre, String nomBloc);
+    AffectationChambres affecterChambresABloc(List<Long> numChambre, String nomBloc);
 
     Bloc affecterBlocAFoyer(String nomBloc, String nomFoyer);
 
@@ -0,0 +1,127 @@
+package tn.esprit.spring.services.chambre;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index des chambres libres de l'année universitaire en cours, par (foyer, type de chambre).
+ * <p>
+ * L'index est construit depuis une seule requête d'emplacement et le registre
+ * d'occupation, puis tenu à jour chambre par chambre à chaque réservation ou annulation
+ * notifiée par {@link OccupancyLedger}. Un changement de structure (chambre, bloc ou
+ * foyer modifié) ou le passage à une nouvelle année universitaire provoque une
+ * reconstruction à la demande suivante.
+ */
+@Component
+@Slf4j
+public class AvailabilityIndex {
+    private static final int A_RECONSTRUIRE = -1;
+
+    private final ChambreRepository chambreRepository;
+    private final OccupancyLedger ledger;
+    private final Map<Long, Emplacement> emplacements = new ConcurrentHashMap<>();
+    private final Map<Emplacement, Set<Long>> libres = new ConcurrentHashMap<>();
+    // Année suivie par les notifications, puis année servie une fois la reconstruction terminée
+    private volatile int anneeIndexee = A_RECONSTRUIRE;
+    private volatile int anneeServie = A_RECONSTRUIRE;
+    // Incrémentée à chaque invalidation, pour détecter celles survenues pendant une reconstruction
+    private final AtomicLong generation = new AtomicLong();
+
+    record Emplacement(String nomFoyer, TypeChambre type) {
+    }
+
+    public AvailabilityIndex(ChambreRepository chambreRepository, OccupancyLedger ledger) {
+        this.chambreRepository = chambreRepository;
+        this.ledger = ledger;
+        ledger.addListener(this::occupationModifiee);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void initialiser() {
+        reconstruire();
+    }
+
+    // Identifiants des chambres libres, en temps proportionnel à la réponse
+    public Set<Long> chambresLibres(String nomFoyer, TypeChambre type) {
+        if (anneeServie != OccupancyLedger.anneeUniversitaire(LocalDate.now())) {
+            reconstruire();
+        }
+        Set<Long> ids = libres.get(new Emplacement(nomFoyer, type));
+        return ids == null ? Set.of() : Set.copyOf(ids);
+    }
+
+    // Chambre, bloc ou foyer modifié : l'emplacement des chambres n'est plus fiable
+    public void invalider() {
+        marquerAReconstruire();
+        // Une reconstruction pendant la transaction ne verrait pas encore ses écritures
+        TransactionCallbacks.apresFin(this::marquerAReconstruire);
+    }
+
+    private void marquerAReconstruire() {
+        generation.incrementAndGet();
+        anneeServie = A_RECONSTRUIRE;
+    }
+
+    synchronized void reconstruire() {
+        LocalDate aujourdhui = LocalDate.now();
+        int annee = OccupancyLedger.anneeUniversitaire(aujourdhui);
+        if (anneeServie == annee) {
+            return;
+        }
+        // Occupation de l'année lue en une requête groupée, pas chambre par chambre dans la boucle
+        ledger.chargerAnnee(annee);
+        while (anneeServie != annee) {
+            long generationLue = generation.get();
+            // Les notifications reçues pendant la reconstruction s'appliquent déjà à la nouvelle année
+            anneeIndexee = annee;
+            emplacements.clear();
+            libres.clear();
+            for (Object[] ligne : chambreRepository.findEmplacements()) {
+                long idChambre = (Long) ligne[0];
+                Emplacement emplacement = new Emplacement((String) ligne[2], (TypeChambre) ligne[1]);
+                emplacements.put(idChambre, emplacement);
+                mettreAJour(idChambre, emplacement, ledger.occupation(idChambre, aujourdhui));
+            }
+            // Une invalidation pendant la requête a pu rendre la lecture obsolète : on recommence
+            if (generation.get() == generationLue) {
+                anneeServie = annee;
+            }
+            log.info("Index de disponibilité reconstruit : {} chambres", emplacements.size());
+        }
+    }
+
+    private void occupationModifiee(long idChambre, int annee, int occupees) {
+        if (annee != anneeIndexee) {
+            return;
+        }
+        Emplacement emplacement = emplacements.get(idChambre);
+        if (emplacement != null) {
+            mettreAJour(idChambre, emplacement, occupees);
+        }
+    }
+
+    private void mettreAJour(long idChambre, Emplacement emplacement, int occupees) {
+        if (emplacement.type() == null || occupees >= emplacement.type().getCapacite()) {
+            Set<Long> ids = libres.get(emplacement);
+            if (ids != null) {
+                ids.remove(idChambre);
+            }
+        } else {
+            libres.computeIfAbsent(emplacement, e -> ConcurrentHashMap.newKeySet()).add(idChambre);
+        }
+    }
+}
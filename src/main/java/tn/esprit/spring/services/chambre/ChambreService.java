@@ -2,29 +2,54 @@ package tn.esprit.spring.services.chambre;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ChambreVue;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.export.NdjsonExporter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Transactional(readOnly = true)
 @AllArgsConstructor
 @Slf4j
 public class ChambreService implements IChambreService {
     private final ChambreRepository chambreRepository;
     ChambreRepository repo;
     BlocRepository blocRepository;
+    AvailabilityIndex availabilityIndex;
+    RoomTypeCounters roomTypeCounters;
+    RoomTypeDistribution roomTypeDistribution;
+    NdjsonExporter ndjsonExporter;
+    NaturalKeyCache cles;
+    // Début du dernier digest de l'inventaire
+    private final AtomicReference<LocalDateTime> dernierDigest = new AtomicReference<>();
 
     @Override
+    @Transactional
     public Chambre addOrUpdate(Chambre c) {
-        return repo.save(c);
+        Chambre chambre = repo.save(c);
+        roomTypeCounters.enregistrer(chambre);
+        cles.chambreModifiee(chambre.getIdChambre());
+        roomTypeDistribution.invalider();
+        availabilityIndex.invalider();
+        return chambre;
     }
 
     @Override
@@ -32,6 +57,26 @@ public class ChambreService implements IChambreService {
         return repo.findAll();
     }
 
+    @Override
+    public List<ChambreVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<ChambreVue> findAll(long apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public ChambreVue findVueById(long id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
+    @Override
+    public long exporter(OutputStream out) throws IOException {
+        return ndjsonExporter.exporter(repo.streamAll(), out);
+    }
+
     @Override
     public Chambre findById(long id) {
         Optional<Chambre> optionalChambre = repo.findById(id);
@@ -39,13 +84,23 @@ public class ChambreService implements IChambreService {
     }
 
     @Override
+    @Transactional
     public void deleteById(long id) {
         repo.deleteById(id);
+        roomTypeCounters.retirer(id);
+        cles.chambreModifiee(id);
+        roomTypeDistribution.invalider();
+        availabilityIndex.invalider();
     }
 
     @Override
+    @Transactional
     public void delete(Chambre c) {
         repo.delete(c);
+        roomTypeCounters.retirer(c.getIdChambre());
+        cles.chambreModifiee(c.getIdChambre());
+        roomTypeDistribution.invalider();
+        availabilityIndex.invalider();
     }
 
     @Override
@@ -55,31 +110,25 @@ public class ChambreService implements IChambreService {
 
     @Override
     public long nbChambreParTypeEtBloc(TypeChambre type, long idBloc) {
-        long compteur = 0;
-        List<Chambre> list = chambreRepository.findAll();
-        for (Chambre chambre : list) {
-            if (chambre.getBloc().getIdBloc() == idBloc
-                    && chambre.getTypeC().equals(type)) {
-                compteur++;
-            }
-        }
-        return compteur;
+        return roomTypeCounters.nombre(type, idBloc);
     }
     @Override
     public List<Chambre> getChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type) {
-        LocalDate now = LocalDate.now();
-        LocalDate dateDebutAU = (now.getMonthValue() <= 7)
-                ? LocalDate.of(Integer.parseInt("20" + (now.getYear() - 1)), 9, 15)
-                : LocalDate.of(Integer.parseInt("20" + now.getYear()), 9, 15);
-        LocalDate dateFinAU = (now.getMonthValue() <= 7)
-                ? LocalDate.of(Integer.parseInt("20" + now.getYear()), 6, 30)
-                : LocalDate.of(Integer.parseInt("20" + (now.getYear() + 1)), 6, 30);
-
-        return repo.findAll().stream()
-                .filter(c -> isMatchingFoyerAndType(c, nomFoyer, type))
-                .filter(c -> isChambreAvailable(c, dateDebutAU, dateFinAU))
-                .toList();  // <- replaced here
+        Set<Long> ids = availabilityIndex.chambresLibres(nomFoyer, type);
+        return ids.isEmpty() ? List.of() : repo.findAllById(ids);
     }
+
+    @Override
+    public List<ChambreVue> getVuesChambresParNomBloc(String nomBloc) {
+        return repo.findVuesParNomBloc(nomBloc);
+    }
+
+    @Override
+    public List<ChambreVue> getVuesChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type) {
+        Set<Long> ids = availabilityIndex.chambresLibres(nomFoyer, type);
+        return ids.isEmpty() ? List.of() : repo.findVuesParIds(ids);
+    }
+
      public boolean isMatchingFoyerAndType(Chambre c, String nomFoyer, TypeChambre type) {
         return c.getTypeC() == type &&
                 c.getBloc() != null &&
@@ -103,39 +152,66 @@ public class ChambreService implements IChambreService {
     }
 
 
-    @Scheduled(fixedRate = 300000)
+    /**
+     * Digest de l'inventaire, exécuté par {@code Schedular.service1} : seuls les blocs et les
+     * chambres modifiés depuis le passage précédent sont listés. Le premier passage ne donne
+     * que les totaux et sert de point de départ.
+     */
+    @Override
     public void listeChambresParBloc() {
-        for (Bloc b : blocRepository.findAll()) {
-            log.info("Bloc => " + b.getNomBloc() +
-                    " ayant une capacité " + b.getCapaciteBloc());
-            if (!b.getChambres().isEmpty()) {
-                log.info("La liste des chambres pour ce bloc: ");
-                for (Chambre c : b.getChambres()) {
-                    log.info("NumChambre: " + c.getNumeroChambre() +
-                            " type: " + c.getTypeC());
-                }
-            } else {
-                log.info("Pas de chambre disponible dans ce bloc");
+        LocalDateTime debut = LocalDateTime.now();
+        LocalDateTime depuis = dernierDigest.getAndSet(debut);
+        log.info("Inventaire : {} blocs, {} chambres", blocRepository.count(), repo.count());
+        if (depuis == null) {
+            return;
+        }
+        List<Object[]> blocs = blocRepository.findModifiesDepuis(depuis);
+        List<Object[]> chambres = repo.findModifieesDepuis(depuis);
+        if (blocs.isEmpty() && chambres.isEmpty()) {
+            log.info("Aucune modification depuis {}", depuis);
+            return;
+        }
+        for (Object[] b : blocs) {
+            log.info("Bloc modifié => {} ayant une capacité {}", b[0], b[1]);
+        }
+        Object blocCourant = null;
+        for (Object[] c : chambres) {
+            if (blocCourant == null || !blocCourant.equals(c[2])) {
+                blocCourant = c[2];
+                log.info("Chambres modifiées du bloc {} :", c[2] == null ? "(aucun)" : c[2]);
             }
-            log.info("********************");
+            log.info("NumChambre: {} type: {}", c[0], c[1]);
         }
     }
 
     @Override
     public void pourcentageChambreParTypeChambre() {
-        long totalChambre = repo.count();
-        double pSimple = (double) (repo.countChambreByTypeC(TypeChambre.SIMPLE) * 100) / totalChambre;
-        double pDouble = (double) (repo.countChambreByTypeC(TypeChambre.DOUBLE) * 100) / totalChambre;
-        double pTriple = (double) (repo.countChambreByTypeC(TypeChambre.TRIPLE) * 100) / totalChambre;
-        log.info("Nombre total des chambre: " + totalChambre);
-        log.info("Le pourcentage des chambres pour le type SIMPLE est égale à " + pSimple);
-        log.info("Le pourcentage des chambres pour le type DOUBLE est égale à " + pDouble);
-        log.info("Le pourcentage des chambres pour le type TRIPLE est égale à " + pTriple);
+        long totalChambre = roomTypeDistribution.total();
+        double pSimple = roomTypeDistribution.pourcentage(TypeChambre.SIMPLE);
+        double pDouble = roomTypeDistribution.pourcentage(TypeChambre.DOUBLE);
+        double pTriple = roomTypeDistribution.pourcentage(TypeChambre.TRIPLE);
+        log.info("Nombre total des chambre: {}", totalChambre);
+        log.info("Le pourcentage des chambres pour le type SIMPLE est égale à {}", pSimple);
+        log.info("Le pourcentage des chambres pour le type DOUBLE est égale à {}", pDouble);
+        log.info("Le pourcentage des chambres pour le type TRIPLE est égale à {}", pTriple);
 
     }
 
     @Override
     public void nbPlacesDisponibleParChambreAnneeEnCours() {
+        nbPlacesDisponibleParChambreAnneeEnCours(p -> {
+            if (p.complete()) {
+                log.info("La chambre {} {} est complete", p.typeC(), p.numeroChambre());
+            } else {
+                log.info("Le nombre de place disponible pour la chambre {} {} est {}", p.typeC(), p.numeroChambre(),
+                        p.placesDisponibles());
+            }
+        });
+    }
+
+    // Une seule requête groupée pour toutes les chambres, lue en flux
+    @Override
+    public void nbPlacesDisponibleParChambreAnneeEnCours(Consumer<PlacesDisponibles> rapport) {
         LocalDate dateDebutAU;
         LocalDate dateFinAU;
         int year = LocalDate.now().getYear() % 100;
@@ -147,28 +223,15 @@ public class ChambreService implements IChambreService {
             dateFinAU = LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
         }
         // Fin "récuperer l'année universitaire actuelle"
-        for (Chambre c : repo.findAll()) {
-            long nbReservation = repo.countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(c.getIdChambre()
-                    , true, dateDebutAU, dateFinAU);
-            int capacity;
-            switch (c.getTypeC()) {
-                case SIMPLE -> capacity = 1;
-                case DOUBLE -> capacity = 2;
-                case TRIPLE -> capacity = 3;
-                default -> capacity = 0;
-            }
-
-            if (nbReservation < capacity) {
-                log.info("Le nombre de place disponible pour la chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est " + (capacity - nbReservation));
-            } else {
-                log.info("La chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est complete");
-            }
+        try (Stream<Object[]> lignes = repo.countReservationsValidesParChambre(dateDebutAU, dateFinAU)) {
+            lignes.map(l -> PlacesDisponibles.of((Long) l[0], (Long) l[1], (TypeChambre) l[2], (Long) l[3]))
+                    .forEach(rapport);
         }
     }
 
     @Override
     public List<Chambre> getChambresParNomBlocJava(String nomBloc) {
-        Bloc b = blocRepository.findByNomBloc(nomBloc);
+        Bloc b = blocRepository.findAvecChambresByNomBloc(nomBloc);
         return b.getChambres();
     }
 
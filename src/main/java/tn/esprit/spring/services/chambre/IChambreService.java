@@ -2,21 +2,32 @@ package tn.esprit.spring.services.chambre;
 
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ChambreVue;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IChambreService {
     Chambre addOrUpdate(Chambre c);
     List<Chambre> findAll();
+    List<ChambreVue> findAllVues();
+    List<ChambreVue> findAll(long apres, int taille);
+    ChambreVue findVueById(long id);
+    long exporter(OutputStream out) throws IOException;
     Chambre findById(long id);
     void deleteById(long id);
     void delete(Chambre c);
     List<Chambre>  getChambresParNomBloc( String nomBloc);
     long  nbChambreParTypeEtBloc(TypeChambre type, long idBloc);
     List<Chambre>  getChambresNonReserveParNomFoyerEtTypeChambre( String nomFoyer,TypeChambre type);
+    List<ChambreVue> getVuesChambresParNomBloc(String nomBloc);
+    List<ChambreVue> getVuesChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type);
     void listeChambresParBloc();
     void pourcentageChambreParTypeChambre();
     void nbPlacesDisponibleParChambreAnneeEnCours();
+    void nbPlacesDisponibleParChambreAnneeEnCours(Consumer<PlacesDisponibles> rapport);
 
     List<Chambre> getChambresParNomBlocJava( String nomBloc);
     List<Chambre>getChambresParNomBlocKeyWord( String nomBloc);
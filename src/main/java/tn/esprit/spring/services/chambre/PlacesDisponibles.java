@@ -0,0 +1,22 @@
+package tn.esprit.spring.services.chambre;
+
+import tn.esprit.spring.dao.entities.TypeChambre;
+
+// Une ligne du rapport d'occupation de l'année universitaire en cours
+public record PlacesDisponibles(long idChambre,
+                                long numeroChambre,
+                                TypeChambre typeC,
+                                int capacite,
+                                long reservationsValides,
+                                long placesDisponibles) {
+
+    public static PlacesDisponibles of(long idChambre, long numeroChambre, TypeChambre typeC, long reservationsValides) {
+        int capacite = typeC == null ? 0 : typeC.getCapacite();
+        return new PlacesDisponibles(idChambre, numeroChambre, typeC, capacite, reservationsValides,
+                Math.max(0, capacite - reservationsValides));
+    }
+
+    public boolean complete() {
+        return placesDisponibles == 0;
+    }
+}
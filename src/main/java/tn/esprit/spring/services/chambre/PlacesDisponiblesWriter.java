@@ -0,0 +1,61 @@
+package tn.esprit.spring.services.chambre;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Ecrit le rapport d'occupation ligne par ligne dans la réponse HTTP, en JSON (tableau)
+ * ou en CSV, sans garder le rapport complet en mémoire.
+ */
+public abstract class PlacesDisponiblesWriter implements Consumer<PlacesDisponibles>, Closeable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static PlacesDisponiblesWriter json(OutputStream out) throws IOException {
+        JsonGenerator generator = MAPPER.getFactory().createGenerator(out);
+        generator.writeStartArray();
+        return new PlacesDisponiblesWriter() {
+            @Override
+            void ecrire(PlacesDisponibles ligne) throws IOException {
+                generator.writeObject(ligne);
+            }
+
+            @Override
+            public void close() throws IOException {
+                generator.writeEndArray();
+                generator.close();
+            }
+        };
+    }
+
+    public static PlacesDisponiblesWriter csv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("idChambre,numeroChambre,typeC,capacite,reservationsValides,placesDisponibles\n");
+        return new PlacesDisponiblesWriter() {
+            @Override
+            void ecrire(PlacesDisponibles ligne) throws IOException {
+                writer.write(ligne.idChambre() + "," + ligne.numeroChambre() + "," + ligne.typeC() + ","
+                        + ligne.capacite() + "," + ligne.reservationsValides() + "," + ligne.placesDisponibles() + "\n");
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    abstract void ecrire(PlacesDisponibles ligne) throws IOException;
+
+    @Override
+    public void accept(PlacesDisponibles ligne) {
+        try {
+            ecrire(ligne);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
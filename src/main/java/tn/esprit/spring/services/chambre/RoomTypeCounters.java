@@ -0,0 +1,148 @@
+package tn.esprit.spring.services.chambre;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nombre de chambres par bloc et par type, tenu à jour en mémoire.
+ * <p>
+ * Les compteurs sont chargés au démarrage puis modifiés à chaque écriture de chambre
+ * faite par {@link ChambreService} et par le service des blocs : une chambre qui change
+ * de bloc ou de type passe d'un compteur à l'autre, une fois la transaction validée.
+ * Une réconciliation périodique
+ * compare les compteurs à un comptage groupé en base et les corrige en cas d'écart.
+ */
+@Component
+@Slf4j
+public class RoomTypeCounters {
+    private final ChambreRepository chambreRepository;
+    // Remplacés d'un bloc au rechargement : une lecture ne voit jamais de compteurs à moitié chargés
+    private volatile Map<Long, AtomicLong> compteurs = new ConcurrentHashMap<>();
+    // Compteur actuel de chaque chambre rattachée à un bloc
+    private volatile Map<Long, Long> placements = new ConcurrentHashMap<>();
+    private volatile boolean charge;
+
+    public RoomTypeCounters(ChambreRepository chambreRepository) {
+        this.chambreRepository = chambreRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        charger();
+        log.info("Compteurs de chambres par bloc initialisés : {} chambres", placements.size());
+    }
+
+    public long nombre(TypeChambre type, long idBloc) {
+        if (!charge) {
+            return chambreRepository.select(type, idBloc);
+        }
+        AtomicLong compteur = compteurs.get(cle(idBloc, type));
+        return compteur == null ? 0 : compteur.get();
+    }
+
+    // Chambre enregistrée : nouvelle chambre, changement de bloc ou de type
+    public void enregistrer(Chambre chambre) {
+        if (!charge || chambre == null || chambre.getIdChambre() == null) {
+            return;
+        }
+        enregistrer(chambre.getIdChambre(), chambre.getBloc() == null ? null : chambre.getBloc().getIdBloc(),
+                chambre.getTypeC());
+    }
+
+    // Même mise à jour sans entité, pour les écritures faites par UPDATE groupé
+    public void enregistrer(long idChambre, Long idBloc, TypeChambre type) {
+        if (!charge) {
+            return;
+        }
+        Long nouvelle = idBloc == null || type == null ? null : cle(idBloc, type);
+        // Les compteurs ne suivent que les écritures validées : un rollback les laisse intacts
+        TransactionCallbacks.apresCommit(() -> {
+            Map<Long, AtomicLong> courants = compteurs;
+            placements.compute(idChambre, (id, ancienne) -> {
+                if (!Objects.equals(ancienne, nouvelle)) {
+                    deplacer(courants, ancienne, -1);
+                    deplacer(courants, nouvelle, 1);
+                }
+                return nouvelle;
+            });
+        });
+    }
+
+    public void retirer(Long idChambre) {
+        if (charge && idChambre != null) {
+            TransactionCallbacks.apresCommit(() -> {
+                Map<Long, AtomicLong> courants = compteurs;
+                placements.computeIfPresent(idChambre, (id, ancienne) -> {
+                    deplacer(courants, ancienne, -1);
+                    return null;
+                });
+            });
+        }
+    }
+
+    /**
+     * Compare les compteurs au comptage groupé en base et les recharge en cas d'écart.
+     *
+     * @return le nombre de compteurs qui différaient de la base
+     */
+    @Scheduled(cron = "${foyer.chambre.reconciliation-cron:0 30 3 * * *}")
+    public int reconcilier() {
+        Map<Long, Long> attendus = new HashMap<>();
+        for (Object[] ligne : chambreRepository.countChambresParBlocEtType()) {
+            attendus.put(cle((Long) ligne[0], (TypeChambre) ligne[1]), (Long) ligne[2]);
+        }
+        int ecarts = 0;
+        for (Map.Entry<Long, Long> attendu : attendus.entrySet()) {
+            AtomicLong compteur = compteurs.get(attendu.getKey());
+            if (compteur == null || compteur.get() != attendu.getValue()) {
+                ecarts++;
+            }
+        }
+        for (Map.Entry<Long, AtomicLong> compteur : compteurs.entrySet()) {
+            if (compteur.getValue().get() != 0 && !attendus.containsKey(compteur.getKey())) {
+                ecarts++;
+            }
+        }
+        if (ecarts > 0 || !charge) {
+            log.warn("Compteurs de chambres par bloc : {} écart(s) avec la base, rechargement", ecarts);
+            charger();
+        }
+        return ecarts;
+    }
+
+    private synchronized void charger() {
+        Map<Long, Long> lus = new ConcurrentHashMap<>();
+        Map<Long, AtomicLong> comptes = new ConcurrentHashMap<>();
+        for (Object[] ligne : chambreRepository.findPlacements()) {
+            long cle = cle((Long) ligne[1], (TypeChambre) ligne[2]);
+            lus.put((Long) ligne[0], cle);
+            deplacer(comptes, cle, 1);
+        }
+        compteurs = comptes;
+        placements = lus;
+        charge = true;
+    }
+
+    private static void deplacer(Map<Long, AtomicLong> compteurs, Long cle, int delta) {
+        if (cle != null) {
+            compteurs.computeIfAbsent(cle, k -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private static long cle(long idBloc, TypeChambre type) {
+        return (idBloc << 2) | type.ordinal();
+    }
+}
@@ -0,0 +1,86 @@
+package tn.esprit.spring.services.chambre;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Répartition des chambres par type, calculée par un seul GROUP BY et gardée en cache.
+ * <p>
+ * Publiée sur {@code /actuator/prometheus} sous {@code foyer.chambres} et
+ * {@code foyer.chambres.pourcentage} (tag {@code type}). Une écriture de chambre
+ * invalide le cache : la répartition est recalculée à la lecture suivante, une seule
+ * fois quel que soit le nombre d'écritures entre deux lectures.
+ */
+@Component
+public class RoomTypeDistribution {
+    private final ChambreRepository chambreRepository;
+    // Incrémentée à chaque invalidation : une répartition lue avant n'est plus servie
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Cliche cliche;
+
+    private record Cliche(long generation, Map<TypeChambre, Long> repartition) {
+    }
+
+    public RoomTypeDistribution(ChambreRepository chambreRepository, MeterRegistry registry) {
+        this.chambreRepository = chambreRepository;
+        for (TypeChambre type : TypeChambre.values()) {
+            Gauge.builder("foyer.chambres", this, d -> d.nombre(type))
+                    .description("Nombre de chambres par type")
+                    .tag("type", type.name())
+                    .register(registry);
+            Gauge.builder("foyer.chambres.pourcentage", this, d -> d.pourcentage(type))
+                    .description("Pourcentage des chambres par type")
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+    }
+
+    public long nombre(TypeChambre type) {
+        return repartition().get(type);
+    }
+
+    public long total() {
+        return repartition().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double pourcentage(TypeChambre type) {
+        Map<TypeChambre, Long> courante = repartition();
+        long total = courante.values().stream().mapToLong(Long::longValue).sum();
+        return total == 0 ? 0 : (double) (courante.get(type) * 100) / total;
+    }
+
+    // Chambre ajoutée, modifiée ou supprimée
+    public void invalider() {
+        generation.incrementAndGet();
+        // Dans une transaction, une lecture avant le commit remettrait l'ancienne répartition en cache
+        TransactionCallbacks.apresFin(generation::incrementAndGet);
+    }
+
+    private Map<TypeChambre, Long> repartition() {
+        // Lue avant la requête : une invalidation pendant la requête rend la répartition publiée obsolète
+        long lue = generation.get();
+        Cliche courant = cliche;
+        if (courant != null && courant.generation() == lue) {
+            return courant.repartition();
+        }
+        Map<TypeChambre, Long> courante = new EnumMap<>(TypeChambre.class);
+        for (TypeChambre type : TypeChambre.values()) {
+            courante.put(type, 0L);
+        }
+        for (Object[] ligne : chambreRepository.countChambresParType()) {
+            if (ligne[0] != null) {
+                courante.put((TypeChambre) ligne[0], (Long) ligne[1]);
+            }
+        }
+        cliche = new Cliche(lue, courante);
+        return courante;
+    }
+}
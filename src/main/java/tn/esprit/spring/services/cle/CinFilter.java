@@ -0,0 +1,57 @@
+package tn.esprit.spring.services.cle;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom des CIN connus : une réponse négative est sûre, une réponse positive
+ * peut être un faux positif (environ 1 % à la capacité prévue).
+ */
+final class CinFilter {
+    // 10 bits par CIN et 7 fonctions de hachage : ~1 % de faux positifs
+    private static final int BITS_PAR_CLE = 10;
+    private static final int NB_HACHAGES = 7;
+
+    private final AtomicLongArray bits;
+    private final long nbBits;
+
+    CinFilter(long capacite) {
+        long mots = Math.max(16, (Math.max(1, capacite) * BITS_PAR_CLE + 63) / 64);
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, mots));
+        this.nbBits = (long) bits.length() * 64;
+    }
+
+    void ajouter(long cin) {
+        long h = melanger(cin);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= NB_HACHAGES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % nbBits;
+            int mot = (int) (bit >>> 6);
+            long masque = 1L << bit;
+            long courant;
+            do {
+                courant = bits.get(mot);
+            } while ((courant & masque) == 0 && !bits.compareAndSet(mot, courant, courant | masque));
+        }
+    }
+
+    boolean peutContenir(long cin) {
+        long h = melanger(cin);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= NB_HACHAGES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % nbBits;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Finaliseur de SplitMix64 : des CIN consécutifs donnent des bits sans corrélation
+    private static long melanger(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
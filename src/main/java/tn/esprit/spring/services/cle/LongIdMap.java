@@ -0,0 +1,166 @@
+package tn.esprit.spring.services.cle;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Table de hachage long → long en adressage ouvert (sondage linéaire), sans objet par entrée.
+ * <p>
+ * Les lectures sont optimistes et ne prennent le verrou qu'en cas d'écriture concurrente.
+ * {@link Long#MIN_VALUE} marque une case vide : cette clé n'est jamais mémorisée.
+ */
+final class LongIdMap {
+    static final long ABSENT = -1L;
+    private static final long VIDE = Long.MIN_VALUE;
+    private static final int CAPACITE_INITIALE = 64;
+
+    private final StampedLock verrou = new StampedLock();
+    // Clés aux indices pairs, valeurs aux indices impairs
+    private long[] cases = nouvellesCases(CAPACITE_INITIALE);
+    private int taille;
+
+    long get(long cle) {
+        if (cle == VIDE) {
+            return ABSENT;
+        }
+        long jeton = verrou.tryOptimisticRead();
+        long valeur = chercher(cases, cle);
+        if (verrou.validate(jeton)) {
+            return valeur;
+        }
+        jeton = verrou.readLock();
+        try {
+            return chercher(cases, cle);
+        } finally {
+            verrou.unlockRead(jeton);
+        }
+    }
+
+    void put(long cle, long valeur) {
+        if (cle == VIDE) {
+            return;
+        }
+        long jeton = verrou.writeLock();
+        try {
+            if ((taille + 1) * 4L > (cases.length / 2) * 3L) {
+                agrandir();
+            }
+            int i = indice(cle, cases.length);
+            while (cases[i] != VIDE && cases[i] != cle) {
+                i = (i + 2) & (cases.length - 1);
+            }
+            if (cases[i] == VIDE) {
+                taille++;
+            }
+            cases[i + 1] = valeur;
+            cases[i] = cle;
+        } finally {
+            verrou.unlockWrite(jeton);
+        }
+    }
+
+    /**
+     * @return la valeur retirée, ou {@link #ABSENT}
+     */
+    long remove(long cle) {
+        if (cle == VIDE) {
+            return ABSENT;
+        }
+        long jeton = verrou.writeLock();
+        try {
+            int masque = cases.length - 1;
+            int i = indice(cle, cases.length);
+            while (cases[i] != cle) {
+                if (cases[i] == VIDE) {
+                    return ABSENT;
+                }
+                i = (i + 2) & masque;
+            }
+            long valeur = cases[i + 1];
+            // Suppression par décalage arrière : aucune pierre tombale dans la table
+            int trou = i;
+            for (int j = (i + 2) & masque; cases[j] != VIDE; j = (j + 2) & masque) {
+                int ideal = indice(cases[j], cases.length);
+                if (((j - ideal) & masque) >= ((j - trou) & masque)) {
+                    cases[trou] = cases[j];
+                    cases[trou + 1] = cases[j + 1];
+                    trou = j;
+                }
+            }
+            cases[trou] = VIDE;
+            taille--;
+            return valeur;
+        } finally {
+            verrou.unlockWrite(jeton);
+        }
+    }
+
+    void clear() {
+        long jeton = verrou.writeLock();
+        try {
+            cases = nouvellesCases(CAPACITE_INITIALE);
+            taille = 0;
+        } finally {
+            verrou.unlockWrite(jeton);
+        }
+    }
+
+    int size() {
+        long jeton = verrou.tryOptimisticRead();
+        int n = taille;
+        return verrou.validate(jeton) ? n : lireTailleSousVerrou();
+    }
+
+    private int lireTailleSousVerrou() {
+        long jeton = verrou.readLock();
+        try {
+            return taille;
+        } finally {
+            verrou.unlockRead(jeton);
+        }
+    }
+
+    private static long chercher(long[] cases, long cle) {
+        int masque = cases.length - 1;
+        // Borné par la longueur : une lecture optimiste peut voir la table en cours de modification
+        for (int i = indice(cle, cases.length), n = 0; n < cases.length / 2; i = (i + 2) & masque, n++) {
+            long k = cases[i];
+            if (k == cle) {
+                return cases[i + 1];
+            }
+            if (k == VIDE) {
+                return ABSENT;
+            }
+        }
+        return ABSENT;
+    }
+
+    private void agrandir() {
+        long[] anciennes = cases;
+        long[] nouvelles = nouvellesCases(anciennes.length);
+        for (int i = 0; i < anciennes.length; i += 2) {
+            if (anciennes[i] != VIDE) {
+                int j = indice(anciennes[i], nouvelles.length);
+                while (nouvelles[j] != VIDE) {
+                    j = (j + 2) & (nouvelles.length - 1);
+                }
+                nouvelles[j] = anciennes[i];
+                nouvelles[j + 1] = anciennes[i + 1];
+            }
+        }
+        cases = nouvelles;
+    }
+
+    // Indice pair de la case idéale d'une clé
+    private static int indice(long cle, int longueur) {
+        long h = cle * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (longueur - 2);
+    }
+
+    private static long[] nouvellesCases(int nbCases) {
+        long[] cases = new long[nbCases * 2];
+        for (int i = 0; i < cases.length; i += 2) {
+            cases[i] = VIDE;
+        }
+        return cases;
+    }
+}
@@ -0,0 +1,332 @@
+package tn.esprit.spring.services.cle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Résolution des clés métier (numéro de chambre, CIN, noms de bloc, de foyer et
+ * d'université) en identifiants, gardée en mémoire.
+ * <p>
+ * Les clés numériques sont rangées dans des tables long → long sans objet par entrée.
+ * Un filtre de Bloom des CIN, chargé au démarrage puis chaque nuit, écarte les CIN
+ * inconnus sans requête. Les services oublient une entrée à chaque écriture de l'entité,
+ * puis une seconde fois à la fin de la transaction. Les métriques
+ * {@code foyer.cles.resolutions}, {@code foyer.cles.taille} et {@code foyer.cles.taux.succes}
+ * sont publiées par type de clé (tag {@code cle}).
+ */
+@Component
+@Slf4j
+public class NaturalKeyCache {
+    // Réponse d'une résolution pour une clé absente de la base
+    public static final long INCONNU = -1L;
+
+    private final EtudiantRepository etudiantRepository;
+    private final Numerique chambres;
+    private final Numerique etudiants;
+    private final Nommee blocs;
+    private final Nommee foyers;
+    private final Nommee universites;
+
+    // Null tant que le filtre n'est pas chargé : toutes les résolutions vont alors en base
+    private volatile CinFilter cins;
+    // CIN enregistrés pendant un rechargement, ajoutés au nouveau filtre avant qu'il ne serve
+    private Set<Long> cinsPendantChargement;
+
+    public NaturalKeyCache(ChambreRepository chambreRepository,
+                           EtudiantRepository etudiantRepository,
+                           BlocRepository blocRepository,
+                           FoyerRepository foyerRepository,
+                           UniversiteRepository universiteRepository,
+                           MeterRegistry registry,
+                           @Value("${foyer.cles.max-entrees:1000000}") int maxEntrees) {
+        this.etudiantRepository = etudiantRepository;
+        this.chambres = new Numerique("chambre", chambreRepository::findIdByNumeroChambre, maxEntrees, registry);
+        this.etudiants = new Numerique("etudiant", etudiantRepository::findIdByCin, maxEntrees, registry);
+        this.blocs = new Nommee("bloc", blocRepository::findIdByNomBloc, maxEntrees, registry);
+        this.foyers = new Nommee("foyer", foyerRepository::findIdByNomFoyer, maxEntrees, registry);
+        this.universites = new Nommee("universite", universiteRepository::findIdByNomUniversite, maxEntrees, registry);
+        etudiants.rejets = etudiants.compteur(registry, "rejet");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        chargerCins();
+    }
+
+    @Scheduled(cron = "${foyer.cles.cin-filter-cron:0 45 3 * * *}")
+    public void chargerCins() {
+        synchronized (this) {
+            cinsPendantChargement = new HashSet<>();
+        }
+        List<Long> lus = etudiantRepository.findAllCins();
+        CinFilter filtre = new CinFilter(Math.max(1024, lus.size() * 2L));
+        for (Long cin : lus) {
+            filtre.ajouter(cin);
+        }
+        synchronized (this) {
+            cinsPendantChargement.forEach(filtre::ajouter);
+            cinsPendantChargement = null;
+            cins = filtre;
+        }
+        log.info("Filtre des CIN chargé : {} étudiants", lus.size());
+    }
+
+    /**
+     * @return l'identifiant de la chambre, ou {@link #INCONNU}
+     */
+    public long idChambre(long numeroChambre) {
+        return chambres.resoudre(numeroChambre);
+    }
+
+    /**
+     * @return l'identifiant de l'étudiant, ou {@link #INCONNU} (sans requête si le filtre l'écarte)
+     */
+    public long idEtudiant(long cin) {
+        CinFilter filtre = cins;
+        if (filtre != null && !filtre.peutContenir(cin)) {
+            etudiants.rejets.increment();
+            return INCONNU;
+        }
+        return etudiants.resoudre(cin);
+    }
+
+    public long idBloc(String nomBloc) {
+        return blocs.resoudre(nomBloc);
+    }
+
+    public long idFoyer(String nomFoyer) {
+        return foyers.resoudre(nomFoyer);
+    }
+
+    public long idUniversite(String nomUniversite) {
+        return universites.resoudre(nomUniversite);
+    }
+
+    public void chambreModifiee(Long idChambre) {
+        chambres.oublier(idChambre);
+    }
+
+    // Le CIN entre dans le filtre tout de suite, et de nouveau après le commit pour un rechargement concurrent
+    public void etudiantModifie(Etudiant etudiant) {
+        if (etudiant == null) {
+            return;
+        }
+        long cin = etudiant.getCin();
+        ajouterCin(cin);
+        TransactionCallbacks.apresCommit(() -> ajouterCin(cin));
+        etudiants.oublier(etudiant.getIdEtudiant());
+    }
+
+    public void etudiantSupprime(Long idEtudiant) {
+        etudiants.oublier(idEtudiant);
+    }
+
+    public void blocModifie(Long idBloc) {
+        blocs.oublier(idBloc);
+    }
+
+    public void foyerModifie(Long idFoyer) {
+        foyers.oublier(idFoyer);
+    }
+
+    public void universiteModifiee(Long idUniversite) {
+        universites.oublier(idUniversite);
+    }
+
+    private synchronized void ajouterCin(long cin) {
+        if (cins != null) {
+            cins.ajouter(cin);
+        }
+        if (cinsPendantChargement != null) {
+            cinsPendantChargement.add(cin);
+        }
+    }
+
+    /**
+     * Une table clé → identifiant et ses compteurs. Une résolution lue en base n'est
+     * mémorisée que si aucune entrée n'a été oubliée pendant la requête : une lecture
+     * antérieure à une écriture ne peut pas remettre l'ancienne valeur en mémoire.
+     */
+    private abstract static class Resolution {
+        final String nom;
+        final int maxEntrees;
+        final Counter succes;
+        final Counter echecs;
+        final AtomicLong generation = new AtomicLong();
+        // Clés écartées sans requête ni table (filtre des CIN)
+        Counter rejets;
+
+        Resolution(String nom, int maxEntrees, MeterRegistry registry) {
+            this.nom = nom;
+            this.maxEntrees = Math.max(1, maxEntrees);
+            this.succes = compteur(registry, "succes");
+            this.echecs = compteur(registry, "echec");
+            Gauge.builder("foyer.cles.taille", this, Resolution::taille)
+                    .description("Clés métier résolues gardées en mémoire")
+                    .tag("cle", nom)
+                    .register(registry);
+            Gauge.builder("foyer.cles.taux.succes", this, Resolution::tauxSucces)
+                    .description("Part des résolutions servies sans requête")
+                    .tag("cle", nom)
+                    .register(registry);
+        }
+
+        Counter compteur(MeterRegistry registry, String resultat) {
+            return Counter.builder("foyer.cles.resolutions")
+                    .description("Résolutions de clés métier en identifiants")
+                    .tag("cle", nom)
+                    .tag("resultat", resultat)
+                    .register(registry);
+        }
+
+        void oublier(Long id) {
+            if (id == null) {
+                return;
+            }
+            long idOublie = id;
+            retirer(idOublie);
+            generation.incrementAndGet();
+            TransactionCallbacks.apresFin(() -> {
+                retirer(idOublie);
+                generation.incrementAndGet();
+            });
+        }
+
+        abstract void retirer(long id);
+
+        abstract int taille();
+
+        private double tauxSucces() {
+            double sansRequete = succes.count() + (rejets == null ? 0 : rejets.count());
+            double total = sansRequete + echecs.count();
+            return total == 0 ? 0 : sansRequete / total;
+        }
+    }
+
+    private static final class Numerique extends Resolution {
+        private final LongIdMap ids = new LongIdMap();
+        private final LongIdMap cles = new LongIdMap();
+        private final LongFunction<Optional<Long>> requete;
+
+        Numerique(String nom, LongFunction<Optional<Long>> requete, int maxEntrees, MeterRegistry registry) {
+            super(nom, maxEntrees, registry);
+            this.requete = requete;
+        }
+
+        long resoudre(long cle) {
+            long id = ids.get(cle);
+            if (id != LongIdMap.ABSENT) {
+                succes.increment();
+                return id;
+            }
+            echecs.increment();
+            long avant = generation.get();
+            Optional<Long> lu = requete.apply(cle);
+            if (lu.isEmpty()) {
+                return INCONNU;
+            }
+            id = lu.get();
+            synchronized (this) {
+                // ABSENT sert de réponse « pas d'entrée » de la table inverse : cette clé n'est pas mémorisée
+                if (generation.get() == avant && cle != LongIdMap.ABSENT) {
+                    if (ids.size() >= maxEntrees) {
+                        ids.clear();
+                        cles.clear();
+                    }
+                    ids.put(cle, id);
+                    cles.put(id, cle);
+                }
+            }
+            return id;
+        }
+
+        @Override
+        synchronized void retirer(long id) {
+            long cle = cles.remove(id);
+            if (cle != LongIdMap.ABSENT) {
+                ids.remove(cle);
+            }
+        }
+
+        @Override
+        int taille() {
+            return ids.size();
+        }
+    }
+
+    private static final class Nommee extends Resolution {
+        private final Map<String, Long> ids = new ConcurrentHashMap<>();
+        private final Map<Long, String> noms = new ConcurrentHashMap<>();
+        private final Function<String, Optional<Long>> requete;
+
+        Nommee(String nom, Function<String, Optional<Long>> requete, int maxEntrees, MeterRegistry registry) {
+            super(nom, maxEntrees, registry);
+            this.requete = requete;
+        }
+
+        long resoudre(String cle) {
+            if (cle == null) {
+                return INCONNU;
+            }
+            Long id = ids.get(cle);
+            if (id != null) {
+                succes.increment();
+                return id;
+            }
+            echecs.increment();
+            long avant = generation.get();
+            Optional<Long> lu = requete.apply(cle);
+            if (lu.isEmpty()) {
+                return INCONNU;
+            }
+            synchronized (this) {
+                if (generation.get() == avant) {
+                    if (ids.size() >= maxEntrees) {
+                        ids.clear();
+                        noms.clear();
+                    }
+                    ids.put(cle, lu.get());
+                    noms.put(lu.get(), cle);
+                }
+            }
+            return lu.get();
+        }
+
+        @Override
+        synchronized void retirer(long id) {
+            String cle = noms.remove(id);
+            if (cle != null) {
+                ids.remove(cle);
+            }
+        }
+
+        @Override
+        int taille() {
+            return ids.size();
+        }
+    }
+}
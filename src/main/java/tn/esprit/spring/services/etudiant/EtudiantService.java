@@ -1,24 +1,37 @@
 package tn.esprit.spring.services.etudiant;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.dao.entities.Etudiant;
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.EtudiantVue;
 import tn.esprit.spring.dao.repositories.EtudiantRepository;
 import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.export.NdjsonExporter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 @AllArgsConstructor
 public class EtudiantService implements IEtudiantService {
     EtudiantRepository repo;
     ReservationRepository reservationRepository;
+    NdjsonExporter ndjsonExporter;
+    NaturalKeyCache cles;
 
     @Override
+    @Transactional
     public Etudiant addOrUpdate(Etudiant e) {
-        return repo.save(e);
+        Etudiant etudiant = repo.save(e);
+        cles.etudiantModifie(etudiant);
+        return etudiant;
     }
 
     @Override
@@ -26,6 +39,26 @@ public class EtudiantService implements IEtudiantService {
         return repo.findAll();
     }
 
+    @Override
+    public List<EtudiantVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<EtudiantVue> findAll(long apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public EtudiantVue findVueById(long id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
+    @Override
+    public long exporter(OutputStream out) throws IOException {
+        return ndjsonExporter.exporter(repo.streamAll(), out);
+    }
+
     @Override
     public Etudiant findById(long id) {
         Optional<Etudiant> optionalEtudiant = repo.findById(id);
@@ -33,13 +66,17 @@ public class EtudiantService implements IEtudiantService {
     }
 
     @Override
+    @Transactional
     public void deleteById(long id) {
         repo.deleteById(id);
+        cles.etudiantSupprime(id);
     }
 
     @Override
+    @Transactional
     public void delete(Etudiant e) {
         repo.delete(e);
+        cles.etudiantSupprime(e.getIdEtudiant());
     }
 
     @Override
@@ -48,6 +85,12 @@ public class EtudiantService implements IEtudiantService {
     }
 
     @Override
+    public List<EtudiantVue> selectVues(String nom) {
+        return repo.findVuesParNom(nom);
+    }
+
+    @Override
+    @Transactional
     public void affecterReservationAEtudiant(String idR, String nomE, String prenomE) {
         Optional<Reservation> optionalReservation = reservationRepository.findById(idR);
         Reservation res= optionalReservation.orElse(null);
@@ -56,6 +99,7 @@ public class EtudiantService implements IEtudiantService {
         repo.save(et);
     }
     @Override
+    @Transactional
     public void desaffecterReservationAEtudiant(String idR, String nomE, String prenomE) {
 
         Optional<Reservation> optionalReservation = reservationRepository.findById(idR);
@@ -1,16 +1,24 @@
 package tn.esprit.spring.services.etudiant;
 
 import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.projections.EtudiantVue;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface IEtudiantService {
     Etudiant addOrUpdate(Etudiant e);
     List<Etudiant> findAll();
+    List<EtudiantVue> findAllVues();
+    List<EtudiantVue> findAll(long apres, int taille);
+    EtudiantVue findVueById(long id);
+    long exporter(OutputStream out) throws IOException;
     Etudiant findById(long id);
     void deleteById(long id);
     void delete(Etudiant e);
     List<Etudiant> selectJPQL(String nom);
+    List<EtudiantVue> selectVues(String nom);
     void affecterReservationAEtudiant(String idR,String nomE, String prenomE);
     void desaffecterReservationAEtudiant(String idR, String nomE, String prenomE);
 }
@@ -0,0 +1,74 @@
+package tn.esprit.spring.services.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export NDJSON d'une table complète : une entité JSON par ligne, écrite au fil de la
+ * lecture d'un {@link Stream} de repository.
+ * <p>
+ * Le contexte de persistance est vidé tous les {@value #TAILLE_LOT} lignes, la mémoire
+ * utilisée ne dépend donc pas du nombre de lignes exportées. Chaque ligne contient les
+ * colonnes de l'entité : les collections de réservations sont exclues, elles
+ * demanderaient une requête par ligne.
+ */
+@Component
+public class NdjsonExporter {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final int TAILLE_LOT = 1000;
+
+    private static final ObjectWriter WRITER = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .addMixIn(Chambre.class, SansReservations.class)
+            .addMixIn(Etudiant.class, SansReservations.class)
+            .build()
+            .writer();
+
+    private final EntityManager entityManager;
+
+    @JsonIgnoreProperties("reservations")
+    private abstract static class SansReservations {
+    }
+
+    public NdjsonExporter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Ecrit chaque élément du flux sur une ligne puis ferme le flux. Doit être appelé
+     * dans la transaction qui a ouvert le flux.
+     *
+     * @return le nombre de lignes écrites
+     */
+    public long exporter(Stream<?> lignes, OutputStream out) throws IOException {
+        long nb = 0;
+        try (lignes; JsonGenerator generator = WRITER.createGenerator(out)) {
+            Iterator<?> it = lignes.iterator();
+            while (it.hasNext()) {
+                WRITER.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                if (++nb % TAILLE_LOT == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return nb;
+    }
+}
@@ -1,26 +1,38 @@
 package tn.esprit.spring.services.foyer;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.dao.entities.*;
+import tn.esprit.spring.dao.projections.FoyerVue;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.FoyerRepository;
 import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 @AllArgsConstructor
 public class FoyerService implements IFoyerService {
     private final FoyerRepository foyerRepository;
     FoyerRepository repo;
     UniversiteRepository universiteRepository;
     BlocRepository blocRepository;
+    AvailabilityIndex availabilityIndex;
+    NaturalKeyCache cles;
 
     @Override
+    @Transactional
     public Foyer addOrUpdate(Foyer f) {
-        return repo.save(f);
+        Foyer foyer = repo.save(f);
+        cles.foyerModifie(foyer.getIdFoyer());
+        availabilityIndex.invalider();
+        return foyer;
     }
 
     @Override
@@ -28,6 +40,21 @@ public class FoyerService implements IFoyerService {
         return repo.findAll();
     }
 
+    @Override
+    public List<FoyerVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<FoyerVue> findAll(long apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public FoyerVue findVueById(long id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
     @Override
     public Foyer findById(long id) {
         Optional<Foyer> optionalFoyer = repo.findById(id);
@@ -35,19 +62,28 @@ public class FoyerService implements IFoyerService {
     }
 
     @Override
+    @Transactional
     public void deleteById(long id) {
         repo.deleteById(id);
+        cles.foyerModifie(id);
+        availabilityIndex.invalider();
     }
 
     @Override
+    @Transactional
     public void delete(Foyer f) {
         repo.delete(f);
+        cles.foyerModifie(f.getIdFoyer());
+        availabilityIndex.invalider();
     }
 
     @Override
+    @Transactional
     public Universite affecterFoyerAUniversite(long idFoyer, String nomUniversite) {
         Foyer f = findById(idFoyer); // Child
-        Universite u = universiteRepository.findByNomUniversite(nomUniversite); // Parent
+        long idUniversite = cles.idUniversite(nomUniversite);
+        Universite u = idUniversite == NaturalKeyCache.INCONNU ? null
+                : universiteRepository.findById(idUniversite).orElse(null); // Parent
         // On affecte le child au parent
         u.setFoyer(f);
         return universiteRepository.save(u);
@@ -55,9 +91,11 @@ public class FoyerService implements IFoyerService {
 
 
     @Override
+    @Transactional
     public Foyer ajouterFoyerEtAffecterAUniversite(Foyer foyer, long idUniversite) {
         List<Bloc> blocs = foyer.getBlocs();
         Foyer f = repo.save(foyer);
+        cles.foyerModifie(f.getIdFoyer());
         Optional<Universite> optionalUniversite = universiteRepository.findById(idUniversite);
 
         if(optionalUniversite.isPresent()){
@@ -65,9 +103,10 @@ public class FoyerService implements IFoyerService {
 
         for (Bloc bloc : blocs) {
             bloc.setFoyer(foyer);
-            blocRepository.save(bloc);
+            cles.blocModifie(blocRepository.save(bloc).getIdBloc());
         }
         u.setFoyer(f);
+        availabilityIndex.invalider();
         return universiteRepository.save(u).getFoyer();
     }else {
             return null; // ou lancer une exception
@@ -75,18 +114,22 @@ public class FoyerService implements IFoyerService {
     }
 
     @Override
+    @Transactional
     public Foyer ajoutFoyerEtBlocs(Foyer foyer) {
         //-----------------------------------------
         List<Bloc> blocs = foyer.getBlocs();
         foyer = repo.save(foyer);
+        cles.foyerModifie(foyer.getIdFoyer());
         for (Bloc b : blocs) {
             b.setFoyer(foyer);
-            blocRepository.save(b);
+            cles.blocModifie(blocRepository.save(b).getIdBloc());
         }
+        availabilityIndex.invalider();
         return foyer;
     }
 
     @Override
+    @Transactional
     public Universite affecterFoyerAUniversite(long idF, long idU) {
         Optional<Universite> optionalUniversite = universiteRepository.findById(idU);
         Optional<Foyer> optionalFoyer = foyerRepository.findById(idF);
@@ -101,6 +144,7 @@ public class FoyerService implements IFoyerService {
     }
 
     @Override
+    @Transactional
     public Universite desaffecterFoyerAUniversite(long idUniversite) {
         Optional<Universite> optionalUniversite = universiteRepository.findById(idUniversite);
         if(optionalUniversite.isEmpty()){
@@ -2,6 +2,7 @@ package tn.esprit.spring.services.foyer;
 
 import tn.esprit.spring.dao.entities.Foyer;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.FoyerVue;
 
 import java.util.List;
 
@@ -10,6 +11,12 @@ public interface IFoyerService {
 
     List<Foyer> findAll();
 
+    List<FoyerVue> findAllVues();
+
+    List<FoyerVue> findAll(long apres, int taille);
+
+    FoyerVue findVueById(long id);
+
     Foyer findById(long id);
 
     void deleteById(long id);
@@ -0,0 +1,143 @@
+package tn.esprit.spring.services.reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode de réservation "atomic" : le contrôle de capacité et l'insertion dans
+ * t_reservation / t_chambre_reservations se font dans une seule transaction, sous
+ * un verrou exclusif sur la ligne de la chambre. Deux demandes concurrentes pour
+ * la même chambre sont donc traitées l'une après l'autre, même sur plusieurs instances.
+ * <p>
+ * Un échec de verrou (délai dépassé, interblocage) est compté comme contention puis
+ * la réservation est rejouée jusqu'à {@code foyer.reservation.booking-max-attempts} fois.
+ */
+@Component
+@Slf4j
+public class AtomicReservationBooking {
+    private final ChambreRepository chambreRepository;
+    private final EtudiantRepository etudiantRepository;
+    private final NaturalKeyCache cles;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final OccupancyLedger ledger;
+    private final boolean enabled;
+    private final int maxTentatives;
+
+    private final Counter contention;
+    private final Counter tentativesRejouees;
+    private final Counter chambresCompletes;
+    private final Timer attenteVerrou;
+
+    public AtomicReservationBooking(ChambreRepository chambreRepository,
+                                    EtudiantRepository etudiantRepository,
+                                    NaturalKeyCache cles,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    OccupancyLedger ledger,
+                                    MeterRegistry registry,
+                                    @Value("${foyer.reservation.booking-mode:ledger}") String mode,
+                                    @Value("${foyer.reservation.booking-max-attempts:3}") int maxTentatives) {
+        this.chambreRepository = chambreRepository;
+        this.etudiantRepository = etudiantRepository;
+        this.cles = cles;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledger = ledger;
+        this.enabled = "atomic".equalsIgnoreCase(mode);
+        this.maxTentatives = Math.max(1, maxTentatives);
+        this.contention = Counter.builder("foyer.reservation.booking.contention")
+                .description("Echecs d'acquisition du verrou de chambre (délai dépassé ou interblocage)")
+                .register(registry);
+        this.tentativesRejouees = Counter.builder("foyer.reservation.booking.retries")
+                .description("Réservations rejouées après un échec de verrou")
+                .register(registry);
+        this.chambresCompletes = Counter.builder("foyer.reservation.booking.full")
+                .description("Réservations refusées car la chambre est complète")
+                .register(registry);
+        this.attenteVerrou = Timer.builder("foyer.reservation.booking.lock.wait")
+                .description("Temps d'attente du verrou de chambre")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return la réservation créée, ou null si la chambre est complète ou la chambre ou l'étudiant inconnu
+     */
+    public Reservation reserver(long numChambre, long cin, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        for (int tentative = 1; ; tentative++) {
+            try {
+                return transactionTemplate.execute(status -> reserverSousVerrou(numChambre, cin, dateDebutAU, dateFinAU));
+            } catch (ConcurrencyFailureException | PessimisticLockException | LockTimeoutException e) {
+                contention.increment();
+                if (tentative >= maxTentatives) {
+                    throw e;
+                }
+                tentativesRejouees.increment();
+                log.warn("Chambre {} verrouillée, nouvelle tentative ({}/{})", numChambre, tentative + 1, maxTentatives);
+            }
+        }
+    }
+
+    private Reservation reserverSousVerrou(long numChambre, long cin, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        long debut = System.nanoTime();
+        Chambre chambre = chambreRepository.findByNumeroChambreForUpdate(numChambre);
+        attenteVerrou.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        long idEtudiant = cles.idEtudiant(cin);
+        if (chambre == null || idEtudiant == NaturalKeyCache.INCONNU) {
+            log.info("Chambre {} ou étudiant {} introuvable", numChambre, cin);
+            return null;
+        }
+        Etudiant etudiant = etudiantRepository.getReferenceById(idEtudiant);
+
+        int nombreReservations = chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre.getIdChambre(), dateDebutAU, dateFinAU);
+        if (nombreReservations >= chambre.getTypeC().getCapacite()) {
+            chambresCompletes.increment();
+            log.info("Chambre {} remplie !", chambre.getTypeC());
+            return null;
+        }
+
+        LocalDate dateReservation = LocalDate.now();
+        Reservation reservation = Reservation.builder()
+                .idReservation(dateDebutAU.getYear() + "/" + dateFinAU.getYear() + "-" + chambre.getBloc().getNomBloc()
+                        + "-" + chambre.getNumeroChambre() + "-" + cin)
+                .anneeUniversitaire(dateReservation)
+                .estValide(true)
+                .etudiants(new HashSet<>(Set.of(etudiant)))
+                .build();
+        // persist et non save : l'identifiant est fourni, save ferait d'abord un SELECT
+        entityManager.persist(reservation);
+        entityManager.flush();
+        chambreRepository.ajouterReservationAChambre(chambre.getIdChambre(), reservation.getIdReservation());
+
+        long idChambre = chambre.getIdChambre();
+        TransactionCallbacks.apresCommit(() -> ledger.record(idChambre, dateReservation));
+        return reservation;
+    }
+}
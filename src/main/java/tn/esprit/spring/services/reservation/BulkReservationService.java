@@ -0,0 +1,241 @@
+package tn.esprit.spring.services.reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.reservation.ResultatReservation.Statut;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Réservations en masse : les chambres et les étudiants sont chargés avec une
+ * requête IN par lot, la capacité est contrôlée par le registre d'occupation et les
+ * lignes de t_reservation, t_reservation_etudiants et t_chambre_reservations sont
+ * écrites par lots JDBC, une transaction par tranche de {@code foyer.reservation.bulk-chunk-size}.
+ * <p>
+ * En mode de réservation "atomic", la capacité est contrôlée en base dans la transaction
+ * de chaque tranche, sous verrou exclusif des chambres de la tranche, comme le fait
+ * {@link AtomicReservationBooking} pour une réservation seule. Une demande est limitée à
+ * {@code foyer.reservation.bulk-max-demandes} réservations.
+ */
+@Service
+@Slf4j
+public class BulkReservationService {
+    // Taille maximale d'une liste IN
+    static final int TAILLE_IN = 1000;
+
+    private static final String INSERT_RESERVATION =
+            "insert into t_reservation (id_reservation, annee_universitaire, est_valide) values (?, ?, ?)";
+    private static final String INSERT_RESERVATION_ETUDIANT =
+            "insert into t_reservation_etudiants (reservations_id_reservation, etudiants_id_etudiant) values (?, ?)";
+    private static final String INSERT_CHAMBRE_RESERVATION =
+            "insert into t_chambre_reservations (chambre_id_chambre, reservations_id_reservation) values (?, ?)";
+
+    private final ChambreRepository chambreRepository;
+    private final EtudiantRepository etudiantRepository;
+    private final ReservationRepository reservationRepository;
+    private final OccupancyLedger ledger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleTranche;
+    private final int maxDemandes;
+    private final boolean atomique;
+
+    public BulkReservationService(ChambreRepository chambreRepository,
+                                  EtudiantRepository etudiantRepository,
+                                  ReservationRepository reservationRepository,
+                                  OccupancyLedger ledger,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${foyer.reservation.bulk-chunk-size:200}") int tailleTranche,
+                                  @Value("${foyer.reservation.bulk-max-demandes:5000}") int maxDemandes,
+                                  @Value("${foyer.reservation.booking-mode:ledger}") String mode) {
+        this.chambreRepository = chambreRepository;
+        this.etudiantRepository = etudiantRepository;
+        this.reservationRepository = reservationRepository;
+        this.ledger = ledger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailleTranche = Math.max(1, tailleTranche);
+        this.maxDemandes = maxDemandes;
+        this.atomique = "atomic".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * @return un résultat par demande, dans l'ordre des demandes
+     */
+    public List<ResultatReservation> reserver(List<DemandeReservation> demandes, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        if (demandes.size() > maxDemandes) {
+            throw new IllegalArgumentException(
+                    demandes.size() + " demandes reçues, au plus " + maxDemandes + " par réservation en masse");
+        }
+        ResultatReservation[] resultats = new ResultatReservation[demandes.size()];
+        Map<Long, Chambre> chambres = charger(demandes, DemandeReservation::numChambre,
+                chambreRepository::findByNumeroChambreIn, Chambre::getNumeroChambre);
+        Map<Long, Etudiant> etudiants = charger(demandes, DemandeReservation::cin,
+                etudiantRepository::findByCinIn, Etudiant::getCin);
+
+        // 1- Chambre et étudiant connus, identifiant unique dans la demande
+        Map<Integer, String> identifiants = new LinkedHashMap<>();
+        Set<String> vus = new HashSet<>();
+        for (int i = 0; i < demandes.size(); i++) {
+            DemandeReservation demande = demandes.get(i);
+            Chambre chambre = demande.numChambre() == null ? null : chambres.get(demande.numChambre());
+            Etudiant etudiant = demande.cin() == null ? null : etudiants.get(demande.cin());
+            if (chambre == null || chambre.getBloc() == null) {
+                resultats[i] = ResultatReservation.of(demande, null, Statut.CHAMBRE_INTROUVABLE);
+            } else if (etudiant == null) {
+                resultats[i] = ResultatReservation.of(demande, null, Statut.ETUDIANT_INTROUVABLE);
+            } else {
+                String idReservation = dateDebutAU.getYear() + "/" + dateFinAU.getYear() + "-"
+                        + chambre.getBloc().getNomBloc() + "-" + chambre.getNumeroChambre() + "-" + etudiant.getCin();
+                if (vus.add(idReservation)) {
+                    identifiants.put(i, idReservation);
+                } else {
+                    resultats[i] = ResultatReservation.of(demande, idReservation, Statut.DEJA_RESERVEE);
+                }
+            }
+        }
+
+        // 2- Réservations déjà existantes, puis capacité contrôlée en mémoire (en base en mode atomic)
+        Set<String> existantes = new HashSet<>();
+        for (List<String> lot : decouper(new ArrayList<>(identifiants.values()), TAILLE_IN)) {
+            existantes.addAll(reservationRepository.findExistingIds(lot));
+        }
+        LocalDate dateReservation = LocalDate.now();
+        List<Ligne> aEcrire = new ArrayList<>();
+        identifiants.forEach((i, idReservation) -> {
+            DemandeReservation demande = demandes.get(i);
+            Chambre chambre = chambres.get(demande.numChambre());
+            if (existantes.contains(idReservation)) {
+                resultats[i] = ResultatReservation.of(demande, idReservation, Statut.DEJA_RESERVEE);
+            } else if (!atomique
+                    && !ledger.tryReserve(chambre.getIdChambre(), dateReservation, chambre.getTypeC().getCapacite())) {
+                resultats[i] = ResultatReservation.of(demande, idReservation, Statut.CHAMBRE_COMPLETE);
+            } else {
+                aEcrire.add(new Ligne(i, idReservation, chambre.getIdChambre(),
+                        etudiants.get(demande.cin()).getIdEtudiant(), chambre.getTypeC().getCapacite()));
+            }
+        });
+
+        // 3- Ecriture par tranches ; une tranche en échec est rejouée ligne par ligne
+        for (List<Ligne> tranche : decouper(aEcrire, tailleTranche)) {
+            if (!ecrire(tranche, dateReservation, dateDebutAU, dateFinAU)) {
+                for (Ligne ligne : tranche) {
+                    ecrire(List.of(ligne), dateReservation, dateDebutAU, dateFinAU);
+                }
+            }
+        }
+        for (Ligne ligne : aEcrire) {
+            Statut statut = ligne.ecrite ? Statut.RESERVEE : ligne.complete ? Statut.CHAMBRE_COMPLETE : Statut.ERREUR;
+            resultats[ligne.index] = ResultatReservation.of(demandes.get(ligne.index), ligne.idReservation, statut);
+            if (!ligne.ecrite && !atomique) {
+                ledger.release(ligne.idChambre, dateReservation);
+            }
+        }
+        return Arrays.asList(resultats);
+    }
+
+    private boolean ecrire(List<Ligne> tranche, LocalDate dateReservation, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        Date date = Date.valueOf(dateReservation);
+        Set<Ligne> completes;
+        try {
+            completes = transactionTemplate.execute(status -> {
+                Set<Ligne> refusees = atomique ? controlerSousVerrou(tranche, dateDebutAU, dateFinAU) : Set.of();
+                List<Ligne> acceptees = tranche.stream().filter(l -> !refusees.contains(l)).toList();
+                if (!acceptees.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_RESERVATION, acceptees.stream()
+                            .map(l -> new Object[]{l.idReservation, date, true}).toList());
+                    jdbcTemplate.batchUpdate(INSERT_RESERVATION_ETUDIANT, acceptees.stream()
+                            .map(l -> new Object[]{l.idReservation, l.idEtudiant}).toList());
+                    jdbcTemplate.batchUpdate(INSERT_CHAMBRE_RESERVATION, acceptees.stream()
+                            .map(l -> new Object[]{l.idChambre, l.idReservation}).toList());
+                }
+                return refusees;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Echec de l'écriture de {} réservation(s) : {}", tranche.size(), e.getMessage());
+            return false;
+        }
+        completes.forEach(l -> l.complete = true);
+        for (Ligne ligne : tranche) {
+            if (!ligne.complete) {
+                ligne.ecrite = true;
+                // En mode atomic, le registre n'a rien réservé : il suit l'écriture validée
+                if (atomique) {
+                    ledger.record(ligne.idChambre, dateReservation);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Chambres de la tranche verrouillées, puis capacité contrôlée sur les réservations en base
+    private Set<Ligne> controlerSousVerrou(List<Ligne> tranche, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        List<Long> ids = tranche.stream().map(l -> l.idChambre).distinct().toList();
+        chambreRepository.findByIdChambreInForUpdate(ids);
+        Map<Long, Long> occupees = new HashMap<>();
+        for (Object[] ligne : chambreRepository.countReservationsParChambreEntre(ids, dateDebutAU, dateFinAU)) {
+            occupees.put((Long) ligne[0], (Long) ligne[1]);
+        }
+        Set<Ligne> refusees = new HashSet<>();
+        for (Ligne ligne : tranche) {
+            if (occupees.merge(ligne.idChambre, 1L, Long::sum) > ligne.capacite) {
+                refusees.add(ligne);
+            }
+        }
+        return refusees;
+    }
+
+    private static <T> Map<Long, T> charger(List<DemandeReservation> demandes,
+                                            Function<DemandeReservation, Long> cle,
+                                            Function<Collection<Long>, List<T>> requete,
+                                            Function<T, Long> cleEntite) {
+        List<Long> cles = demandes.stream().map(cle).filter(Objects::nonNull).distinct().toList();
+        Map<Long, T> index = new HashMap<>();
+        for (List<Long> lot : decouper(cles, TAILLE_IN)) {
+            for (T entite : requete.apply(lot)) {
+                index.put(cleEntite.apply(entite), entite);
+            }
+        }
+        return index;
+    }
+
+    static <T> List<List<T>> decouper(List<T> liste, int taille) {
+        List<List<T>> lots = new ArrayList<>();
+        for (int debut = 0; debut < liste.size(); debut += taille) {
+            lots.add(liste.subList(debut, Math.min(liste.size(), debut + taille)));
+        }
+        return lots;
+    }
+
+    private static final class Ligne {
+        final int index;
+        final String idReservation;
+        final long idChambre;
+        final long idEtudiant;
+        final int capacite;
+        boolean ecrite;
+        boolean complete;
+
+        Ligne(int index, String idReservation, long idChambre, long idEtudiant, int capacite) {
+            this.index = index;
+            this.idReservation = idReservation;
+            this.idChambre = idChambre;
+            this.idEtudiant = idEtudiant;
+            this.capacite = capacite;
+        }
+    }
+}
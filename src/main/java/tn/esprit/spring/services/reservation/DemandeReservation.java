@@ -0,0 +1,5 @@
+package tn.esprit.spring.services.reservation;
+
+// Un couple (numéro de chambre, CIN) d'une réservation en masse
+public record DemandeReservation(Long numChambre, Long cin) {
+}
@@ -1,17 +1,25 @@
 package tn.esprit.spring.services.reservation;
 
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.ReservationVue;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 
 public interface IReservationService {
     Reservation addOrUpdate(Reservation r);
     List<Reservation> findAll();
+    List<ReservationVue> findAllVues();
+    List<ReservationVue> findAll(String apres, int taille);
+    ReservationVue findVueById(String id);
+    long exporter(OutputStream out) throws IOException;
     Reservation findById(String id);
     void deleteById(String id);
     void delete(Reservation r);
     Reservation ajouterReservationEtAssignerAChambreEtAEtudiant (Long numChambre, long cin) ;
+    List<ResultatReservation> ajouterReservationsEnMasse(List<DemandeReservation> demandes);
     long  getReservationParAnneeUniversitaire(LocalDate debutAnnee, LocalDate finAnnee ) ;
     String annulerReservation (long cinEtudiant) ;
 
@@ -0,0 +1,162 @@
+package tn.esprit.spring.services.reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registre d'occupation en mémoire : un compteur de réservations par chambre et
+ * par année universitaire. Chaque chambre a son propre compteur, deux réservations
+ * sur des chambres différentes ne se bloquent donc jamais.
+ * <p>
+ * Le registre est initialisé au démarrage depuis {@link ChambreRepository} puis
+ * tenu à jour par {@link ReservationService}. Une chambre inconnue d'une année
+ * non chargée est comptée une seule fois en base, à la première demande.
+ */
+@Component
+@Slf4j
+public class OccupancyLedger {
+    private final ChambreRepository chambreRepository;
+    private final Map<Long, AtomicInteger> compteurs = new ConcurrentHashMap<>();
+    // Années dont toutes les réservations ont été chargées : une chambre absente y est vide
+    private final Set<Integer> anneesChargees = ConcurrentHashMap.newKeySet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Prévenu à chaque changement d'occupation d'une chambre (index de disponibilité)
+    public interface Listener {
+        void occupationModifiee(long idChambre, int annee, int occupees);
+    }
+
+    public OccupancyLedger(ChambreRepository chambreRepository) {
+        this.chambreRepository = chambreRepository;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Chargé avant les structures qui lisent l'occupation (index de disponibilité)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void initialiser() {
+        int compteursLus = charger(anneeUniversitaire(LocalDate.now()));
+        log.info("Registre d'occupation initialisé : {} compteurs", compteursLus);
+    }
+
+    // Année pas encore chargée (nouvelle année sans redémarrage) : une requête groupée plutôt qu'un COUNT par chambre
+    public void chargerAnnee(int annee) {
+        if (!anneesChargees.contains(annee)) {
+            int compteursLus = charger(annee);
+            log.info("Année universitaire {} chargée dans le registre d'occupation : {} compteurs", annee, compteursLus);
+        }
+    }
+
+    private int charger(int anneeDebut) {
+        int derniereAnnee = anneeDebut;
+        Map<Long, Integer> occupation = new HashMap<>();
+        for (Object[] ligne : chambreRepository.countReservationsParChambreEtDateDepuis(
+                debutAnneeUniversitaire(anneeDebut))) {
+            LocalDate date = (LocalDate) ligne[1];
+            int annee = anneeUniversitaire(date);
+            // Réservation de l'intersession (juillet au 14 septembre) : hors de toute année comptée
+            if (date.isBefore(debutAnneeUniversitaire(annee)) || date.isAfter(finAnneeUniversitaire(annee))) {
+                continue;
+            }
+            occupation.merge(cle((Long) ligne[0], annee), ((Long) ligne[2]).intValue(), Integer::sum);
+            derniereAnnee = Math.max(derniereAnnee, annee);
+        }
+        // Un compteur déjà créé entre-temps a été lu en base : il est au moins aussi récent
+        occupation.forEach((cle, nb) -> compteurs.putIfAbsent(cle, new AtomicInteger(nb)));
+        for (int annee = anneeDebut; annee <= derniereAnnee; annee++) {
+            anneesChargees.add(annee);
+        }
+        return occupation.size();
+    }
+
+    /**
+     * Réserve une place dans la chambre si elle n'a pas encore atteint sa capacité.
+     *
+     * @return true si la place a été prise, false si la chambre est complète
+     */
+    public boolean tryReserve(long idChambre, LocalDate date, int capacite) {
+        int annee = anneeUniversitaire(date);
+        AtomicInteger compteur = compteur(idChambre, annee);
+        int occupees;
+        do {
+            occupees = compteur.get();
+            if (occupees >= capacite) {
+                return false;
+            }
+        } while (!compteur.compareAndSet(occupees, occupees + 1));
+        prevenir(idChambre, annee, occupees + 1);
+        return true;
+    }
+
+    // Enregistre une réservation affectée sans contrôle de capacité (affectation manuelle)
+    public void record(Long idChambre, LocalDate date) {
+        if (idChambre != null && date != null) {
+            int annee = anneeUniversitaire(date);
+            prevenir(idChambre, annee, compteur(idChambre, annee).incrementAndGet());
+        }
+    }
+
+    public void release(Long idChambre, LocalDate date) {
+        if (idChambre != null && date != null) {
+            int annee = anneeUniversitaire(date);
+            prevenir(idChambre, annee, compteur(idChambre, annee).updateAndGet(n -> Math.max(0, n - 1)));
+        }
+    }
+
+    public int occupation(long idChambre, LocalDate date) {
+        return compteur(idChambre, anneeUniversitaire(date)).get();
+    }
+
+    // Année de début de l'année universitaire d'une date (même découpage que getDateDebutAU)
+    public static int anneeUniversitaire(LocalDate date) {
+        return date.getMonthValue() <= 7 ? date.getYear() - 1 : date.getYear();
+    }
+
+    // Bornes des réservations comptées pour une année universitaire, au chargement comme à la demande
+    public static LocalDate debutAnneeUniversitaire(int annee) {
+        return LocalDate.of(annee, 9, 15);
+    }
+
+    public static LocalDate finAnneeUniversitaire(int annee) {
+        return LocalDate.of(annee + 1, 6, 30);
+    }
+
+    private AtomicInteger compteur(long idChambre, int annee) {
+        long cle = cle(idChambre, annee);
+        AtomicInteger compteur = compteurs.get(cle);
+        if (compteur != null) {
+            return compteur;
+        }
+        int occupees = anneesChargees.contains(annee) ? 0
+                : chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                        idChambre, debutAnneeUniversitaire(annee), finAnneeUniversitaire(annee));
+        AtomicInteger existant = compteurs.putIfAbsent(cle, new AtomicInteger(occupees));
+        return existant != null ? existant : compteurs.get(cle);
+    }
+
+    private void prevenir(long idChambre, int annee, int occupees) {
+        for (Listener listener : listeners) {
+            listener.occupationModifiee(idChambre, annee, occupees);
+        }
+    }
+
+    private static long cle(long idChambre, int annee) {
+        return (idChambre << 16) | (annee & 0xFFFF);
+    }
+}
@@ -0,0 +1,117 @@
+package tn.esprit.spring.services.reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dao.entities.ClotureAnnee;
+import tn.esprit.spring.dao.repositories.ClotureAnneeRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clôture d'une année universitaire : toutes les réservations valides de l'année
+ * sont invalidées par UPDATE groupés de {@code foyer.reservation.rollover-chunk-size}
+ * lignes, une transaction par tranche. Après chaque tranche, la dernière réservation
+ * traitée est enregistrée dans {@link ClotureAnnee} : un arrêt brutal reprend au
+ * démarrage suivant là où il s'était arrêté.
+ */
+@Component
+@Slf4j
+public class ReservationRolloverJob {
+    private final ReservationRepository reservationRepository;
+    private final ClotureAnneeRepository clotureAnneeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleTranche;
+
+    private final Counter reservationsAnnulees;
+    private final Timer duree;
+    // Réservations annulées par seconde lors de la dernière clôture
+    private final AtomicLong debit = new AtomicLong();
+
+    public ReservationRolloverJob(ReservationRepository reservationRepository,
+                                  ClotureAnneeRepository clotureAnneeRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry,
+                                  @Value("${foyer.reservation.rollover-chunk-size:1000}") int tailleTranche) {
+        this.reservationRepository = reservationRepository;
+        this.clotureAnneeRepository = clotureAnneeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailleTranche = Math.max(1, tailleTranche);
+        this.reservationsAnnulees = Counter.builder("foyer.reservation.rollover.rows")
+                .description("Réservations invalidées par la clôture d'année")
+                .register(registry);
+        this.duree = Timer.builder("foyer.reservation.rollover")
+                .description("Durée d'une clôture d'année")
+                .register(registry);
+        registry.gauge("foyer.reservation.rollover.throughput", debit);
+    }
+
+    // Reprise des clôtures interrompues (arrêt de l'application en cours de traitement)
+    @EventListener(ApplicationReadyEvent.class)
+    public void reprendre() {
+        for (ClotureAnnee cloture : clotureAnneeRepository.findByTermineeFalse()) {
+            int annee = cloture.getAnneeUniversitaire();
+            log.info("Reprise de la clôture {}/{} après la réservation {}", annee, annee + 1,
+                    cloture.getDernierIdReservation());
+            executer(LocalDate.of(annee, 9, 15), LocalDate.of(annee + 1, 6, 30));
+        }
+    }
+
+    /**
+     * Invalide les réservations valides de l'année universitaire.
+     *
+     * @return le nombre de réservations invalidées par cet appel
+     */
+    public long executer(LocalDate dateDebutAU, LocalDate dateFinAU) {
+        int annee = dateDebutAU.getYear();
+        ClotureAnnee cloture = clotureAnneeRepository.findById(annee)
+                .filter(c -> !c.isTerminee())
+                .orElseGet(() -> ClotureAnnee.builder()
+                        .anneeUniversitaire(annee)
+                        .dernierIdReservation("")
+                        .build());
+        long dejaAnnulees = cloture.getNbReservationsAnnulees();
+
+        long debut = System.nanoTime();
+        while (!cloture.isTerminee()) {
+            ClotureAnnee courante = cloture;
+            cloture = transactionTemplate.execute(status -> traiterTranche(courante, dateDebutAU, dateFinAU));
+        }
+        long nanos = System.nanoTime() - debut;
+        duree.record(nanos, TimeUnit.NANOSECONDS);
+
+        long annulees = cloture.getNbReservationsAnnulees() - dejaAnnulees;
+        debit.set(nanos == 0 ? annulees : annulees * TimeUnit.SECONDS.toNanos(1) / nanos);
+        log.info("Clôture {}/{} : {} réservations annulées en {} ms", annee, annee + 1, annulees,
+                TimeUnit.NANOSECONDS.toMillis(nanos));
+        return annulees;
+    }
+
+    private ClotureAnnee traiterTranche(ClotureAnnee cloture, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        List<String> ids = reservationRepository.findIdsValidesApres(dateDebutAU, dateFinAU,
+                cloture.getDernierIdReservation(), PageRequest.of(0, tailleTranche));
+        if (ids.isEmpty()) {
+            cloture.setTerminee(true);
+        } else {
+            int annulees = reservationRepository.invaliderReservations(ids);
+            reservationsAnnulees.increment(annulees);
+            cloture.setNbReservationsAnnulees(cloture.getNbReservationsAnnulees() + annulees);
+            cloture.setDernierIdReservation(ids.get(ids.size() - 1));
+        }
+        cloture.setDateMiseAJour(LocalDateTime.now());
+        return clotureAnneeRepository.save(cloture);
+    }
+}
@@ -2,28 +2,48 @@ package tn.esprit.spring.services.reservation;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.Etudiant;
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.ReservationVue;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
 import tn.esprit.spring.dao.repositories.EtudiantRepository;
 import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.TransactionCallbacks;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.export.NdjsonExporter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Transactional(readOnly = true)
 @AllArgsConstructor
 @Slf4j
 public class ReservationService implements IReservationService {
     ReservationRepository repo;
     ChambreRepository chambreRepository;
     EtudiantRepository etudiantRepository;
+    OccupancyLedger ledger;
+    AtomicReservationBooking atomicBooking;
+    BulkReservationService bulkReservationService;
+    ReservationRolloverJob rolloverJob;
+    NdjsonExporter ndjsonExporter;
+    NaturalKeyCache cles;
+    TransactionTemplate transactionTemplate;
 
     @Override
+    @Transactional
     public Reservation addOrUpdate(Reservation r) {
         return repo.save(r);
     }
@@ -33,6 +53,26 @@ public class ReservationService implements IReservationService {
         return repo.findAll();
     }
 
+    @Override
+    public List<ReservationVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<ReservationVue> findAll(String apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public ReservationVue findVueById(String id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
+    @Override
+    public long exporter(OutputStream out) throws IOException {
+        return ndjsonExporter.exporter(repo.streamAll(), out);
+    }
+
     @Override
     public Reservation findById(String id) {
         Optional<Reservation> optionalReservation = repo.findById(id);
@@ -40,11 +80,13 @@ public class ReservationService implements IReservationService {
     }
 
     @Override
+    @Transactional
     public void deleteById(String id) {
         repo.deleteById(id);
     }
 
     @Override
+    @Transactional
     public void delete(Reservation r) {
         repo.delete(r);
     }
@@ -71,45 +113,51 @@ public class ReservationService implements IReservationService {
         return dateFinAU;
     }
 
+    // Chaque mode ouvre sa propre transaction : le mode "atomic" la rejoue après un échec de verrou
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Reservation ajouterReservationEtAssignerAChambreEtAEtudiant
             (Long numChambre, long cin) {
-        // Récupération de la chambre et de l'étudiant
-        Chambre chambre = chambreRepository.findByNumeroChambre(numChambre);
-        Etudiant etudiant = etudiantRepository.findByCin(cin);
-
-        // Compter le nombre de réservations existantes
-        int nombreReservations = chambreRepository.
-                countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween
-                        (chambre.getIdChambre(), getDateDebutAU(), getDateFinAU());
-
-        // Vérification de la capacité de la chambre
-        boolean ajout = false;
-        int capaciteMaximale = switch (chambre.getTypeC()) {
-            case SIMPLE -> 1;
-            case DOUBLE -> 2;
-            case TRIPLE -> 3;
-        };
-
-        if (nombreReservations < capaciteMaximale) {
-            ajout = true;
-        } else {
-            log.info("Chambre " + chambre.getTypeC() + " remplie !");
+        // Mode "atomic" : contrôle de capacité et insertion sous verrou, en une seule transaction
+        if (atomicBooking.isEnabled()) {
+            return atomicBooking.reserver(numChambre, cin, getDateDebutAU(), getDateFinAU());
+        }
+        return transactionTemplate.execute(statut -> reserver(numChambre, cin));
+    }
+
+    private Reservation reserver(Long numChambre, long cin) {
+        // Récupération de la chambre et de l'étudiant : un CIN inconnu est écarté sans requête
+        long idChambre = cles.idChambre(numChambre);
+        long idEtudiant = cles.idEtudiant(cin);
+        Chambre chambre = idChambre == NaturalKeyCache.INCONNU ? null : chambreRepository.findById(idChambre).orElse(null);
+        if (chambre == null || idEtudiant == NaturalKeyCache.INCONNU) {
+            log.info("Chambre {} ou étudiant {} introuvable", numChambre, cin);
+            return null;
+        }
+        // Seul l'identifiant de l'étudiant est écrit (t_reservation_etudiants)
+        Etudiant etudiant = etudiantRepository.getReferenceById(idEtudiant);
+        LocalDate dateReservation = LocalDate.now();
+
+        // Vérification de la capacité de la chambre (registre d'occupation en mémoire)
+        if (!ledger.tryReserve(chambre.getIdChambre(), dateReservation, chambre.getTypeC().getCapacite())) {
+            log.info("Chambre {} remplie !", chambre.getTypeC());
+            // Retourner null ou lever une exception plutôt que de retourner une nouvelle réservation vide
+            return null;
         }
 
-        if (ajout) {
+        try {
             // Création de la réservation
             String idReservation = getDateDebutAU().getYear() + "/" + getDateFinAU().getYear() + "-" + chambre.getBloc().getNomBloc() + "-"
-                    + chambre.getNumeroChambre() + "-" + etudiant.getCin();
+                    + chambre.getNumeroChambre() + "-" + cin;
 
             Reservation reservation = Reservation.builder()
                     .estValide(true)
-                    .anneeUniversitaire(LocalDate.now())
+                    .anneeUniversitaire(dateReservation)
                     .idReservation(idReservation)
                     .build();
 
             // Affectation de l'étudiant à la réservation
-            ArrayList<Etudiant> etudiants = new ArrayList<>();
+            Set<Etudiant> etudiants = new HashSet<>();
             etudiants.add(etudiant);
             if(reservation.getEtudiants() == null) {
                 reservation.setEtudiants(etudiants);
@@ -123,34 +171,51 @@ public class ReservationService implements IReservationService {
             // Affectation de la réservation à la chambre
             chambre.getReservations().add(reservation);
             chambreRepository.save(chambre);
+            // Une erreur d'écriture doit libérer la place avant de quitter la méthode
+            chambreRepository.flush();
 
             return reservation;
+        } catch (RuntimeException e) {
+            // La place n'a finalement pas été occupée
+            ledger.release(chambre.getIdChambre(), dateReservation);
+            throw e;
         }
-
-        // Retourner null ou lever une exception plutôt que de retourner une nouvelle réservation vide
-        return null; // Ou vous pouvez lever une exception pour indiquer que l'ajout a échoué
     }
 
 
+    // Écrit par tranches, une transaction par tranche
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ResultatReservation> ajouterReservationsEnMasse(List<DemandeReservation> demandes) {
+        return bulkReservationService.reserver(demandes, getDateDebutAU(), getDateFinAU());
+    }
+
     @Override
     public long getReservationParAnneeUniversitaire(LocalDate debutAnnee, LocalDate finAnnee) {
         return repo.countByAnneeUniversitaireBetween(debutAnnee, finAnnee);
     }
 
     @Override
+    @Transactional
     public String annulerReservation(long cinEtudiant) {
-        Reservation r = repo.findByEtudiantsCinAndEstValide(cinEtudiant,
-                true);
-        Chambre c = chambreRepository.findByReservationsIdReservation
-                (r.getIdReservation());
-        c.getReservations().remove(r);
-        chambreRepository.save(c);
+        // Deux lectures par index, sans charger la chambre ni l'historique de ses réservations
+        long idEtudiant = cles.idEtudiant(cinEtudiant);
+        Reservation r = idEtudiant == NaturalKeyCache.INCONNU ? null : repo.findReservationParIdEtudiant(idEtudiant, true);
+        if (r == null) {
+            return "Aucune réservation valide pour l'étudiant de CIN " + cinEtudiant;
+        }
+        Optional<Long> idChambre = chambreRepository.findIdChambreByIdReservation(r.getIdReservation());
+        chambreRepository.retirerReservationDeChambre(r.getIdReservation());
         repo.delete(r);
+        // Le registre d'occupation ne suit que les écritures validées
+        idChambre.ifPresent(id -> TransactionCallbacks.apresCommit(
+                () -> ledger.release(id, r.getAnneeUniversitaire())));
         return "La réservation " + r.getIdReservation()
                 + " est annulée avec succés";
     }
 
     @Override
+    @Transactional
     public void affectReservationAChambre(String idRes, long idChambre) {
         Optional<Reservation> optionalReservation = repo.findById(idRes);
         Optional<Chambre> optionalChambre = chambreRepository.findById(idChambre);
@@ -159,33 +224,33 @@ public class ReservationService implements IReservationService {
             Chambre c = optionalChambre.get();
              c.getReservations().add(r);
             chambreRepository.save(c);
+            TransactionCallbacks.apresCommit(() -> ledger.record(c.getIdChambre(), r.getAnneeUniversitaire()));
         }
     }
 
     @Override
+    @Transactional
     public void deaffectReservationAChambre(String idRes, long idChambre) {
         Optional<Reservation> optionalReservation = repo.findById(idRes);
         Optional<Chambre> optionalChambre = chambreRepository.findById(idChambre);
         if(optionalReservation.isPresent() && optionalChambre.isPresent()){
             Reservation r = optionalReservation.get();
             Chambre c = optionalChambre.get();
-            c.getReservations().remove(r);
-            chambreRepository.save(c);
-
+            if (c.getReservations().remove(r)) {
+                chambreRepository.save(c);
+                TransactionCallbacks.apresCommit(() -> ledger.release(c.getIdChambre(), r.getAnneeUniversitaire()));
+            }
         }
     }
+    // Le job valide chaque tranche dans sa propre transaction
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void annulerReservations() {
         int year = LocalDate.now().getYear() % 100;
         LocalDate dateDebutAU = (LocalDate.now().getMonthValue() <= 7) ? LocalDate.of(Integer.parseInt("20" + (year - 1)), 9, 15) : LocalDate.of(Integer.parseInt("20" + year), 9, 15);
         LocalDate dateFinAU = (LocalDate.now().getMonthValue() <= 7) ?  LocalDate.of(Integer.parseInt("20" + year), 6, 30) : LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
         // Fin "récuperer l'année universitaire actuelle"
-        for (Reservation reservation : repo.findByEstValideAndAnneeUniversitaireBetween
-                (true, dateDebutAU, dateFinAU)) {
-            reservation.setEstValide(false);
-            repo.save(reservation);
-            log.info("La reservation " + reservation.getIdReservation() + " est annulée automatiquement");
-        }
+        // UPDATE groupés avec point de reprise, plutôt qu'un save par réservation
+        rolloverJob.executer(dateDebutAU, dateFinAU);
     }
-
 }
@@ -0,0 +1,13 @@
+package tn.esprit.spring.services.reservation;
+
+// Résultat d'une demande de réservation en masse : une demande refusée n'annule pas les autres
+public record ResultatReservation(Long numChambre, Long cin, String idReservation, Statut statut) {
+
+    public enum Statut {
+        RESERVEE, CHAMBRE_INTROUVABLE, ETUDIANT_INTROUVABLE, CHAMBRE_COMPLETE, DEJA_RESERVEE, ERREUR
+    }
+
+    static ResultatReservation of(DemandeReservation demande, String idReservation, Statut statut) {
+        return new ResultatReservation(demande.numChambre(), demande.cin(), idReservation, statut);
+    }
+}
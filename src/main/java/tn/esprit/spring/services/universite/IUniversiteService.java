@@ -1,12 +1,16 @@
 package tn.esprit.spring.services.universite;
 
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.UniversiteVue;
 
 import java.util.List;
 
 public interface IUniversiteService {
     Universite addOrUpdate(Universite u);
     List<Universite> findAll();
+    List<UniversiteVue> findAllVues();
+    List<UniversiteVue> findAll(long apres, int taille);
+    UniversiteVue findVueById(long id);
     Universite findById(long id);
     void deleteById(long id);
     void delete(Universite u);
@@ -1,24 +1,32 @@
 package tn.esprit.spring.services.universite;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.UniversiteVue;
 import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 @Slf4j
 public class UniversiteService implements IUniversiteService {
     public final UniversiteRepository repo;
-    public UniversiteService(UniversiteRepository repo) {
+    private final NaturalKeyCache cles;
+    public UniversiteService(UniversiteRepository repo, NaturalKeyCache cles) {
         this.repo = repo;
+        this.cles = cles;
     }
 
     @Override
+    @Transactional
     public Universite addOrUpdate(Universite u) {
-        return repo.save(u);
+        return enregistrer(u);
     }
 
     @Override
@@ -26,6 +34,21 @@ public class UniversiteService implements IUniversiteService {
         return repo.findAll();
     }
 
+    @Override
+    public List<UniversiteVue> findAllVues() {
+        return repo.findVues();
+    }
+
+    @Override
+    public List<UniversiteVue> findAll(long apres, int taille) {
+        return repo.findVuesApres(apres, PageRequest.of(0, taille));
+    }
+
+    @Override
+    public UniversiteVue findVueById(long id) {
+        return repo.findVueById(id).orElse(null);
+    }
+
     @Override
     public Universite findById(long id) {
         Optional<Universite> optionalUniversite = repo.findById(id);
@@ -33,17 +56,32 @@ public class UniversiteService implements IUniversiteService {
     }
 
     @Override
+    @Transactional
     public void deleteById(long id) {
         repo.deleteById(id);
+        cles.universiteModifiee(id);
     }
 
     @Override
+    @Transactional
     public void delete(Universite u) {
         repo.delete(u);
+        cles.universiteModifiee(u.getIdUniversite());
     }
 
     @Override
+    @Transactional
     public Universite ajouterUniversiteEtSonFoyer(Universite u) {
-        return repo.save(u);
+        return enregistrer(u);
+    }
+
+    // Le foyer suit l'université en cascade : son nom a pu changer aussi
+    private Universite enregistrer(Universite u) {
+        Universite universite = repo.save(u);
+        cles.universiteModifiee(universite.getIdUniversite());
+        if (universite.getFoyer() != null) {
+            cles.foyerModifie(universite.getFoyer().getIdFoyer());
+        }
+        return universite;
     }
 }
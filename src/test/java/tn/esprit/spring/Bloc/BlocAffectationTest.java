@@ -0,0 +1,120 @@
+package tn.esprit.spring.Bloc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.transaction.TestTransaction;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.bloc.AffectationChambres;
+import tn.esprit.spring.services.bloc.BlocService;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@FoyerJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BlocAffectationTest {
+
+    private static final int NB_CHAMBRES = 200;
+
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final AvailabilityIndex availabilityIndex = mock(AvailabilityIndex.class);
+    private RoomTypeCounters roomTypeCounters;
+    private NaturalKeyCache cles;
+    private BlocService blocService;
+    private Statistics statistiques;
+    private Bloc blocA;
+    private Bloc blocB;
+
+    @BeforeEach
+    void setup() {
+        blocA = blocRepository.save(Bloc.builder().nomBloc("Bloc A").capaciteBloc(NB_CHAMBRES).build());
+        blocB = blocRepository.save(Bloc.builder().nomBloc("Bloc B").capaciteBloc(NB_CHAMBRES).build());
+        List<Chambre> chambres = new ArrayList<>();
+        for (int i = 1; i <= NB_CHAMBRES; i++) {
+            chambres.add(Chambre.builder().numeroChambre(i).typeC(TypeChambre.DOUBLE).bloc(blocA).build());
+        }
+        chambreRepository.saveAll(chambres);
+        entityManager.flush();
+        entityManager.clear();
+
+        cles = new NaturalKeyCache(chambreRepository, etudiantRepository, blocRepository, foyerRepository,
+                universiteRepository, new SimpleMeterRegistry(), 1000);
+        roomTypeCounters = new RoomTypeCounters(chambreRepository);
+        roomTypeCounters.initialiser();
+        blocService = new BlocService(blocRepository, chambreRepository, blocRepository, foyerRepository,
+                availabilityIndex, roomTypeCounters, mock(RoomTypeDistribution.class), cles);
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+    }
+
+    @Test
+    void testAffecterChambresABloc_movesAWingWithOneQueryAndOneUpdatePerChunk() {
+        // 200 chambres connues puis 1 000 numéros inconnus : deux listes IN
+        List<Long> numeros = LongStream.rangeClosed(1, NB_CHAMBRES + 1000).boxed().toList();
+        LocalDateTime avant = LocalDateTime.now();
+
+        AffectationChambres affectation = blocService.affecterChambresABloc(numeros, "Bloc B");
+
+        assertThat(affectation.nbChambresAffectees()).isEqualTo(NB_CHAMBRES);
+        assertThat(affectation.numerosIntrouvables()).hasSize(1000).startsWith(NB_CHAMBRES + 1L);
+        // Id du bloc puis le bloc, les deux listes IN et un seul UPDATE (la seconde liste ne trouve rien)
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistiques.getEntityStatistics(Chambre.class.getName()).getLoadCount()).isZero();
+
+        entityManager.clear();
+        Chambre chambre = chambreRepository.findByNumeroChambre(42);
+        assertThat(chambre.getBloc().getIdBloc()).isEqualTo(blocB.getIdBloc());
+        assertThat(chambre.getDateMiseAJour()).isAfterOrEqualTo(avant);
+        assertThat(chambreRepository.findByBlocNomBloc("Bloc A")).isEmpty();
+        verify(availabilityIndex).invalider();
+
+        // Les compteurs ne bougent qu'au commit
+        assertThat(roomTypeCounters.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(NB_CHAMBRES);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(roomTypeCounters.nombre(TypeChambre.DOUBLE, blocB.getIdBloc())).isEqualTo(NB_CHAMBRES);
+        assertThat(roomTypeCounters.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isZero();
+        assertThat(roomTypeCounters.reconcilier()).isZero();
+        chambreRepository.deleteAll();
+        blocRepository.deleteAll();
+    }
+}
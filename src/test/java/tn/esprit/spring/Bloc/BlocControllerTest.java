@@ -11,7 +11,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.projections.BlocVue;
 import tn.esprit.spring.restcontrollers.BlocRestController;
+import tn.esprit.spring.services.bloc.AffectationChambres;
 import tn.esprit.spring.services.bloc.BlocService;
 
 import java.util.List;
@@ -43,14 +45,14 @@ class BlocControllerTest {
     @BeforeEach
     void setup() {
         mockMvc = MockMvcBuilders.standaloneSetup(blocRestController).build();
-        sampleBloc = new Bloc(1L, "Bloc G", 10, null, null);
+        sampleBloc = new Bloc(1L, "Bloc G", 10, null, null, null);
     }
 
     @Test
-    void testFindAll() throws Exception {
-        when(blocService.findAll()).thenReturn(List.of(sampleBloc));
+    void testFindAll_Unpaged() throws Exception {
+        when(blocService.findAllVues()).thenReturn(List.of(new BlocVue(1L, "Bloc G", 10)));
 
-        mockMvc.perform(get("/bloc/findAll"))
+        mockMvc.perform(get("/bloc/findAll").param("nonPagine", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].idBloc").value(1))
                 .andExpect(jsonPath("$[0].nomBloc").value("Bloc G"));
@@ -58,7 +60,7 @@ class BlocControllerTest {
 
     @Test
     void testFindById() throws Exception {
-        when(blocService.findById(1L)).thenReturn(sampleBloc);
+        when(blocService.findVueById(1L)).thenReturn(new BlocVue(1L, "Bloc G", 10));
 
         mockMvc.perform(get("/bloc/findById").param("id", "1"))
                 .andExpect(status().isOk())
@@ -109,14 +111,15 @@ class BlocControllerTest {
 
         // Mock the service call with direct parameters
         when(blocService.affecterChambresABloc(chambres, nomBloc))
-                .thenReturn(expectedBloc);
+                .thenReturn(new AffectationChambres(expectedBloc, 1, List.of(102L)));
 
         // Act
-        Bloc result = blocService.affecterChambresABloc(chambres, nomBloc);
+        AffectationChambres result = blocService.affecterChambresABloc(chambres, nomBloc);
 
         // Assert
         assertNotNull(result);
-        assertEquals(nomBloc, result.getNomBloc());
+        assertEquals(nomBloc, result.bloc().getNomBloc());
+        assertEquals(List.of(102L), result.numerosIntrouvables());
         verify(blocService).affecterChambresABloc(chambres, nomBloc);
     }
     @Test
@@ -0,0 +1,98 @@
+package tn.esprit.spring.Bloc;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BlocRepositoryTest {
+
+    private static final int NB_CHAMBRES = 40;
+
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistiques;
+    private long idBloc;
+
+    @BeforeEach
+    void setup() {
+        Foyer foyer = foyerRepository.save(Foyer.builder().nomFoyer("Foyer El Manar").capaciteFoyer(300).build());
+        Bloc bloc = blocRepository.save(Bloc.builder().nomBloc("Bloc A").capaciteBloc(NB_CHAMBRES).foyer(foyer).build());
+        for (int i = 1; i <= NB_CHAMBRES; i++) {
+            chambreRepository.save(Chambre.builder().numeroChambre(i).typeC(TypeChambre.DOUBLE).bloc(bloc).build());
+        }
+        blocRepository.save(Bloc.builder().nomBloc("Bloc B").capaciteBloc(10).foyer(foyer).build());
+        entityManager.flush();
+        entityManager.clear();
+        idBloc = bloc.getIdBloc();
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+    }
+
+    @Test
+    void testFindByNomBloc_readsTheBlocRowOnly() {
+        Bloc bloc = blocRepository.findByNomBloc("Bloc A");
+
+        assertThat(bloc.getNomBloc()).isEqualTo("Bloc A");
+        assertThat(chambresChargees()).isZero();
+        // Le bloc puis son foyer (ManyToOne), sans les 40 chambres
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testFindAll_doesNotLoadRooms() {
+        List<Bloc> blocs = blocRepository.findAll();
+
+        assertThat(blocs).hasSize(2);
+        assertThat(chambresChargees()).isZero();
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testFindAvecChambresByNomBloc_loadsRoomsInOneQuery() {
+        Bloc bloc = blocRepository.findAvecChambresByNomBloc("Bloc A");
+
+        assertThat(bloc.getChambres()).hasSize(NB_CHAMBRES);
+        assertThat(chambresChargees()).isEqualTo(NB_CHAMBRES);
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFindAvecChambresByIdBloc_loadsRoomsInOneQuery() {
+        Bloc bloc = blocRepository.findAvecChambresByIdBloc(idBloc).orElseThrow();
+
+        assertThat(bloc.getChambres()).extracting(Chambre::getNumeroChambre).hasSize(NB_CHAMBRES);
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private long chambresChargees() {
+        return statistiques.getEntityStatistics(Chambre.class.getName()).getLoadCount();
+    }
+}
@@ -9,11 +9,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.TypeChambre;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
 import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.services.bloc.AffectationChambres;
 import tn.esprit.spring.services.bloc.BlocService;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +38,18 @@ class BlocServiceTest {
     @Mock
     private FoyerRepository foyerRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomTypeCounters roomTypeCounters;
+
+    @Mock
+    private RoomTypeDistribution roomTypeDistribution;
+
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private BlocService blocService;
 
@@ -77,7 +96,7 @@ class BlocServiceTest {
 
     @Test
     void testDeleteById_WhenBlocExists() {
-        when(blocRepository.findById(1L)).thenReturn(Optional.of(bloc));
+        when(blocRepository.findAvecChambresByIdBloc(1L)).thenReturn(Optional.of(bloc));
         blocService.deleteById(1L);
         verify(chambreRepository).deleteAll(bloc.getChambres());
         verify(blocRepository).delete(bloc);
@@ -85,7 +104,7 @@ class BlocServiceTest {
 
     @Test
     void testDeleteById_WhenBlocDoesNotExist() {
-        when(blocRepository.findById(1L)).thenReturn(Optional.empty());
+        when(blocRepository.findAvecChambresByIdBloc(1L)).thenReturn(Optional.empty());
 
         blocService.deleteById(1L);
 
@@ -136,20 +155,40 @@ class BlocServiceTest {
     void testAffecterChambresABloc() {
         Bloc b = new Bloc();
         b.setNomBloc("Bloc A");
-        when(blocRepository.findByNomBloc("Bloc A")).thenReturn(b);
-        when(chambreRepository.findByNumeroChambre(101L)).thenReturn(chambre);
+        b.setIdBloc(7L);
+        when(cles.idBloc("Bloc A")).thenReturn(7L);
+        when(blocRepository.findById(7L)).thenReturn(Optional.of(b));
+        when(chambreRepository.findIdsParNumeros(List.of(101L, 102L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 101L, TypeChambre.SIMPLE}));
+        when(chambreRepository.affecterABloc(eq(b), any(LocalDateTime.class), eq(List.of(1L)))).thenReturn(1);
+
+        AffectationChambres result = blocService.affecterChambresABloc(List.of(101L, 102L, 101L), "Bloc A");
+        assertEquals(b, result.bloc());
+        assertEquals(1, result.nbChambresAffectees());
+        assertEquals(List.of(102L), result.numerosIntrouvables());
+        verify(chambreRepository, never()).save(any(Chambre.class));
+        verify(roomTypeCounters).enregistrer(1L, 7L, TypeChambre.SIMPLE);
+        verify(availabilityIndex).invalider();
+    }
 
-        Bloc result = blocService.affecterChambresABloc(List.of(101L), "Bloc A");
-        assertNotNull(result);
-        verify(chambreRepository).save(any(Chambre.class));
+    @Test
+    void testAffecterChambresABloc_unknownBlocChangesNothing() {
+        when(cles.idBloc("Inconnu")).thenReturn(NaturalKeyCache.INCONNU);
+        AffectationChambres result = blocService.affecterChambresABloc(List.of(101L), "Inconnu");
+        assertNull(result.bloc());
+        verifyNoInteractions(roomTypeCounters);
+        verify(chambreRepository, never()).affecterABloc(any(), any(), anyList());
+        verify(blocRepository, never()).findById(anyLong());
     }
 
     @Test
     void testAffecterBlocAFoyer() {
         Foyer foyer = new Foyer();
         foyer.setNomFoyer("Foyer 1");
-        when(blocRepository.findByNomBloc("Bloc A")).thenReturn(bloc);
-        when(foyerRepository.findByNomFoyer("Foyer 1")).thenReturn(foyer);
+        when(cles.idBloc("Bloc A")).thenReturn(1L);
+        when(blocRepository.findById(1L)).thenReturn(Optional.of(bloc));
+        when(cles.idFoyer("Foyer 1")).thenReturn(2L);
+        when(foyerRepository.findById(2L)).thenReturn(Optional.of(foyer));
         when(blocRepository.save(bloc)).thenReturn(bloc);
 
         Bloc result = blocService.affecterBlocAFoyer("Bloc A", "Foyer 1");
@@ -168,11 +207,14 @@ class BlocServiceTest {
     void testAjouterBlocEtAffecterAFoyer() {
         Foyer f = new Foyer();
         f.setNomFoyer("Foyer 1");
-        when(foyerRepository.findByNomFoyer("Foyer 1")).thenReturn(f);
+        when(cles.idFoyer("Foyer 1")).thenReturn(2L);
+        when(foyerRepository.findById(2L)).thenReturn(Optional.of(f));
         when(blocRepository.save(any(Bloc.class))).thenReturn(bloc);
 
         Bloc result = blocService.ajouterBlocEtAffecterAFoyer(bloc, "Foyer 1");
         assertNotNull(result);
         assertEquals("Bloc A", result.getNomBloc());
+        assertEquals(f, bloc.getFoyer());
+        verify(cles).blocModifie(1L);
     }
 }
@@ -24,7 +24,7 @@ class BlocTest {
         Chambre chambre2 = Chambre.builder().idChambre(2L).numeroChambre(102L).build();
         List<Chambre> chambres = List.of(chambre1, chambre2);
 
-        Bloc bloc = new Bloc(1L, "Bloc A", 50L, foyer, chambres);
+        Bloc bloc = new Bloc(1L, "Bloc A", 50L, foyer, chambres, null);
 
         assertThat(bloc.getIdBloc()).isEqualTo(1L);
         assertThat(bloc.getNomBloc()).isEqualTo("Bloc A");
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.services.bloc.AffectationChambres;
 import tn.esprit.spring.services.bloc.IBlocService;
 
 import java.util.List;
@@ -71,11 +72,12 @@ class IBlocServiceTest {
 
     @Test
     void testAffecterChambresABloc() {
-        when(blocService.affecterChambresABloc(anyList(), anyString())).thenReturn(testBloc);
+        when(blocService.affecterChambresABloc(anyList(), anyString()))
+                .thenReturn(new AffectationChambres(testBloc, 1, List.of()));
 
-        Bloc bloc = blocService.affecterChambresABloc(List.of(1L), "TestBloc");
-        assertNotNull(bloc);
-        assertEquals("TestBloc", bloc.getNomBloc());
+        AffectationChambres affectation = blocService.affecterChambresABloc(List.of(1L), "TestBloc");
+        assertNotNull(affectation);
+        assertEquals("TestBloc", affectation.bloc().getNomBloc());
     }
 
     @Test
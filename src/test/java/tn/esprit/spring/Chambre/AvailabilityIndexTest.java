@@ -0,0 +1,130 @@
+package tn.esprit.spring.Chambre;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    private OccupancyLedger ledger;
+    private AvailabilityIndex index;
+
+    private final LocalDate aujourdhui = LocalDate.now();
+
+    @BeforeEach
+    void setup() {
+        // Année en cours chargée et vide : aucune lecture de compteur en base
+        when(chambreRepository.countReservationsParChambreEtDateDepuis(any())).thenReturn(List.of());
+        when(chambreRepository.findEmplacements()).thenReturn(List.of(
+                new Object[]{1L, TypeChambre.SIMPLE, "Foyer A"},
+                new Object[]{2L, TypeChambre.DOUBLE, "Foyer A"},
+                new Object[]{3L, TypeChambre.DOUBLE, "Foyer A"},
+                new Object[]{4L, TypeChambre.DOUBLE, "Foyer B"}));
+        ledger = new OccupancyLedger(chambreRepository);
+        index = new AvailabilityIndex(chambreRepository, ledger);
+        ledger.initialiser();
+        index.initialiser();
+    }
+
+    @Test
+    void testChambresLibres_byFoyerAndType() {
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.DOUBLE)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.SIMPLE)).containsExactly(1L);
+        assertThat(index.chambresLibres("Foyer B", TypeChambre.TRIPLE)).isEmpty();
+        assertThat(index.chambresLibres("Foyer C", TypeChambre.DOUBLE)).isEmpty();
+        verify(chambreRepository, never())
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    void testReservationsUpdateIndexIncrementally() {
+        assertThat(ledger.tryReserve(2L, aujourdhui, 2)).isTrue();
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.DOUBLE)).containsExactlyInAnyOrder(2L, 3L);
+
+        assertThat(ledger.tryReserve(2L, aujourdhui, 2)).isTrue();
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.DOUBLE)).containsExactly(3L);
+
+        ledger.release(2L, aujourdhui);
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.DOUBLE)).containsExactlyInAnyOrder(2L, 3L);
+
+        ledger.record(1L, aujourdhui);
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.SIMPLE)).isEmpty();
+
+        // Mise à jour incrémentale : l'emplacement n'est lu qu'une fois
+        verify(chambreRepository, times(1)).findEmplacements();
+    }
+
+    @Test
+    void testOtherYearDoesNotChangeIndex() {
+        ledger.record(1L, aujourdhui.minusYears(1));
+
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.SIMPLE)).containsExactly(1L);
+    }
+
+    @Test
+    void testInvaliderRebuildsOnNextQuery() {
+        when(chambreRepository.findEmplacements()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, TypeChambre.SIMPLE, "Foyer B"}));
+
+        index.invalider();
+
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.SIMPLE)).isEmpty();
+        assertThat(index.chambresLibres("Foyer B", TypeChambre.SIMPLE)).containsExactly(1L);
+        verify(chambreRepository, times(2)).findEmplacements();
+    }
+
+    // Nouvelle année universitaire sans redémarrage : le registre ne la connaît pas encore
+    @Test
+    void testRebuildLoadsAnUnknownYearWithOneGroupedQuery() {
+        int annee = OccupancyLedger.anneeUniversitaire(aujourdhui);
+        when(chambreRepository.countReservationsParChambreEtDateDepuis(any())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, OccupancyLedger.debutAnneeUniversitaire(annee), 1L},
+                new Object[]{2L, OccupancyLedger.debutAnneeUniversitaire(annee), 2L}));
+        OccupancyLedger nouveauLedger = new OccupancyLedger(chambreRepository);
+        AvailabilityIndex nouvelIndex = new AvailabilityIndex(chambreRepository, nouveauLedger);
+
+        nouvelIndex.initialiser();
+
+        assertThat(nouvelIndex.chambresLibres("Foyer A", TypeChambre.SIMPLE)).isEmpty();
+        assertThat(nouvelIndex.chambresLibres("Foyer A", TypeChambre.DOUBLE)).containsExactly(3L);
+        // Une requête au setup, une pour l'année inconnue ; aucun COUNT par chambre
+        verify(chambreRepository, times(2)).countReservationsParChambreEtDateDepuis(any());
+        verify(chambreRepository, never())
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    void testInvalidationDuringRebuildIsNotLost() {
+        // Un commit invalide l'index pendant que la reconstruction lit encore l'ancien emplacement
+        when(chambreRepository.findEmplacements())
+                .thenAnswer(invocation -> {
+                    index.invalider();
+                    return List.<Object[]>of(new Object[]{1L, TypeChambre.SIMPLE, "Foyer A"});
+                })
+                .thenReturn(List.<Object[]>of(new Object[]{1L, TypeChambre.SIMPLE, "Foyer B"}));
+
+        index.invalider();
+
+        assertThat(index.chambresLibres("Foyer A", TypeChambre.SIMPLE)).isEmpty();
+        assertThat(index.chambresLibres("Foyer B", TypeChambre.SIMPLE)).containsExactly(1L);
+        verify(chambreRepository, times(3)).findEmplacements();
+    }
+}
@@ -9,13 +9,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ChambreVue;
 import tn.esprit.spring.restcontrollers.ChambreRestController;
 import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.PlacesDisponibles;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -35,26 +39,45 @@ class ChambreControllerTest {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private Chambre sampleChambre;
+    private ChambreVue sampleVue;
 
     @BeforeEach
     void setup() {
         mockMvc = MockMvcBuilders.standaloneSetup(chambreRestController).build();
-        sampleChambre = new Chambre(1L, 101, TypeChambre.DOUBLE, null, null);
+        sampleChambre = new Chambre(1L, 101, TypeChambre.DOUBLE, null, null, null);
+        sampleVue = new ChambreVue(1L, 101, TypeChambre.DOUBLE);
     }
 
     @Test
-    void testFindAll() throws Exception {
-        when(chambreService.findAll()).thenReturn(List.of(sampleChambre));
+    void testFindAll_Unpaged() throws Exception {
+        when(chambreService.findAllVues()).thenReturn(List.of(sampleVue));
 
-        mockMvc.perform(get("/chambre/findAll"))
+        mockMvc.perform(get("/chambre/findAll").param("nonPagine", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].idChambre").value(1))
                 .andExpect(jsonPath("$[0].typeC").value("DOUBLE"));
     }
 
+    @Test
+    void testFindAll_CapsPageSizeAndStopsOnShortPage() throws Exception {
+        when(chambreService.findAll(Long.MIN_VALUE, 500)).thenReturn(List.of(sampleVue));
+
+        mockMvc.perform(get("/chambre/findAll").param("taille", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].idChambre").value(1))
+                .andExpect(header().doesNotExist("X-Curseur-Suivant"));
+    }
+
+    @Test
+    void testFindAll_RejectsInvalidCursor() throws Exception {
+        mockMvc.perform(get("/chambre/findAll").param("curseur", "pas-un-curseur!"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(chambreService);
+    }
+
     @Test
     void testFindById() throws Exception {
-        when(chambreService.findById(1L)).thenReturn(sampleChambre);
+        when(chambreService.findVueById(1L)).thenReturn(sampleVue);
 
         mockMvc.perform(get("/chambre/findById").param("id", "1"))
                 .andExpect(status().isOk())
@@ -97,7 +120,7 @@ class ChambreControllerTest {
 
     @Test
     void testGetChambresParNomBloc() throws Exception {
-        when(chambreService.getChambresParNomBloc("Bloc A")).thenReturn(List.of(sampleChambre));
+        when(chambreService.getVuesChambresParNomBloc("Bloc A")).thenReturn(List.of(sampleVue));
 
         mockMvc.perform(get("/chambre/getChambresParNomBloc").param("nomBloc", "Bloc A"))
                 .andExpect(status().isOk())
@@ -117,8 +140,8 @@ class ChambreControllerTest {
 
     @Test
     void testGetChambresNonReserveParNomFoyerEtTypeChambre() throws Exception {
-        when(chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("Foyer X", TypeChambre.DOUBLE))
-                .thenReturn(List.of(sampleChambre));
+        when(chambreService.getVuesChambresNonReserveParNomFoyerEtTypeChambre("Foyer X", TypeChambre.DOUBLE))
+                .thenReturn(List.of(sampleVue));
 
         mockMvc.perform(get("/chambre/getChambresNonReserveParNomFoyerEtTypeChambre")
                         .param("nomFoyer", "Foyer X")
@@ -126,4 +149,45 @@ class ChambreControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].idChambre").value(1));
     }
+
+    @Test
+    void testNbPlacesDisponibleParChambreAnneeEnCours_Csv() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PlacesDisponibles> rapport = invocation.getArgument(0);
+            rapport.accept(PlacesDisponibles.of(1L, 101L, TypeChambre.DOUBLE, 1L));
+            return null;
+        }).when(chambreService).nbPlacesDisponibleParChambreAnneeEnCours(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/chambre/nbPlacesDisponibleParChambreAnneeEnCours").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("idChambre,numeroChambre,typeC,capacite,reservationsValides,placesDisponibles\n"
+                        + "1,101,DOUBLE,2,1,1\n"));
+    }
+
+    @Test
+    void testNbPlacesDisponibleParChambreAnneeEnCours_Json() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PlacesDisponibles> rapport = invocation.getArgument(0);
+            rapport.accept(PlacesDisponibles.of(1L, 101L, TypeChambre.DOUBLE, 2L));
+            rapport.accept(PlacesDisponibles.of(2L, 102L, TypeChambre.TRIPLE, 0L));
+            return null;
+        }).when(chambreService).nbPlacesDisponibleParChambreAnneeEnCours(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/chambre/nbPlacesDisponibleParChambreAnneeEnCours"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].placesDisponibles").value(0))
+                .andExpect(jsonPath("$[1].typeC").value("TRIPLE"))
+                .andExpect(jsonPath("$[1].placesDisponibles").value(3));
+    }
 }
@@ -0,0 +1,87 @@
+package tn.esprit.spring.Chambre;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.projections.ReservationVue;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTest
+class ChambreRepositoryTest {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2024, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2025, 6, 30);
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+
+    @Test
+    void testCountReservationsValidesParChambre_includesEmptyRoomsAndIgnoresOtherReservations() {
+        Reservation valide = reservationRepository.save(reservation("R1", LocalDate.of(2024, 10, 1), true));
+        Reservation annulee = reservationRepository.save(reservation("R2", LocalDate.of(2024, 10, 2), false));
+        Reservation ancienne = reservationRepository.save(reservation("R3", LocalDate.of(2023, 10, 1), true));
+        Chambre occupee = chambreRepository.save(Chambre.builder().numeroChambre(1).typeC(TypeChambre.DOUBLE)
+                .reservations(Set.of(valide, annulee, ancienne)).build());
+        Chambre vide = chambreRepository.save(Chambre.builder().numeroChambre(2).typeC(TypeChambre.SIMPLE).build());
+
+        List<Object[]> lignes;
+        try (Stream<Object[]> stream = chambreRepository.countReservationsValidesParChambre(DEBUT_AU, FIN_AU)) {
+            lignes = stream.toList();
+        }
+
+        assertThat(lignes).hasSize(2);
+        assertThat(lignes.get(0)).containsExactly(occupee.getIdChambre(), 1L, TypeChambre.DOUBLE, 1L);
+        assertThat(lignes.get(1)).containsExactly(vide.getIdChambre(), 2L, TypeChambre.SIMPLE, 0L);
+    }
+
+    @Test
+    void testFindModifieesDepuis_usesUpdateTimestamp() {
+        Bloc bloc = blocRepository.save(Bloc.builder().nomBloc("BlocA").capaciteBloc(10).build());
+        chambreRepository.saveAndFlush(Chambre.builder().numeroChambre(1).typeC(TypeChambre.SIMPLE).bloc(bloc).build());
+        LocalDateTime repere = LocalDateTime.now();
+        assertThat(chambreRepository.findModifieesDepuis(repere)).isEmpty();
+
+        chambreRepository.saveAndFlush(Chambre.builder().numeroChambre(2).typeC(TypeChambre.DOUBLE).bloc(bloc).build());
+
+        assertThat(chambreRepository.findModifieesDepuis(repere))
+                .singleElement()
+                .satisfies(l -> assertThat(l).containsExactly(2L, TypeChambre.DOUBLE, "BlocA"));
+        assertThat(blocRepository.findModifiesDepuis(repere)).isEmpty();
+    }
+
+    @Test
+    void testFindVuesApres_walksReservationPagesInKeyOrder() {
+        for (String id : List.of("R3", "R1", "R2")) {
+            reservationRepository.save(reservation(id, LocalDate.of(2024, 10, 1), true));
+        }
+
+        List<ReservationVue> premiere = reservationRepository.findVuesApres("", PageRequest.of(0, 2));
+        List<ReservationVue> seconde = reservationRepository.findVuesApres("R2", PageRequest.of(0, 2));
+
+        assertThat(premiere).extracting(ReservationVue::idReservation).containsExactly("R1", "R2");
+        assertThat(seconde).extracting(ReservationVue::idReservation).containsExactly("R3");
+    }
+
+    private static Reservation reservation(String id, LocalDate date, boolean estValide) {
+        return Reservation.builder().idReservation(id).anneeUniversitaire(date).estValide(estValide).build();
+    }
+}
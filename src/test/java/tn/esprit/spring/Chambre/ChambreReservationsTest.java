@@ -0,0 +1,150 @@
+package tn.esprit.spring.Chambre;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ajouter ou retirer une réservation d'une chambre n'écrit qu'une ligne de la table de
+ * jointure, quel que soit le nombre de réservations déjà rattachées. Sans lots JDBC,
+ * chaque ligne écrite est une instruction.
+ */
+@FoyerJpaTestSansTransaction
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "tn.esprit.spring.Chambre.ChambreReservationsTest$Instructions"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ChambreReservationsTest {
+
+    private static final int NB_RESERVATIONS = 50;
+    private static final String JOINTURE_CHAMBRE = "t_chambre_reservations";
+    private static final String JOINTURE_ETUDIANTS = "t_reservation_etudiants";
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private long idChambre;
+
+    @BeforeEach
+    void setup() {
+        Set<Reservation> reservations = new HashSet<>();
+        for (int i = 1; i <= NB_RESERVATIONS; i++) {
+            reservations.add(reservationRepository.save(reservation("R" + i)));
+        }
+        reservationRepository.save(reservation("R-nouvelle"));
+        idChambre = chambreRepository.save(Chambre.builder().numeroChambre(101).typeC(TypeChambre.TRIPLE)
+                .reservations(reservations).build()).getIdChambre();
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void testAjouterReservation_insertsOneJoinRow() {
+        List<String> ecritures = ecritures(JOINTURE_CHAMBRE, () -> {
+            Chambre chambre = chambreRepository.findById(idChambre).orElseThrow();
+            chambre.getReservations().add(reservationRepository.findById("R-nouvelle").orElseThrow());
+            chambreRepository.save(chambre);
+        });
+
+        assertThat(ecritures).hasSize(1);
+        assertThat(ecritures.get(0)).startsWith("insert");
+        assertThat(nombreDeReservations()).isEqualTo(NB_RESERVATIONS + 1);
+    }
+
+    @Test
+    void testRetirerReservation_deletesOneJoinRow() {
+        List<String> ecritures = ecritures(JOINTURE_CHAMBRE, () -> {
+            Chambre chambre = chambreRepository.findById(idChambre).orElseThrow();
+            assertThat(chambre.getReservations().remove(reservationRepository.findById("R7").orElseThrow())).isTrue();
+            chambreRepository.save(chambre);
+        });
+
+        assertThat(ecritures).hasSize(1);
+        assertThat(ecritures.get(0)).startsWith("delete");
+        assertThat(nombreDeReservations()).isEqualTo(NB_RESERVATIONS - 1);
+    }
+
+    @Test
+    void testAjouterReservationDejaPresente_writesNothing() {
+        List<String> ecritures = ecritures(JOINTURE_CHAMBRE, () -> {
+            Chambre chambre = chambreRepository.findById(idChambre).orElseThrow();
+            assertThat(chambre.getReservations().add(reservationRepository.findById("R3").orElseThrow())).isFalse();
+            chambreRepository.save(chambre);
+        });
+
+        assertThat(ecritures).isEmpty();
+    }
+
+    @Test
+    void testAjouterEtudiant_insertsOneJoinRowWithoutLoadingTheEtudiant() {
+        long idEtudiant = etudiantRepository.save(Etudiant.builder().nomEt("Ben Ali").prenomEt("Sami")
+                .cin(12345678).build()).getIdEtudiant();
+
+        List<String> ecritures = ecritures(JOINTURE_ETUDIANTS, () -> {
+            Reservation reservation = reservationRepository.findById("R-nouvelle").orElseThrow();
+            reservation.getEtudiants().add(etudiantRepository.getReferenceById(idEtudiant));
+            // Même identifiant : l'étudiant n'est pas ajouté deux fois
+            reservation.getEtudiants().add(etudiantRepository.getReferenceById(idEtudiant));
+        });
+
+        assertThat(ecritures).hasSize(1);
+        assertThat(Instructions.executees).noneMatch(sql -> sql.contains("from t_etudiant "));
+    }
+
+    private List<String> ecritures(String table, Runnable operation) {
+        Instructions.executees.clear();
+        transaction.executeWithoutResult(statut -> operation.run());
+        return Instructions.executees.stream()
+                .filter(sql -> sql.contains(table) && !sql.startsWith("select"))
+                .toList();
+    }
+
+    private int nombreDeReservations() {
+        return transaction.execute(statut ->
+                chambreRepository.findById(idChambre).orElseThrow().getReservations().size());
+    }
+
+    private static Reservation reservation(String id) {
+        return Reservation.builder().idReservation(id).anneeUniversitaire(LocalDate.of(2024, 10, 1))
+                .estValide(true).etudiants(new HashSet<>()).build();
+    }
+
+    public static class Instructions implements StatementInspector {
+        static final List<String> executees = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            executees.add(sql.toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+}
@@ -8,7 +8,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tn.esprit.spring.dao.entities.*;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
 import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.PlacesDisponibles;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.export.NdjsonExporter;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,10 +22,13 @@ import static org.mockito.Mockito.*;
 
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 class ChambreServiceTest {
@@ -30,6 +39,21 @@ class ChambreServiceTest {
     @Mock
     private BlocRepository blocRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomTypeCounters roomTypeCounters;
+
+    @Mock
+    private RoomTypeDistribution roomTypeDistribution;
+
+    @Mock
+    private NdjsonExporter ndjsonExporter;
+
+    @Mock
+    private NaturalKeyCache cles;
+
     // Use real service with injected mocks:
     private ChambreService chambreService;
 
@@ -41,11 +65,11 @@ class ChambreServiceTest {
         MockitoAnnotations.openMocks(this);
 
         // Initialize sample data
-        sampleBloc = new Bloc(1L, "Bloc A", 10, null, null);
-        sampleChambre = new Chambre(1L, 101, TypeChambre.DOUBLE, sampleBloc, new ArrayList<>());
+        sampleBloc = new Bloc(1L, "Bloc A", 10, null, null, null);
+        sampleChambre = new Chambre(1L, 101, TypeChambre.DOUBLE, sampleBloc, new HashSet<>(), null);
 
         // Instantiate real service and inject mocks
-        chambreService = new ChambreService(chambreRepository,chambreRepository, blocRepository);
+        chambreService = new ChambreService(chambreRepository,chambreRepository, blocRepository, availabilityIndex, roomTypeCounters, roomTypeDistribution, ndjsonExporter, cles);
     }
 
     @Test
@@ -109,88 +133,75 @@ class ChambreServiceTest {
 
     @Test
     void testNbChambreParTypeEtBloc() {
-        Chambre ch2 = new Chambre(2L, 102, TypeChambre.DOUBLE, sampleBloc, new ArrayList<>());
-
-        when(chambreRepository.findAll()).thenReturn(List.of(sampleChambre, ch2));
+        when(roomTypeCounters.nombre(TypeChambre.DOUBLE, sampleBloc.getIdBloc())).thenReturn(2L);
 
         long count = chambreService.nbChambreParTypeEtBloc(TypeChambre.DOUBLE, sampleBloc.getIdBloc());
 
         assertEquals(2, count);
+        verify(chambreRepository, never()).findAll();
     }
     @Test
-    void testNbChambreParTypeEtBloc_FullCoverage() {
-        // Chambre matching both idBloc and type
-        Chambre ch1 = new Chambre(1L, 101, TypeChambre.DOUBLE, sampleBloc, new ArrayList<>());
-
-        // Chambre with same idBloc but different type
-        Chambre ch2 = new Chambre(2L, 102, TypeChambre.SIMPLE, sampleBloc, new ArrayList<>());
-
-        // Chambre with same type but different bloc id
-        Bloc otherBloc = new Bloc();
-        otherBloc.setIdBloc(999L);
-        Chambre ch3 = new Chambre(3L, 103, TypeChambre.DOUBLE, otherBloc, new ArrayList<>());
-
-        when(chambreRepository.findAll()).thenReturn(List.of(ch1, ch2, ch3));
+    void testAddOrUpdateAndDelete_UpdateRoomTypeCounters() {
+        when(chambreRepository.save(sampleChambre)).thenReturn(sampleChambre);
 
-        long count = chambreService.nbChambreParTypeEtBloc(TypeChambre.DOUBLE, sampleBloc.getIdBloc());
+        chambreService.addOrUpdate(sampleChambre);
+        chambreService.delete(sampleChambre);
+        chambreService.deleteById(2L);
 
-        // Only ch1 matches both conditions, so count should be 1
-        assertEquals(1, count);
+        verify(roomTypeCounters).enregistrer(sampleChambre);
+        verify(roomTypeCounters).retirer(1L);
+        verify(roomTypeCounters).retirer(2L);
+        verify(roomTypeDistribution, times(3)).invalider();
     }
 
 
+    @Test
+    void testNbPlacesDisponibleParChambreAnneeEnCours_usesOneGroupedQuery() {
+        when(chambreRepository.countReservationsValidesParChambre(any(), any())).thenReturn(Stream.of(
+                new Object[]{1L, 101L, TypeChambre.DOUBLE, 1L},
+                new Object[]{2L, 102L, TypeChambre.SIMPLE, 1L},
+                new Object[]{3L, 103L, TypeChambre.TRIPLE, 0L}));
+        List<PlacesDisponibles> rapport = new ArrayList<>();
+
+        chambreService.nbPlacesDisponibleParChambreAnneeEnCours(rapport::add);
+
+        assertEquals(List.of(
+                new PlacesDisponibles(1L, 101L, TypeChambre.DOUBLE, 2, 1, 1),
+                new PlacesDisponibles(2L, 102L, TypeChambre.SIMPLE, 1, 1, 0),
+                new PlacesDisponibles(3L, 103L, TypeChambre.TRIPLE, 3, 0, 3)), rapport);
+        assertTrue(rapport.get(1).complete());
+        verify(chambreRepository, never()).findAll();
+        verify(chambreRepository, never()).countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(
+                anyLong(), anyBoolean(), any(), any());
+    }
     @Test
     void testGetChambresNonReserveParNomFoyerEtTypeChambre() {
-        Foyer foyer = new Foyer();
-        foyer.setNomFoyer("Foyer A");
-        sampleBloc.setFoyer(foyer);
+        Chambre ch = new Chambre(1L, 101, TypeChambre.SIMPLE, sampleBloc, new HashSet<>(), null);
 
-        Chambre ch = new Chambre(1L, 101, TypeChambre.SIMPLE, sampleBloc, new ArrayList<>());
-
-        when(chambreRepository.findAll()).thenReturn(List.of(ch));
+        when(availabilityIndex.chambresLibres("Foyer A", TypeChambre.SIMPLE)).thenReturn(Set.of(1L));
+        when(chambreRepository.findAllById(Set.of(1L))).thenReturn(List.of(ch));
 
         List<Chambre> result = chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("Foyer A", TypeChambre.SIMPLE);
 
         assertEquals(1, result.size());
+        verify(chambreRepository, never()).findAll();
     }
     @Test
-    void testGetChambresNonReserveParNomFoyerEtTypeChambre_FullCoverage() {
-        // Mock current date
-        LocalDate fakeNow = LocalDate.of(2024, 3, 1);
-        try (MockedStatic<LocalDate> mocked = mockStatic(LocalDate.class)) {
-            mocked.when(LocalDate::now).thenReturn(fakeNow);
-
-            // Setup foyer and bloc
-            Foyer foyer = new Foyer();
-            foyer.setNomFoyer("Foyer A");
-            Bloc bloc = new Bloc();
-            bloc.setFoyer(foyer);
-
-            // Create test data - ALL reservations must have non-null dates
-            Reservation validRes = new Reservation();
-            validRes.setAnneeUniversitaire(LocalDate.of(2024, 1, 15));
-            validRes.setEstValide(true);
-
-            // Test chambres
-            Chambre chambre1 = new Chambre();
-            chambre1.setTypeC(TypeChambre.SIMPLE);
-            chambre1.setBloc(bloc);
-            chambre1.setReservations(List.of(validRes)); // 1 reservation (capacity = 1)
-
-            Chambre chambre2 = new Chambre();
-            chambre2.setTypeC(TypeChambre.DOUBLE);
-            chambre2.setBloc(bloc);
-            chambre2.setReservations(new ArrayList<>()); // Empty list
-
-            when(chambreRepository.findAll()).thenReturn(List.of(chambre1, chambre2));
-
-            // Test
-            List<Chambre> result = chambreService.getChambresNonReserveParNomFoyerEtTypeChambre(
-                    "Foyer A", TypeChambre.DOUBLE);
-
-            assertEquals(1, result.size());
-            assertEquals(chambre2, result.get(0));
-        }
+    void testGetChambresNonReserveParNomFoyerEtTypeChambre_NoFreeRoom() {
+        when(availabilityIndex.chambresLibres("Foyer A", TypeChambre.DOUBLE)).thenReturn(Set.of());
+
+        List<Chambre> result = chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("Foyer A", TypeChambre.DOUBLE);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(chambreRepository);
+    }
+    @Test
+    void testAddOrUpdate_InvalidatesAvailabilityIndex() {
+        when(chambreRepository.save(sampleChambre)).thenReturn(sampleChambre);
+
+        chambreService.addOrUpdate(sampleChambre);
+
+        verify(availabilityIndex).invalider();
     }
     @Test
     void testIsMatchingFoyerAndType_ShouldReturnTrue() {
@@ -235,7 +246,7 @@ class ChambreServiceTest {
     void testIsChambreAvailable_SimpleChambre_NoReservations_ShouldReturnTrue() {
         Chambre chambre = new Chambre();
         chambre.setTypeC(TypeChambre.SIMPLE);
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         boolean result = chambreService.isChambreAvailable(chambre, LocalDate.now().minusDays(1), LocalDate.now().plusDays(1));
         assertTrue(result);
@@ -245,7 +256,7 @@ class ChambreServiceTest {
     void testIsChambreAvailable_DoubleChambre_OneReservationInRange_ShouldReturnTrue() {
         Chambre chambre = new Chambre();
         chambre.setTypeC(TypeChambre.DOUBLE);
-        chambre.setReservations(List.of(new Reservation())); // 1 in range
+        chambre.setReservations(Set.of(new Reservation())); // 1 in range
         boolean result = chambreService.isChambreAvailable(chambre, LocalDate.now().minusDays(1), LocalDate.now().plusDays(1));
         assertTrue(result);
     }
@@ -254,7 +265,7 @@ class ChambreServiceTest {
     void testIsChambreAvailable_TripleChambre_ThreeReservationsInRange_ShouldReturnFalse() {
         Chambre chambre = new Chambre();
         chambre.setTypeC(TypeChambre.TRIPLE);
-        ArrayList<Reservation> reservations = new ArrayList<>();
+        Set<Reservation> reservations = new HashSet<>();
         LocalDate now = LocalDate.now();
         for(int i = 0; i < 3; i++) {
             Reservation r = new Reservation();
@@ -277,44 +288,44 @@ class ChambreServiceTest {
 
 
     @Test
-    void testListeChambresParBloc() {
-        // Mock some blocs and chambres
-        Chambre chambre1 = new Chambre();
-        chambre1.setNumeroChambre(101L);
-        chambre1.setTypeC(TypeChambre.SIMPLE);
-
-        Bloc bloc1 = new Bloc();
-        bloc1.setNomBloc("Bloc A");
-        bloc1.setCapaciteBloc(10);
-        bloc1.setChambres(List.of(chambre1));
-
-        Bloc bloc2 = new Bloc();
-        bloc2.setNomBloc("Bloc B");
-        bloc2.setCapaciteBloc(5);
-        bloc2.setChambres(Collections.emptyList());
+    void testListeChambresParBloc_FirstRunOnlyLogsTotals() {
+        chambreService.listeChambresParBloc();
 
-        when(blocRepository.findAll()).thenReturn(List.of(bloc1, bloc2));
+        verify(blocRepository).count();
+        verify(chambreRepository).count();
+        verify(blocRepository, never()).findAll();
+        verify(blocRepository, never()).findModifiesDepuis(any());
+        verify(chambreRepository, never()).findModifieesDepuis(any());
+    }
+    @Test
+    void testListeChambresParBloc_ReportsChangesSincePreviousRun() {
+        when(blocRepository.findModifiesDepuis(any())).thenReturn(List.<Object[]>of(new Object[]{"Bloc A", 10L}));
+        when(chambreRepository.findModifieesDepuis(any())).thenReturn(List.of(
+                new Object[]{101L, TypeChambre.SIMPLE, "Bloc A"},
+                new Object[]{102L, TypeChambre.DOUBLE, "Bloc A"}));
 
-        // Call method
+        LocalDateTime avant = LocalDateTime.now();
+        chambreService.listeChambresParBloc();
         chambreService.listeChambresParBloc();
 
-        // Optionally verify blocRepository called once
-        verify(blocRepository, times(1)).findAll();
+        ArgumentCaptor<LocalDateTime> depuis = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(chambreRepository).findModifieesDepuis(depuis.capture());
+        assertFalse(depuis.getValue().isBefore(avant));
+        verify(blocRepository).findModifiesDepuis(depuis.getValue());
+        verify(blocRepository, never()).findAll();
     }
     @Test
     void testPourcentageChambreParTypeChambre() {
-        // Mock counts
-        when(chambreRepository.count()).thenReturn(10L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.SIMPLE)).thenReturn(4L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.DOUBLE)).thenReturn(3L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.TRIPLE)).thenReturn(3L);
+        // Répartition en cache : aucune requête de comptage
+        when(roomTypeDistribution.total()).thenReturn(10L);
+        when(roomTypeDistribution.pourcentage(any(TypeChambre.class))).thenReturn(40.0, 30.0, 30.0);
 
         chambreService.pourcentageChambreParTypeChambre();
 
-        verify(chambreRepository, times(1)).count();
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.SIMPLE);
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.DOUBLE);
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.TRIPLE);
+        verify(roomTypeDistribution).pourcentage(TypeChambre.SIMPLE);
+        verify(roomTypeDistribution).pourcentage(TypeChambre.DOUBLE);
+        verify(roomTypeDistribution).pourcentage(TypeChambre.TRIPLE);
+        verifyNoInteractions(chambreRepository);
     }
 
 
@@ -5,7 +5,7 @@ import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
 
-import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,7 +20,7 @@ class ChambreTest {
     @Test
      void testAllArgsConstructor() {
         Bloc bloc = Bloc.builder().idBloc(1L).nomBloc("Bloc A").build();
-        Chambre chambre = new Chambre(1L, 101L, TypeChambre.SIMPLE, bloc, List.of());
+        Chambre chambre = new Chambre(1L, 101L, TypeChambre.SIMPLE, bloc, Set.of(), null);
 
         assertThat(chambre.getIdChambre()).isEqualTo(1L);
         assertThat(chambre.getNumeroChambre()).isEqualTo(101L);
@@ -38,7 +38,7 @@ class ChambreTest {
                 .numeroChambre(202L)
                 .typeC(TypeChambre.DOUBLE)
                 .bloc(bloc)
-                .reservations(List.of())
+                .reservations(Set.of())
                 .build();
 
         assertThat(chambre.getIdChambre()).isEqualTo(2L);
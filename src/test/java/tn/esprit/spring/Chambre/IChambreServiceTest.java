@@ -11,7 +11,11 @@ import tn.esprit.spring.dao.entities.Chambre;
 import tn.esprit.spring.dao.entities.TypeChambre;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
 import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.*;
 
@@ -27,6 +31,18 @@ class IChambreServiceTest {
     @Mock
     private BlocRepository blocRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomTypeCounters roomTypeCounters;
+
+    @Mock
+    private RoomTypeDistribution roomTypeDistribution;
+
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private ChambreService chambreService;
 
@@ -34,7 +50,7 @@ class IChambreServiceTest {
 
     @BeforeEach
     void setup() {
-        sampleChambre = new Chambre(1L, 101, TypeChambre.SIMPLE, null, new ArrayList<>());
+        sampleChambre = new Chambre(1L, 101, TypeChambre.SIMPLE, null, new HashSet<>(), null);
     }
 
     @Test
@@ -81,12 +97,7 @@ class IChambreServiceTest {
 
     @Test
     void testNbChambreParTypeEtBloc() {
-        sampleChambre.setTypeC(TypeChambre.DOUBLE);
-        Bloc bloc = new Bloc();
-        bloc.setIdBloc(2L);
-        sampleChambre.setBloc(bloc);
-
-        when(chambreRepository.findAll()).thenReturn(List.of(sampleChambre));
+        when(roomTypeCounters.nombre(TypeChambre.DOUBLE, 2L)).thenReturn(1L);
         long count = chambreService.nbChambreParTypeEtBloc(TypeChambre.DOUBLE, 2L);
         assertEquals(1, count);
     }
@@ -97,7 +108,7 @@ class IChambreServiceTest {
         bloc.setNomBloc("Bloc A");
         bloc.setChambres(List.of(sampleChambre));
 
-        when(blocRepository.findByNomBloc("Bloc A")).thenReturn(bloc);
+        when(blocRepository.findAvecChambresByNomBloc("Bloc A")).thenReturn(bloc);
         List<Chambre> result = chambreService.getChambresParNomBlocJava("Bloc A");
         assertEquals(1, result.size());
     }
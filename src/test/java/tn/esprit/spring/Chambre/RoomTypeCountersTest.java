@@ -0,0 +1,112 @@
+package tn.esprit.spring.Chambre;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTest
+class RoomTypeCountersTest {
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+
+    private RoomTypeCounters compteurs;
+    private Bloc blocA;
+    private Bloc blocB;
+
+    @BeforeEach
+    void setup() {
+        blocA = blocRepository.save(Bloc.builder().nomBloc("BlocA").capaciteBloc(10).build());
+        blocB = blocRepository.save(Bloc.builder().nomBloc("BlocB").capaciteBloc(10).build());
+        chambreRepository.save(Chambre.builder().numeroChambre(1).typeC(TypeChambre.DOUBLE).bloc(blocA).build());
+        chambreRepository.save(Chambre.builder().numeroChambre(2).typeC(TypeChambre.DOUBLE).bloc(blocA).build());
+        chambreRepository.save(Chambre.builder().numeroChambre(3).typeC(TypeChambre.SIMPLE).bloc(blocB).build());
+        compteurs = new RoomTypeCounters(chambreRepository);
+    }
+
+    @Test
+    void testNombre_fallsBackToDatabaseBeforeLoading() {
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(2);
+    }
+
+    @Test
+    void testNombre_afterLoading() {
+        compteurs.initialiser();
+
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(2);
+        assertThat(compteurs.nombre(TypeChambre.SIMPLE, blocA.getIdBloc())).isZero();
+        assertThat(compteurs.nombre(TypeChambre.SIMPLE, blocB.getIdBloc())).isEqualTo(1);
+        assertThat(compteurs.nombre(TypeChambre.TRIPLE, 999L)).isZero();
+    }
+
+    @Test
+    void testEnregistrerEtRetirer_moveRoomsBetweenCounters() {
+        compteurs.initialiser();
+
+        // Changement de bloc et de type
+        Chambre chambre = chambreRepository.findByNumeroChambre(1);
+        chambre.setBloc(blocB);
+        chambre.setTypeC(TypeChambre.SIMPLE);
+        compteurs.enregistrer(chambreRepository.save(chambre));
+        // Nouvelle chambre ; un second enregistrement ne la compte pas deux fois
+        Chambre nouvelle = chambreRepository.save(
+                Chambre.builder().numeroChambre(4).typeC(TypeChambre.TRIPLE).bloc(blocA).build());
+        compteurs.enregistrer(nouvelle);
+        compteurs.enregistrer(nouvelle);
+        compteurs.retirer(chambreRepository.findByNumeroChambre(3).getIdChambre());
+
+        // Rien n'est appliqué avant le commit
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(2);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(1);
+        assertThat(compteurs.nombre(TypeChambre.TRIPLE, blocA.getIdBloc())).isEqualTo(1);
+        assertThat(compteurs.nombre(TypeChambre.SIMPLE, blocB.getIdBloc())).isEqualTo(1);
+        // Données validées : nettoyées pour les autres tests du contexte
+        chambreRepository.deleteAll();
+        blocRepository.deleteAll();
+    }
+
+    @Test
+    void testRollback_leavesCountersUntouched() {
+        compteurs.initialiser();
+
+        Chambre chambre = chambreRepository.findByNumeroChambre(1);
+        chambre.setBloc(blocB);
+        compteurs.enregistrer(chambreRepository.save(chambre));
+        compteurs.enregistrer(chambreRepository.save(
+                Chambre.builder().numeroChambre(4).typeC(TypeChambre.DOUBLE).bloc(blocA).build()));
+        compteurs.retirer(chambreRepository.findByNumeroChambre(2).getIdChambre());
+        TestTransaction.end();
+
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(2);
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocB.getIdBloc())).isZero();
+        assertThat(compteurs.nombre(TypeChambre.SIMPLE, blocB.getIdBloc())).isEqualTo(1);
+    }
+
+    @Test
+    void testReconcilier_detectsAndRepairsDrift() {
+        compteurs.initialiser();
+        assertThat(compteurs.reconcilier()).isZero();
+
+        // Ecriture qui ne passe pas par les services
+        chambreRepository.save(Chambre.builder().numeroChambre(5).typeC(TypeChambre.DOUBLE).bloc(blocA).build());
+
+        assertThat(compteurs.reconcilier()).isEqualTo(1);
+        assertThat(compteurs.nombre(TypeChambre.DOUBLE, blocA.getIdBloc())).isEqualTo(3);
+        assertThat(compteurs.reconcilier()).isZero();
+    }
+}
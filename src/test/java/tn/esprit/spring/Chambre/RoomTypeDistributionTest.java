@@ -0,0 +1,83 @@
+package tn.esprit.spring.Chambre;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomTypeDistributionTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RoomTypeDistribution distribution;
+
+    @BeforeEach
+    void setup() {
+        distribution = new RoomTypeDistribution(chambreRepository, registry);
+    }
+
+    @Test
+    void testGaugesServedFromOneCachedGroupBy() {
+        when(chambreRepository.countChambresParType()).thenReturn(List.of(
+                new Object[]{TypeChambre.SIMPLE, 2L},
+                new Object[]{TypeChambre.DOUBLE, 6L}));
+
+        assertThat(registry.get("foyer.chambres").tag("type", "SIMPLE").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("foyer.chambres").tag("type", "TRIPLE").gauge().value()).isZero();
+        assertThat(registry.get("foyer.chambres.pourcentage").tag("type", "DOUBLE").gauge().value()).isEqualTo(75.0);
+        assertThat(distribution.total()).isEqualTo(8);
+
+        verify(chambreRepository, times(1)).countChambresParType();
+    }
+
+    @Test
+    void testInvaliderRefreshesOnNextRead() {
+        when(chambreRepository.countChambresParType())
+                .thenReturn(List.<Object[]>of(new Object[]{TypeChambre.SIMPLE, 1L}))
+                .thenReturn(List.of(new Object[]{TypeChambre.SIMPLE, 1L}, new Object[]{TypeChambre.TRIPLE, 1L}));
+
+        assertThat(distribution.pourcentage(TypeChambre.SIMPLE)).isEqualTo(100.0);
+        distribution.invalider();
+        distribution.invalider();
+
+        assertThat(distribution.pourcentage(TypeChambre.SIMPLE)).isEqualTo(50.0);
+        assertThat(distribution.nombre(TypeChambre.TRIPLE)).isEqualTo(1);
+        verify(chambreRepository, times(2)).countChambresParType();
+    }
+
+    @Test
+    void testInvalidationDuringQueryIsNotLost() {
+        // Un commit invalide la répartition pendant que le GROUP BY lit encore l'ancien état
+        when(chambreRepository.countChambresParType())
+                .thenAnswer(invocation -> {
+                    distribution.invalider();
+                    return List.<Object[]>of(new Object[]{TypeChambre.SIMPLE, 1L});
+                })
+                .thenReturn(List.<Object[]>of(new Object[]{TypeChambre.SIMPLE, 2L}));
+
+        assertThat(distribution.nombre(TypeChambre.SIMPLE)).isEqualTo(1);
+        assertThat(distribution.nombre(TypeChambre.SIMPLE)).isEqualTo(2);
+        assertThat(distribution.nombre(TypeChambre.SIMPLE)).isEqualTo(2);
+        verify(chambreRepository, times(2)).countChambresParType();
+    }
+
+    @Test
+    void testPourcentage_noRoom() {
+        when(chambreRepository.countChambresParType()).thenReturn(List.of());
+
+        assertThat(distribution.pourcentage(TypeChambre.DOUBLE)).isZero();
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.projections.EtudiantVue;
 import tn.esprit.spring.restcontrollers.EtudiantRestController;
 import tn.esprit.spring.services.etudiant.EtudiantService;
 
@@ -44,6 +45,7 @@ class EtudiantControllerTest {
                 .ecole("ENIT")
                 .dateNaissance(LocalDate.of(1995, 5, 15))
                 .build();
+        sampleVue = new EtudiantVue(1L, "Doe", "John", 12345678L, "ENIT", LocalDate.of(1995, 5, 15));
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -56,14 +58,15 @@ class EtudiantControllerTest {
     private ObjectMapper objectMapper;
 
     private Etudiant sampleEtudiant;
+    private EtudiantVue sampleVue;
     @InjectMocks
     private EtudiantRestController etudiantRestController;
 
     @Test
-    void testFindAll() throws Exception {
-        when(service.findAll()).thenReturn(List.of(sampleEtudiant));
+    void testFindAll_Unpaged() throws Exception {
+        when(service.findAllVues()).thenReturn(List.of(sampleVue));
 
-        mockMvc.perform(get("/etudiant/findAll"))
+        mockMvc.perform(get("/etudiant/findAll").param("nonPagine", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].idEtudiant").value(1L))
                 .andExpect(jsonPath("$[0].nomEt").value("Doe"));
@@ -83,7 +86,7 @@ class EtudiantControllerTest {
 
     @Test
     void testFindById() throws Exception {
-        when(service.findById(1L)).thenReturn(sampleEtudiant);
+        when(service.findVueById(1L)).thenReturn(sampleVue);
 
         mockMvc.perform(get("/etudiant/findById")
                         .param("id", "1"))
@@ -133,7 +136,7 @@ class EtudiantControllerTest {
 
     @Test
     void testSelectJPQL() throws Exception {
-        when(service.selectJPQL("Doe")).thenReturn(List.of(sampleEtudiant));
+        when(service.selectVues("Doe")).thenReturn(List.of(sampleVue));
 
         mockMvc.perform(get("/etudiant/selectJPQL")
                         .param("nom", "Doe"))
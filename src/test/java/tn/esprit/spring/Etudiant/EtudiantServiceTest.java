@@ -9,6 +9,7 @@ import tn.esprit.spring.dao.entities.Reservation;
 import tn.esprit.spring.dao.repositories.EtudiantRepository;
 import tn.esprit.spring.dao.repositories.ReservationRepository;
 import tn.esprit.spring.services.etudiant.EtudiantService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +21,9 @@ import static org.mockito.Mockito.*;
 
 class EtudiantServiceTest {
 
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private EtudiantService etudiantService;
 
@@ -0,0 +1,117 @@
+package tn.esprit.spring.Foyer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.bloc.BlocService;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.foyer.FoyerService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Mesure de l'insertion d'un foyer de 50 blocs de 40 chambres, une INSERT par ligne
+ * (comme avec IDENTITY) puis par lots JDBC.
+ */
+@FoyerJpaTestSansTransaction
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Slf4j
+class FoyerBatchInsertTest {
+
+    private static final int NB_BLOCS = 50;
+    private static final int NB_CHAMBRES = 40;
+
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private FoyerService foyerService;
+    private BlocService blocService;
+    private Statistics statistiques;
+
+    @BeforeEach
+    void setup() {
+        AvailabilityIndex availabilityIndex = mock(AvailabilityIndex.class);
+        NaturalKeyCache cles = mock(NaturalKeyCache.class);
+        foyerService = new FoyerService(foyerRepository, foyerRepository, universiteRepository, blocRepository,
+                availabilityIndex, cles);
+        blocService = new BlocService(blocRepository, chambreRepository, blocRepository, foyerRepository,
+                availabilityIndex, mock(RoomTypeCounters.class), mock(RoomTypeDistribution.class), cles);
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testAjoutFoyerEtBlocs_batchesInserts() {
+        long unParUn = inserer(1);
+        long parLots = inserer(50);
+
+        assertThat(chambreRepository.count()).isEqualTo(2L * NB_BLOCS * NB_CHAMBRES);
+        // 2 051 lignes : une INSERT par ligne sans lots, une par lot de 50 ensuite
+        assertThat(unParUn).isGreaterThanOrEqualTo(1L + NB_BLOCS + NB_BLOCS * NB_CHAMBRES);
+        assertThat(parLots).isLessThan(unParUn / 10);
+    }
+
+    // Insère le foyer complet et renvoie le nombre d'instructions préparées
+    private long inserer(int tailleLot) {
+        statistiques.clear();
+        long debut = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(tailleLot);
+            List<Bloc> blocs = new ArrayList<>();
+            for (int b = 0; b < NB_BLOCS; b++) {
+                List<Chambre> chambres = new ArrayList<>();
+                for (int c = 0; c < NB_CHAMBRES; c++) {
+                    chambres.add(Chambre.builder().numeroChambre(tailleLot * 100_000L + b * 100L + c)
+                            .typeC(TypeChambre.values()[c % 3]).build());
+                }
+                blocs.add(Bloc.builder().nomBloc("Bloc " + tailleLot + "-" + b).capaciteBloc(NB_CHAMBRES)
+                        .chambres(chambres).build());
+            }
+            foyerService.ajoutFoyerEtBlocs(Foyer.builder().nomFoyer("Foyer " + tailleLot).capaciteFoyer(2000)
+                    .blocs(blocs).build());
+            blocs.forEach(blocService::ajouterBlocEtSesChambres);
+        });
+        long instructions = statistiques.getPrepareStatementCount();
+        log.info("Foyer de {} blocs x {} chambres, lots de {} : {} instructions, {} ms", NB_BLOCS, NB_CHAMBRES,
+                tailleLot, instructions, (System.nanoTime() - debut) / 1_000_000);
+        return instructions;
+    }
+}
@@ -16,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import tn.esprit.spring.dao.entities.Foyer;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.FoyerVue;
 import tn.esprit.spring.restcontrollers.FoyerRestController;
 import tn.esprit.spring.services.foyer.FoyerService;
 
@@ -61,25 +62,25 @@ class FoyerControllerTest {
     @Test
     void testFindAll() {
 
-            when(service.findAll()).thenReturn(List.of(sampleFoyer));
+            when(service.findAllVues()).thenReturn(List.of(new FoyerVue(1L, "Main Foyer", 100L)));
 
-            List<Foyer> response = controller.findAll();
+            List<FoyerVue> response = controller.findAll(null, 50, true).getBody();
 
             assertThat(response).isNotEmpty();
-            assertThat(response.get(0).getIdFoyer()).isEqualTo(1L);
-            assertThat(response.get(0).getNomFoyer()).isEqualTo("Main Foyer");
+            assertThat(response.get(0).idFoyer()).isEqualTo(1L);
+            assertThat(response.get(0).nomFoyer()).isEqualTo("Main Foyer");
 
     }
 
     @Test
     void testFindById() {
 
-            when(service.findById(1L)).thenReturn(sampleFoyer);
+            when(service.findVueById(1L)).thenReturn(new FoyerVue(1L, "Main Foyer", 100L));
 
-            Foyer response = controller.findById(1L);
+            FoyerVue response = controller.findById(1L);
 
             assertThat(response).isNotNull();
-            assertThat(response.getCapaciteFoyer()).isEqualTo(100L);
+            assertThat(response.capaciteFoyer()).isEqualTo(100L);
 
     }
 
@@ -9,7 +9,9 @@ import tn.esprit.spring.dao.entities.*;
 import tn.esprit.spring.dao.repositories.BlocRepository;
 import tn.esprit.spring.dao.repositories.FoyerRepository;
 import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
 import tn.esprit.spring.services.foyer.FoyerService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +23,12 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class FoyerServiceTest {
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private FoyerService foyerService;
 
@@ -96,7 +104,8 @@ class FoyerServiceTest {
         Foyer foyer = new Foyer();
         Universite universite = new Universite();
         when(foyerRepository.findById(1L)).thenReturn(Optional.of(foyer));
-        when(universiteRepository.findByNomUniversite("Uni")).thenReturn(universite);
+        when(cles.idUniversite("Uni")).thenReturn(3L);
+        when(universiteRepository.findById(3L)).thenReturn(Optional.of(universite));
         when(universiteRepository.save(universite)).thenReturn(universite);
 
         Universite result = foyerService.affecterFoyerAUniversite(1L, "Uni");
@@ -104,7 +113,7 @@ class FoyerServiceTest {
         assertThat(result).isEqualTo(universite);
         assertThat(universite.getFoyer()).isEqualTo(foyer);
         verify(foyerRepository).findById(1L);
-        verify(universiteRepository).findByNomUniversite("Uni");
+        verify(universiteRepository, never()).findByNomUniversite("Uni");
         verify(universiteRepository).save(universite);
     }
 
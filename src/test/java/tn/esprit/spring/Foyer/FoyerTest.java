@@ -1,6 +1,7 @@
 package tn.esprit.spring.Foyer;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import tn.esprit.spring.dao.entities.Bloc;
 import tn.esprit.spring.dao.entities.Foyer;
@@ -27,7 +28,6 @@ import static org.assertj.core.api.Assertions.assertThat;
                 1L,
                 "Main Foyer",
                 100L,
-                null,  // Assuming Universite can be null here
                 List.of(bloc1, bloc2)
         );
 
@@ -71,11 +71,12 @@ import static org.assertj.core.api.Assertions.assertThat;
         assertThat(foyer.getBlocs()).isEmpty();
     }
     @Test
-    void testSetAndGetUniversite() {
-       Foyer foyer = new Foyer();
+    void testUniversiteIsLinkedFromUniversiteOnly() throws Exception {
+       Foyer foyer = Foyer.builder().idFoyer(4L).nomFoyer("Foyer").build();
        Universite universite = new Universite();
-       foyer.setUniversite(universite);
+       universite.setFoyer(foyer);
 
-       assertThat(foyer.getUniversite()).isEqualTo(universite);
+       assertThat(universite.getFoyer()).isEqualTo(foyer);
+       assertThat(new ObjectMapper().writeValueAsString(foyer)).doesNotContain("universite");
     }
 }
@@ -0,0 +1,23 @@
+package tn.esprit.spring;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link DataJpaTest} sur la base H2 embarquée, avec son dialecte à la place de celui de MySQL
+ * configuré pour l'application. Chaque test s'exécute dans une transaction annulée à la fin.
+ * Les propriétés propres à un test sont déclarées par {@code @TestPropertySource}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+public @interface FoyerJpaTest {
+}
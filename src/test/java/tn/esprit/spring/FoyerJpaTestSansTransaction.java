@@ -0,0 +1,25 @@
+package tn.esprit.spring;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link FoyerJpaTest} sans transaction autour des tests : les écritures sont validées, comme
+ * en production (transactions des services, actions après commit, plusieurs threads). Le test
+ * nettoie lui-même la base ou recrée le contexte.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@FoyerJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public @interface FoyerJpaTestSansTransaction {
+}
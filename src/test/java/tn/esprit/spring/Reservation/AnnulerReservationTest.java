@@ -0,0 +1,165 @@
+package tn.esprit.spring.Reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.export.NdjsonExporter;
+import tn.esprit.spring.services.reservation.AtomicReservationBooking;
+import tn.esprit.spring.services.reservation.BulkReservationService;
+import tn.esprit.spring.services.reservation.IReservationService;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.reservation.ReservationRolloverJob;
+import tn.esprit.spring.services.reservation.ReservationService;
+
+import java.time.LocalDate;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Annulation d'une réservation par CIN sur un historique de réservations, avant (jointure
+ * jusqu'à t_etudiant, chargement de la chambre et de toutes ses réservations) et après
+ * (lectures par index, suppressions ciblées) : instructions et chargements comptés.
+ * <p>
+ * Chaque étudiant a dix réservations, dont une valide, réparties sur {@value #NB_CHAMBRES}
+ * chambres. La durée sur un historique d'un million de réservations est mesurée par le banc
+ * {@code ReservationBenchmark.annulerReservation} (profil {@code jmh}).
+ */
+@FoyerJpaTestSansTransaction
+@DirtiesContext
+class AnnulerReservationTest {
+
+    private static final int NB_RESERVATIONS = 2_000;
+    private static final int NB_ETUDIANTS = NB_RESERVATIONS / 10;
+    private static final int NB_CHAMBRES = 20;
+    private static final long CIN = 10_000_000L;
+    private static final int NB_ANNULATIONS = 50;
+    private static final LocalDate ANNEE = LocalDate.of(2024, 10, 1);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private IReservationService reservationService;
+    private OccupancyLedger ledger;
+    private TransactionTemplate transaction;
+    private Statistics statistiques;
+
+    @BeforeEach
+    void setup() {
+        if (jdbcTemplate.queryForObject("select count(*) from t_reservation", Long.class) == 0) {
+            remplir();
+        }
+        ledger = mock(OccupancyLedger.class);
+        NaturalKeyCache cles = new NaturalKeyCache(chambreRepository, etudiantRepository, blocRepository,
+                foyerRepository, universiteRepository, new SimpleMeterRegistry(), 1_000_000);
+        transaction = new TransactionTemplate(transactionManager);
+        ReservationService service = new ReservationService(reservationRepository, chambreRepository,
+                etudiantRepository, ledger, mock(AtomicReservationBooking.class), mock(BulkReservationService.class),
+                mock(ReservationRolloverJob.class), mock(NdjsonExporter.class), cles, transaction);
+        ProxyFactory proxy = new ProxyFactory(service);
+        proxy.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        reservationService = (IReservationService) proxy.getProxy();
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testAnnulerReservation_readsByIndexWhateverTheHistory() {
+        Mesure avant = mesurer(1, this::annulerSansIndex);
+        Mesure apres = mesurer(NB_ANNULATIONS + 1, cin -> reservationService.annulerReservation(cin));
+
+        // Résolution du CIN, réservation valide, chambre, puis jointure chambre, jointure étudiant, réservation
+        assertThat(apres.instructions).isEqualTo(6L * NB_ANNULATIONS);
+        assertThat(apres.entites).isEqualTo(NB_ANNULATIONS);
+        assertThat(apres.collections).isZero();
+        // Avant : toutes les réservations de la chambre étaient chargées pour en retirer une
+        assertThat(avant.entites).isGreaterThanOrEqualTo((long) NB_ANNULATIONS * NB_RESERVATIONS / NB_CHAMBRES);
+        assertThat(avant.collections).isGreaterThanOrEqualTo(NB_ANNULATIONS);
+
+        verify(ledger, times(NB_ANNULATIONS)).release(any(Long.class), any(LocalDate.class));
+        long restantes = 2L * NB_ANNULATIONS;
+        assertThat(reservationRepository.count()).isEqualTo(NB_RESERVATIONS - restantes);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_chambre_reservations", Long.class))
+                .isEqualTo(NB_RESERVATIONS - restantes);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_reservation_etudiants", Long.class))
+                .isEqualTo(NB_RESERVATIONS - restantes);
+    }
+
+    // Chemin d'origine : jointure sur t_etudiant.cin et chambre chargée avec ses réservations
+    private void annulerSansIndex(long cin) {
+        transaction.executeWithoutResult(statut -> {
+            Reservation r = reservationRepository.findByEtudiantsCinAndEstValide(cin, true);
+            Chambre c = chambreRepository.findByReservationsIdReservation(r.getIdReservation());
+            c.getReservations().remove(r);
+            chambreRepository.save(c);
+            reservationRepository.delete(r);
+        });
+    }
+
+    private Mesure mesurer(int premier, LongConsumer annulation) {
+        statistiques.clear();
+        for (int i = premier; i < premier + NB_ANNULATIONS; i++) {
+            annulation.accept(CIN + i);
+        }
+        return new Mesure(statistiques.getPrepareStatementCount(), statistiques.getEntityLoadCount(),
+                statistiques.getCollectionLoadCount());
+    }
+
+    private record Mesure(long instructions, long entites, long collections) {
+    }
+
+    // Réservation n de l'étudiant ((n - 1) % NB_ETUDIANTS) + 1 : les NB_ETUDIANTS premières sont valides
+    private void remplir() {
+        jdbcTemplate.update("insert into t_chambre (id_chambre, numero_chambre, typec) " +
+                "select x, x, 'TRIPLE' from system_range(1, ?)", NB_CHAMBRES);
+        jdbcTemplate.update("insert into t_etudiant (id_etudiant, cin, nom_et, prenom_et) " +
+                "select x, ? + x, 'Nom', 'Prenom' from system_range(1, ?)", CIN, NB_ETUDIANTS);
+        jdbcTemplate.update("insert into t_reservation (id_reservation, annee_universitaire, est_valide) " +
+                "select 'R-' || x, case when x <= ? then ? else ? end, x <= ? from system_range(1, ?)",
+                NB_ETUDIANTS, ANNEE, ANNEE.minusYears(1), NB_ETUDIANTS, NB_RESERVATIONS);
+        jdbcTemplate.update("insert into t_reservation_etudiants (reservations_id_reservation, etudiants_id_etudiant) " +
+                "select 'R-' || x, mod(x - 1, ?) + 1 from system_range(1, ?)", NB_ETUDIANTS, NB_RESERVATIONS);
+        jdbcTemplate.update("insert into t_chambre_reservations (chambre_id_chambre, reservations_id_reservation) " +
+                "select mod(x - 1, ?) + 1, 'R-' || x from system_range(1, ?)", NB_CHAMBRES, NB_RESERVATIONS);
+    }
+}
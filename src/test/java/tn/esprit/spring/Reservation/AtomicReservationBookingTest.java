@@ -0,0 +1,118 @@
+package tn.esprit.spring.Reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.reservation.AtomicReservationBooking;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTestSansTransaction
+@DirtiesContext
+class AtomicReservationBookingTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private NaturalKeyCache cles;
+    private AtomicReservationBooking booking;
+
+    private final LocalDate dateDebutAU = LocalDate.now().minusMonths(1);
+    private final LocalDate dateFinAU = LocalDate.now().plusMonths(1);
+
+    @BeforeEach
+    void setup() {
+        cles = new NaturalKeyCache(chambreRepository, etudiantRepository, blocRepository, foyerRepository,
+                universiteRepository, registry, 1000);
+        booking = new AtomicReservationBooking(chambreRepository, etudiantRepository, cles, entityManager,
+                transactionManager, new OccupancyLedger(chambreRepository), registry, "atomic", 5);
+    }
+
+    @Test
+    void testConcurrentBookingsOnOneRoomNeverOverbook() throws Exception {
+        Chambre chambre = chambreRepository.save(Chambre.builder()
+                .numeroChambre(201)
+                .typeC(TypeChambre.DOUBLE)
+                .bloc(Bloc.builder().nomBloc("BlocA").capaciteBloc(10).build())
+                .build());
+        for (int i = 0; i < THREADS; i++) {
+            etudiantRepository.save(Etudiant.builder().cin(1000L + i).nomEt("Etudiant" + i).build());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Reservation>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long cin = 1000L + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                return booking.reserver(201, cin, dateDebutAU, dateFinAU);
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        long accepted = 0;
+        for (Future<Reservation> result : results) {
+            if (Objects.nonNull(result.get())) {
+                accepted++;
+            }
+        }
+        assertThat(accepted).isEqualTo(2);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre.getIdChambre(), dateDebutAU, dateFinAU)).isEqualTo(2);
+        assertThat(reservationRepository.count()).isEqualTo(2);
+        assertThat(registry.get("foyer.reservation.booking.full").counter().count()).isEqualTo(THREADS - 2.0);
+        assertThat(registry.get("foyer.reservation.booking.lock.wait").timer().count()).isGreaterThanOrEqualTo(THREADS);
+    }
+
+    @Test
+    void testDisabledUnlessAtomicMode() {
+        AtomicReservationBooking ledgerMode = new AtomicReservationBooking(chambreRepository, etudiantRepository,
+                cles, entityManager, transactionManager, new OccupancyLedger(chambreRepository), registry, "ledger", 3);
+
+        assertThat(ledgerMode.isEnabled()).isFalse();
+        assertThat(booking.isEnabled()).isTrue();
+    }
+}
@@ -0,0 +1,144 @@
+package tn.esprit.spring.Reservation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.reservation.BulkReservationService;
+import tn.esprit.spring.services.reservation.DemandeReservation;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.reservation.ResultatReservation;
+import tn.esprit.spring.services.reservation.ResultatReservation.Statut;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@FoyerJpaTestSansTransaction
+@DirtiesContext
+class BulkReservationServiceTest {
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BulkReservationService bulkReservationService;
+
+    private final LocalDate dateDebutAU = LocalDate.now().minusMonths(1);
+    private final LocalDate dateFinAU = LocalDate.now().plusMonths(1);
+
+    @BeforeEach
+    void setup() {
+        bulkReservationService = service("ledger");
+    }
+
+    @AfterEach
+    void nettoyer() {
+        chambreRepository.deleteAll();
+        jdbcTemplate.update("delete from t_reservation_etudiants");
+        jdbcTemplate.update("delete from t_reservation");
+        jdbcTemplate.update("delete from t_etudiant");
+        jdbcTemplate.update("delete from t_bloc");
+    }
+
+    @Test
+    void testReserver_returnsOneResultPerPairAndWritesOnlyAcceptedOnes() {
+        Bloc bloc = Bloc.builder().nomBloc("BlocB").capaciteBloc(10).build();
+        List<Chambre> chambres = chambreRepository.saveAll(List.of(
+                Chambre.builder().numeroChambre(301).typeC(TypeChambre.SIMPLE).bloc(bloc).build(),
+                Chambre.builder().numeroChambre(302).typeC(TypeChambre.TRIPLE).bloc(bloc).build()));
+        Chambre simple = chambres.get(0);
+        Chambre triple = chambres.get(1);
+        for (long cin = 1; cin <= 4; cin++) {
+            etudiantRepository.save(Etudiant.builder().cin(cin).nomEt("Etudiant" + cin).build());
+        }
+
+        List<ResultatReservation> resultats = bulkReservationService.reserver(List.of(
+                new DemandeReservation(301L, 1L),
+                new DemandeReservation(301L, 2L),
+                new DemandeReservation(302L, 3L),
+                new DemandeReservation(999L, 1L),
+                new DemandeReservation(302L, 999L),
+                new DemandeReservation(302L, 3L),
+                new DemandeReservation(302L, 4L)), dateDebutAU, dateFinAU);
+
+        assertThat(resultats).extracting(ResultatReservation::statut).containsExactly(
+                Statut.RESERVEE, Statut.CHAMBRE_COMPLETE, Statut.RESERVEE, Statut.CHAMBRE_INTROUVABLE,
+                Statut.ETUDIANT_INTROUVABLE, Statut.DEJA_RESERVEE, Statut.RESERVEE);
+        assertThat(resultats.get(0).idReservation())
+                .isEqualTo(dateDebutAU.getYear() + "/" + dateFinAU.getYear() + "-BlocB-301-1");
+
+        assertThat(reservationRepository.count()).isEqualTo(3);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                simple.getIdChambre(), dateDebutAU, dateFinAU)).isEqualTo(1);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                triple.getIdChambre(), dateDebutAU, dateFinAU)).isEqualTo(2);
+        assertThat(reservationRepository.findByEtudiantsCinAndEstValide(4L, true)).isNotNull();
+
+        // Une seconde demande identique est détectée comme déjà réservée
+        assertThat(bulkReservationService.reserver(List.of(new DemandeReservation(302L, 3L)), dateDebutAU, dateFinAU))
+                .extracting(ResultatReservation::statut).containsExactly(Statut.DEJA_RESERVEE);
+    }
+
+    @Test
+    void testReserver_atomicModeChecksCapacityInDatabaseUnderLock() {
+        Bloc bloc = Bloc.builder().nomBloc("BlocC").capaciteBloc(10).build();
+        Chambre chambre = chambreRepository.save(
+                Chambre.builder().numeroChambre(401).typeC(TypeChambre.DOUBLE).bloc(bloc).build());
+        for (long cin = 11; cin <= 14; cin++) {
+            etudiantRepository.save(Etudiant.builder().cin(cin).nomEt("Etudiant" + cin).build());
+        }
+        // Une réservation déjà écrite par une autre instance, inconnue des registres d'occupation
+        service("ledger").reserver(List.of(new DemandeReservation(401L, 11L)), dateDebutAU, dateFinAU);
+
+        List<ResultatReservation> resultats = service("atomic").reserver(List.of(
+                new DemandeReservation(401L, 12L),
+                new DemandeReservation(401L, 13L),
+                new DemandeReservation(401L, 14L)), dateDebutAU, dateFinAU);
+
+        assertThat(resultats).extracting(ResultatReservation::statut).containsExactly(
+                Statut.RESERVEE, Statut.CHAMBRE_COMPLETE, Statut.CHAMBRE_COMPLETE);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre.getIdChambre(), dateDebutAU, dateFinAU)).isEqualTo(2);
+    }
+
+    @Test
+    void testReserver_rejectsOversizedRequests() {
+        List<DemandeReservation> demandes = Collections.nCopies(6, new DemandeReservation(301L, 1L));
+        BulkReservationService limite = new BulkReservationService(chambreRepository, etudiantRepository,
+                reservationRepository, new OccupancyLedger(chambreRepository), jdbcTemplate, transactionManager, 2, 5,
+                "ledger");
+
+        assertThatThrownBy(() -> limite.reserver(demandes, dateDebutAU, dateFinAU))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("6 demandes reçues, au plus 5 par réservation en masse");
+        assertThat(reservationRepository.count()).isZero();
+    }
+
+    // Tranches de 2 pour couvrir plusieurs transactions ; un registre neuf par service
+    private BulkReservationService service(String mode) {
+        return new BulkReservationService(chambreRepository, etudiantRepository, reservationRepository,
+                new OccupancyLedger(chambreRepository), jdbcTemplate, transactionManager, 2, 5000, mode);
+    }
+}
@@ -10,12 +10,18 @@ import tn.esprit.spring.dao.entities.Etudiant;
 import tn.esprit.spring.dao.entities.Reservation;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
 import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.reservation.AtomicReservationBooking;
+import tn.esprit.spring.services.reservation.BulkReservationService;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.reservation.ReservationRolloverJob;
 import tn.esprit.spring.services.reservation.ReservationService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,6 +31,9 @@ import static org.mockito.Mockito.*;
 
 class IReservationServiceTest {
 
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private ReservationService reservationService; // Your implementation class
 
@@ -32,6 +41,14 @@ class IReservationServiceTest {
     private ReservationRepository reservationRepository;
     @Mock
     private ChambreRepository chambreRepository;
+    @Mock
+    private OccupancyLedger ledger;
+    @Mock
+    private AtomicReservationBooking atomicBooking;
+    @Mock
+    private BulkReservationService bulkReservationService;
+    @Mock
+    private ReservationRolloverJob rolloverJob;
 
     @BeforeEach
     void setup() {
@@ -101,7 +118,7 @@ class IReservationServiceTest {
         Etudiant etudiant = new Etudiant(1L, "John", "Doe", 12345678L, "ENIT", LocalDate.of(1995, 5, 15), null);
         Reservation reservation = new Reservation();
         reservation.setAnneeUniversitaire(LocalDate.of(2023, 9, 1));
-        reservation.setEtudiants(List.of(etudiant));
+        reservation.setEtudiants(Set.of(etudiant));
 
         // Stub save() method
         when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation);
@@ -147,13 +164,6 @@ class IReservationServiceTest {
 
     @Test
     void testAnnulerReservations() {
-        Reservation r1 = new Reservation();
-        r1.setIdReservation("R1");
-        r1.setEstValide(true);
-        Reservation r2 = new Reservation();
-        r2.setIdReservation("R2");
-        r2.setEstValide(true);
-
         // The date range matching your method's logic:
         int year = LocalDate.now().getYear() % 100;
         LocalDate dateDebutAU = (LocalDate.now().getMonthValue() <= 7)
@@ -163,20 +173,12 @@ class IReservationServiceTest {
                 ? LocalDate.of(Integer.parseInt("20" + year), 6, 30)
                 : LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
 
-        List<Reservation> reservations = List.of(r1, r2);
-
-        when(reservationRepository.findByEstValideAndAnneeUniversitaireBetween(
-                true, dateDebutAU, dateFinAU))
-                .thenReturn(reservations);
-
-        when(reservationRepository.save(any(Reservation.class)))
-                .thenAnswer(i -> i.getArgument(0));
+        when(rolloverJob.executer(dateDebutAU, dateFinAU)).thenReturn(2L);
 
         reservationService.annulerReservations();
 
-        assertThat(r1.isEstValide()).isFalse();
-        assertThat(r2.isEstValide()).isFalse();
-        verify(reservationRepository, times(reservations.size())).save(any(Reservation.class));
+        verify(rolloverJob).executer(dateDebutAU, dateFinAU);
+        verify(reservationRepository, never()).save(any(Reservation.class));
     }
 
 
@@ -190,7 +192,7 @@ class IReservationServiceTest {
 
         Chambre chambre = new Chambre();
         chambre.setIdChambre(chambreId);
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(chambreId)).thenReturn(Optional.of(chambre));
@@ -219,7 +221,7 @@ class IReservationServiceTest {
         Reservation reservation = new Reservation();
         reservation.setIdReservation(reservationId);
 
-        chambre.setReservations(new ArrayList<>(List.of(reservation)));
+        chambre.setReservations(new HashSet<>(Set.of(reservation)));
 
         when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(chambre.getIdChambre())).thenReturn(Optional.of(chambre));
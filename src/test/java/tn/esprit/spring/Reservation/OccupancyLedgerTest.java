@@ -0,0 +1,139 @@
+package tn.esprit.spring.Reservation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyLedgerTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    private OccupancyLedger ledger;
+
+    private final LocalDate date = LocalDate.of(2024, 10, 1);
+
+    @BeforeEach
+    void setup() {
+        ledger = new OccupancyLedger(chambreRepository);
+    }
+
+    @Test
+    void testAnneeUniversitaire() {
+        assertThat(OccupancyLedger.anneeUniversitaire(LocalDate.of(2024, 10, 1))).isEqualTo(2024);
+        assertThat(OccupancyLedger.anneeUniversitaire(LocalDate.of(2025, 3, 1))).isEqualTo(2024);
+        assertThat(OccupancyLedger.anneeUniversitaire(LocalDate.of(2025, 8, 1))).isEqualTo(2025);
+    }
+
+    @Test
+    void testTryReserve_respectsCapacity() {
+        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                1L, LocalDate.of(2024, 9, 15), LocalDate.of(2025, 6, 30))).thenReturn(1);
+
+        assertThat(ledger.tryReserve(1L, date, 2)).isTrue();
+        assertThat(ledger.tryReserve(1L, date, 2)).isFalse();
+        assertThat(ledger.occupation(1L, date)).isEqualTo(2);
+
+        // Le compteur n'est lu en base qu'une seule fois
+        verify(chambreRepository, times(1))
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    void testReleaseAndRecord() {
+        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                anyLong(), any(), any())).thenReturn(1);
+
+        ledger.release(1L, date);
+        assertThat(ledger.occupation(1L, date)).isZero();
+        ledger.release(1L, date);
+        assertThat(ledger.occupation(1L, date)).isZero();
+
+        ledger.record(1L, date);
+        assertThat(ledger.tryReserve(1L, date, 1)).isFalse();
+
+        // Chambre non enregistrée ou réservation sans date : rien à compter
+        ledger.record(null, date);
+        ledger.release(2L, null);
+    }
+
+    @Test
+    void testInitialiser_seedsCurrentYearWithoutFurtherQueries() {
+        LocalDate today = LocalDate.now();
+        LocalDate debut = OccupancyLedger.debutAnneeUniversitaire(OccupancyLedger.anneeUniversitaire(today));
+        List<Object[]> lignes = new ArrayList<>();
+        lignes.add(new Object[]{5L, debut, 2L});
+        when(chambreRepository.countReservationsParChambreEtDateDepuis(any(LocalDate.class))).thenReturn(lignes);
+
+        ledger.initialiser();
+
+        assertThat(ledger.occupation(5L, today)).isEqualTo(2);
+        assertThat(ledger.occupation(6L, today)).isZero();
+        verify(chambreRepository, never())
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(anyLong(), any(), any());
+    }
+
+    // Même fenêtre qu'à la demande (15 septembre - 30 juin) : l'intersession n'est pas comptée
+    @Test
+    void testInitialiser_countsTheSameWindowAsTheLazyFallback() {
+        int annee = OccupancyLedger.anneeUniversitaire(LocalDate.now());
+        List<Object[]> lignes = new ArrayList<>();
+        lignes.add(new Object[]{5L, LocalDate.of(annee, 9, 1), 1L});
+        lignes.add(new Object[]{5L, LocalDate.of(annee, 9, 15), 1L});
+        lignes.add(new Object[]{5L, LocalDate.of(annee + 1, 6, 30), 1L});
+        lignes.add(new Object[]{5L, LocalDate.of(annee + 1, 7, 15), 1L});
+        when(chambreRepository.countReservationsParChambreEtDateDepuis(LocalDate.of(annee, 9, 15))).thenReturn(lignes);
+
+        ledger.initialiser();
+
+        assertThat(ledger.occupation(5L, LocalDate.of(annee, 10, 1))).isEqualTo(2);
+        verify(chambreRepository, never())
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    void testTryReserve_concurrentBookingsNeverExceedCapacity() throws InterruptedException {
+        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                anyLong(), any(), any())).thenReturn(0);
+        ledger.occupation(1L, date);
+
+        int threads = 16;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                start.await();
+                if (ledger.tryReserve(1L, date, 3)) {
+                    accepted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(accepted.get()).isEqualTo(3);
+        assertThat(ledger.occupation(1L, date)).isEqualTo(3);
+    }
+}
@@ -10,11 +10,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.projections.ReservationVue;
 import tn.esprit.spring.restcontrollers.ReservationRestController;
+import tn.esprit.spring.services.reservation.DemandeReservation;
 import tn.esprit.spring.services.reservation.ReservationService;
+import tn.esprit.spring.services.reservation.ResultatReservation;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -69,26 +75,64 @@ class ReservationControllerTest {
     }
 
     @Test
-    void testFindAll() throws Exception {
-        when(service.findAll()).thenReturn(List.of(reservation));
+    void testFindAll_Unpaged() throws Exception {
+        when(service.findAllVues()).thenReturn(List.of(new ReservationVue("R123", LocalDate.now(), true)));
 
-        mockMvc.perform(get("/reservation/findAll"))
+        mockMvc.perform(get("/reservation/findAll").param("nonPagine", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].idReservation").value("R123"));
 
-        verify(service).findAll();
+        verify(service).findAllVues();
+    }
+
+    @Test
+    void testFindAll_KeysetPages() throws Exception {
+        when(service.findAll("", 2)).thenReturn(List.of(
+                new ReservationVue("R123", LocalDate.now(), true),
+                new ReservationVue("R124", LocalDate.now(), false)));
+        when(service.findAll("R124", 2)).thenReturn(List.of());
+
+        String curseur = mockMvc.perform(get("/reservation/findAll").param("taille", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Curseur-Suivant"))
+                .andReturn().getResponse().getHeader("X-Curseur-Suivant");
+
+        mockMvc.perform(get("/reservation/findAll").param("taille", "2").param("curseur", curseur))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().doesNotExist("X-Curseur-Suivant"));
+        verify(service, never()).findAllVues();
+    }
+
+    @Test
+    void testExport() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"idReservation\":\"R1\"}\n{\"idReservation\":\"R2\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(service).exporter(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/reservation/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"idReservation\":\"R1\"}\n{\"idReservation\":\"R2\"}\n"));
     }
 
     @Test
     void testFindById() throws Exception {
-        when(service.findById("R123")).thenReturn(reservation);
+        when(service.findVueById("R123")).thenReturn(new ReservationVue("R123", LocalDate.now(), true));
 
         mockMvc.perform(get("/reservation/findById")
                         .param("id", "R123"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.idReservation").value("R123"));
 
-        verify(service).findById("R123");
+        verify(service).findVueById("R123");
     }
 
     @Test
@@ -127,6 +171,38 @@ class ReservationControllerTest {
         verify(service).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 123456L);
     }
 
+    @Test
+    void testAjouterReservationsEnMasse() throws Exception {
+        List<DemandeReservation> demandes = List.of(new DemandeReservation(101L, 123456L),
+                new DemandeReservation(999L, 123456L));
+        when(service.ajouterReservationsEnMasse(demandes)).thenReturn(List.of(
+                new ResultatReservation(101L, 123456L, "R123", ResultatReservation.Statut.RESERVEE),
+                new ResultatReservation(999L, 123456L, null, ResultatReservation.Statut.CHAMBRE_INTROUVABLE)));
+
+        mockMvc.perform(post("/reservation/ajouterReservationsEnMasse")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(demandes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].statut").value("RESERVEE"))
+                .andExpect(jsonPath("$[0].idReservation").value("R123"))
+                .andExpect(jsonPath("$[1].statut").value("CHAMBRE_INTROUVABLE"));
+
+        verify(service).ajouterReservationsEnMasse(demandes);
+    }
+
+    @Test
+    void testAjouterReservationsEnMasse_tooManyRequests() throws Exception {
+        List<DemandeReservation> demandes = List.of(new DemandeReservation(101L, 123456L));
+        when(service.ajouterReservationsEnMasse(demandes))
+                .thenThrow(new IllegalArgumentException("1 demandes reçues, au plus 0 par réservation en masse"));
+
+        mockMvc.perform(post("/reservation/ajouterReservationsEnMasse")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(demandes)))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("1 demandes reçues, au plus 0 par réservation en masse"));
+    }
+
     @Test
     void testGetReservationParAnneeUniversitaire() throws Exception {
         LocalDate start = LocalDate.of(2023, 9, 1);
@@ -0,0 +1,97 @@
+package tn.esprit.spring.Reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.ClotureAnnee;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.repositories.ClotureAnneeRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.reservation.ReservationRolloverJob;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTestSansTransaction
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReservationRolloverJobTest {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2024, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2025, 6, 30);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ClotureAnneeRepository clotureAnneeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReservationRolloverJob job;
+
+    @BeforeEach
+    void setup() {
+        job = new ReservationRolloverJob(reservationRepository, clotureAnneeRepository, transactionManager, registry, 2);
+        for (int i = 1; i <= 5; i++) {
+            reservationRepository.save(reservation("R" + i, LocalDate.of(2024, 10, i), true));
+        }
+        // Hors année universitaire : ne doit pas être touchée
+        reservationRepository.save(reservation("R9", LocalDate.of(2023, 10, 1), true));
+    }
+
+    @Test
+    void testExecuter_invalidatesYearInChunksAndRecordsCheckpoint() {
+        long annulees = job.executer(DEBUT_AU, FIN_AU);
+
+        assertThat(annulees).isEqualTo(5);
+        assertThat(reservationRepository.findByEstValideAndAnneeUniversitaireBetween(true, DEBUT_AU, FIN_AU)).isEmpty();
+        assertThat(reservationRepository.findById("R9")).get().extracting(Reservation::isEstValide).isEqualTo(true);
+
+        ClotureAnnee cloture = clotureAnneeRepository.findById(2024).orElseThrow();
+        assertThat(cloture.isTerminee()).isTrue();
+        assertThat(cloture.getNbReservationsAnnulees()).isEqualTo(5);
+        assertThat(cloture.getDernierIdReservation()).isEqualTo("R5");
+
+        assertThat(registry.get("foyer.reservation.rollover.rows").counter().count()).isEqualTo(5.0);
+        assertThat(registry.get("foyer.reservation.rollover").timer().count()).isEqualTo(1);
+        assertThat(registry.get("foyer.reservation.rollover.throughput").gauge().value()).isPositive();
+    }
+
+    @Test
+    void testReprendre_continuesAfterLastCheckpoint() {
+        // Arrêt brutal après la première tranche : R1 et R2 déjà annulées
+        reservationRepository.save(reservation("R1", LocalDate.of(2024, 10, 1), false));
+        reservationRepository.save(reservation("R2", LocalDate.of(2024, 10, 2), false));
+        clotureAnneeRepository.save(ClotureAnnee.builder()
+                .anneeUniversitaire(2024)
+                .dernierIdReservation("R2")
+                .nbReservationsAnnulees(2)
+                .build());
+
+        job.reprendre();
+
+        ClotureAnnee cloture = clotureAnneeRepository.findById(2024).orElseThrow();
+        assertThat(cloture.isTerminee()).isTrue();
+        assertThat(cloture.getNbReservationsAnnulees()).isEqualTo(5);
+        assertThat(registry.get("foyer.reservation.rollover.rows").counter().count()).isEqualTo(3.0);
+        assertThat(reservationRepository.findByEstValideAndAnneeUniversitaireBetween(true, DEBUT_AU, FIN_AU)).isEmpty();
+    }
+
+    @Test
+    void testExecuter_startsANewPassOnceTheYearIsClosed() {
+        job.executer(DEBUT_AU, FIN_AU);
+        reservationRepository.save(reservation("R6", LocalDate.of(2024, 11, 1), true));
+
+        assertThat(job.executer(DEBUT_AU, FIN_AU)).isEqualTo(1);
+        assertThat(clotureAnneeRepository.findById(2024).orElseThrow().getNbReservationsAnnulees()).isEqualTo(1);
+    }
+
+    private static Reservation reservation(String id, LocalDate date, boolean estValide) {
+        return Reservation.builder().idReservation(id).anneeUniversitaire(date).estValide(estValide).build();
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import tn.esprit.spring.dao.entities.*;
 import tn.esprit.spring.dao.entities.Chambre;
@@ -11,14 +13,24 @@ import tn.esprit.spring.dao.entities.TypeChambre;
 import tn.esprit.spring.dao.repositories.ChambreRepository;
 import tn.esprit.spring.dao.repositories.EtudiantRepository;
 import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.reservation.AtomicReservationBooking;
+import tn.esprit.spring.services.reservation.BulkReservationService;
+import tn.esprit.spring.services.reservation.DemandeReservation;
+import tn.esprit.spring.services.reservation.OccupancyLedger;
+import tn.esprit.spring.services.reservation.ReservationRolloverJob;
 import tn.esprit.spring.services.reservation.ReservationService;
+import tn.esprit.spring.services.reservation.ResultatReservation;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -27,6 +39,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ReservationServiceTest {
 
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private ReservationService reservationService;
 
@@ -38,6 +53,21 @@ class ReservationServiceTest {
 
     @Mock
     private EtudiantRepository etudiantRepository;
+
+    @Mock
+    private OccupancyLedger ledger;
+
+    @Mock
+    private AtomicReservationBooking atomicBooking;
+
+    @Mock
+    private BulkReservationService bulkReservationService;
+
+    @Mock
+    private ReservationRolloverJob rolloverJob;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
     @Test
     void testAjouterReservationEtAssignerAChambreEtAEtudiant_ChambreHasCapacity() {
         // Given
@@ -45,7 +75,7 @@ class ReservationServiceTest {
         chambre.setIdChambre(1L);
         chambre.setNumeroChambre(101L);
         chambre.setTypeC(TypeChambre.DOUBLE);
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         Bloc bloc = new Bloc();
         bloc.setNomBloc("BlocA");
@@ -55,22 +85,22 @@ class ReservationServiceTest {
         etudiant.setCin(123456L);
         etudiant.setReservations(new ArrayList<>());
 
-        when(chambreRepository.findByNumeroChambre(101L)).thenReturn(chambre);
+        when(cles.idChambre(101L)).thenReturn(1L);
+        when(chambreRepository.findById(1L)).thenReturn(Optional.of(chambre));
         etudiantRepository.save(etudiant);
 
-        when(etudiantRepository.findByCin(123456L)).thenReturn(etudiant);
+        when(cles.idEtudiant(123456L)).thenReturn(10L);
+        when(etudiantRepository.getReferenceById(10L)).thenReturn(etudiant);
 
         // Simulate chambre capacity (only 1 reservation exists)
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                eq(1L), any(LocalDate.class), any(LocalDate.class)
-        )).thenReturn(1);
+        when(ledger.tryReserve(eq(1L), any(LocalDate.class), eq(2))).thenReturn(true);
 
         when(repo.save(any(Reservation.class))).thenAnswer(invocation -> {
             Reservation res = invocation.getArgument(0);
 
             // Ensure etudiants list is initialized
             if (res.getEtudiants() == null) {
-                res.setEtudiants(new ArrayList<>());
+                res.setEtudiants(new HashSet<>());
             }
 
             // Link entities
@@ -82,7 +112,7 @@ class ReservationServiceTest {
             etudiant.getReservations().add(res);
 
             if (chambre.getReservations() == null) {
-                chambre.setReservations(new ArrayList<>());
+                chambre.setReservations(new HashSet<>());
             }
             chambre.getReservations().add(res);
 
@@ -100,8 +130,8 @@ class ReservationServiceTest {
         assertThat(res.getEtudiants()).contains(etudiant);
         assertThat(chambre.getReservations()).contains(res);
 
-        verify(chambreRepository).findByNumeroChambre(101L);
-        verify(etudiantRepository).findByCin(123456L);
+        verify(chambreRepository, never()).findByNumeroChambre(101L);
+        verify(etudiantRepository, never()).findByCin(123456L);
         verify(repo).save(any(Reservation.class));
         verify(chambreRepository).save(chambre);
     }
@@ -112,7 +142,7 @@ class ReservationServiceTest {
         chambre.setIdChambre(2L);
         chambre.setNumeroChambre(102L);
         chambre.setTypeC(TypeChambre.SIMPLE);
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         Bloc bloc = new Bloc();
         bloc.setNomBloc("BlocB");
@@ -122,13 +152,13 @@ class ReservationServiceTest {
         etudiant.setCin(111111L);
         etudiant.setReservations(new ArrayList<>());
 
-        when(chambreRepository.findByNumeroChambre(102L)).thenReturn(chambre);
-        when(etudiantRepository.findByCin(111111L)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                eq(2L), any(LocalDate.class), any(LocalDate.class)
-        )).thenReturn(0); // Ensure space available
+        when(cles.idChambre(102L)).thenReturn(2L);
+        when(chambreRepository.findById(2L)).thenReturn(Optional.of(chambre));
+        when(cles.idEtudiant(111111L)).thenReturn(10L);
+        when(etudiantRepository.getReferenceById(10L)).thenReturn(etudiant);
+        when(ledger.tryReserve(eq(2L), any(LocalDate.class), eq(1))).thenReturn(true); // Ensure space available
 
-        ArrayList<Etudiant> etudiants = new ArrayList<>();
+        Set<Etudiant> etudiants = new HashSet<>();
         etudiants.add(etudiant);
         when(repo.save(any(Reservation.class))).thenAnswer(invocation -> {
             Reservation res = invocation.getArgument(0);
@@ -151,7 +181,7 @@ class ReservationServiceTest {
         chambre.setIdChambre(3L);
         chambre.setNumeroChambre(103L);
         chambre.setTypeC(TypeChambre.TRIPLE);
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         Bloc bloc = new Bloc();
         bloc.setNomBloc("BlocC");
@@ -161,17 +191,64 @@ class ReservationServiceTest {
         etudiant.setCin(999999L);
         etudiant.setReservations(new ArrayList<>());
 
-        when(chambreRepository.findByNumeroChambre(103L)).thenReturn(chambre);
-        when(etudiantRepository.findByCin(999999L)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                eq(3L), any(LocalDate.class), any(LocalDate.class)
-        )).thenReturn(3); // Chambre is full
+        when(cles.idChambre(103L)).thenReturn(3L);
+        when(chambreRepository.findById(3L)).thenReturn(Optional.of(chambre));
+        when(cles.idEtudiant(999999L)).thenReturn(10L);
+        when(etudiantRepository.getReferenceById(10L)).thenReturn(etudiant);
+        when(ledger.tryReserve(eq(3L), any(LocalDate.class), eq(3))).thenReturn(false); // Chambre is full
 
         Reservation res = reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(103L, 999999L);
 
         assertThat(res).isNull(); // 💥 Should cover the `return null`
+        verify(repo, never()).save(any(Reservation.class));
     }
 
+    @Test
+    void testAjouterReservation_UnknownCinShouldReturnNullWithoutBooking() {
+        when(cles.idChambre(105L)).thenReturn(5L);
+        when(chambreRepository.findById(5L)).thenReturn(Optional.of(Chambre.builder().idChambre(5L).build()));
+        when(cles.idEtudiant(555555L)).thenReturn(NaturalKeyCache.INCONNU);
+
+        assertThat(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(105L, 555555L)).isNull();
+        verifyNoInteractions(ledger, etudiantRepository);
+        verify(repo, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void testAjouterReservation_SaveFailsShouldReleasePlace() {
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(4L);
+        chambre.setNumeroChambre(104L);
+        chambre.setTypeC(TypeChambre.SIMPLE);
+        chambre.setReservations(new HashSet<>());
+        chambre.setBloc(Bloc.builder().nomBloc("BlocD").build());
+
+        Etudiant etudiant = new Etudiant();
+        etudiant.setCin(444444L);
+
+        when(cles.idChambre(104L)).thenReturn(4L);
+        when(chambreRepository.findById(4L)).thenReturn(Optional.of(chambre));
+        when(cles.idEtudiant(444444L)).thenReturn(10L);
+        when(etudiantRepository.getReferenceById(10L)).thenReturn(etudiant);
+        when(ledger.tryReserve(eq(4L), any(LocalDate.class), eq(1))).thenReturn(true);
+        when(repo.save(any(Reservation.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(104L, 444444L))
+                .isInstanceOf(IllegalStateException.class);
+        verify(ledger).release(eq(4L), any(LocalDate.class));
+    }
+
+
+    @Test
+    void testAjouterReservationsEnMasse_delegatesWithCurrentAcademicYear() {
+        List<DemandeReservation> demandes = List.of(new DemandeReservation(101L, 123456L));
+        List<ResultatReservation> resultats = List.of(
+                new ResultatReservation(101L, 123456L, "R1", ResultatReservation.Statut.RESERVEE));
+        when(bulkReservationService.reserver(demandes, reservationService.getDateDebutAU(), reservationService.getDateFinAU()))
+                .thenReturn(resultats);
+
+        assertThat(reservationService.ajouterReservationsEnMasse(demandes)).isEqualTo(resultats);
+    }
 
     @Test
     void getDateDebutAU_shouldReturnPreviousYearWhenBeforeAugust() {
@@ -225,38 +302,29 @@ class ReservationServiceTest {
         // Arrange
         long cin = 123456L;
         String reservationId = "2024/2025-BlocA-101-123456";
-
-        Etudiant etudiant = new Etudiant();
-        etudiant.setCin(cin);
-        ArrayList<Etudiant> etudiants = new ArrayList<>();
-        etudiants.add(etudiant);
-
+        LocalDate annee = LocalDate.of(2024, 10, 1);
 
         Reservation reservation = Reservation.builder()
                 .idReservation(reservationId)
+                .anneeUniversitaire(annee)
                 .estValide(true)
-                .etudiants(etudiants)
                 .build();
-        ArrayList<Reservation> reservations = new ArrayList<>();
-        reservations.add(reservation);
-        Chambre chambre = new Chambre();
-        chambre.setReservations(reservations);
 
         // Mock behavior
-        when(repo.findByEtudiantsCinAndEstValide(cin, true)).thenReturn(reservation);
-        when(chambreRepository.findByReservationsIdReservation(reservationId)).thenReturn(chambre);
+        when(cles.idEtudiant(cin)).thenReturn(10L);
+        when(repo.findReservationParIdEtudiant(10L, true)).thenReturn(reservation);
+        when(chambreRepository.findIdChambreByIdReservation(reservationId)).thenReturn(Optional.of(4L));
 
         // Act
         String result = reservationService.annulerReservation(cin);
 
         // Assert
         assertThat(result).isEqualTo("La réservation " + reservationId + " est annulée avec succés");
-        assertThat(chambre.getReservations()).doesNotContain(reservation);
-
-        verify(repo).findByEtudiantsCinAndEstValide(cin, true);
-        verify(chambreRepository).findByReservationsIdReservation(reservationId);
-        verify(chambreRepository).save(chambre);
+        verify(chambreRepository).retirerReservationDeChambre(reservationId);
         verify(repo).delete(reservation);
+        verify(ledger).release(4L, annee);
+        verify(chambreRepository, never()).findByReservationsIdReservation(any());
+        verify(chambreRepository, never()).save(any());
     }
     @Test
     void testAffectReservationAChambre_shouldAffectSuccessfully() {
@@ -269,7 +337,7 @@ class ReservationServiceTest {
                 .build();
 
         Chambre chambre = new Chambre();
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         // Mock repository behavior
         when(repo.findById(reservationId)).thenReturn(Optional.of(reservation));
@@ -302,32 +370,43 @@ class ReservationServiceTest {
     }
     @Test
     void testAnnulerReservation() {
-        Etudiant etudiant = new Etudiant();
-        etudiant.setCin(123456L);
-
         Reservation reservation = new Reservation();
         reservation.setIdReservation("2024/2025-B-101-123456");
         reservation.setEstValide(true);
-        reservation.setEtudiants(List.of(etudiant));
 
-        Chambre chambre = new Chambre();
-        chambre.setReservations(new ArrayList<>(List.of(reservation)));
-
-        when(repo.findByEtudiantsCinAndEstValide(123456L, true)).thenReturn(reservation);
-        when(chambreRepository.findByReservationsIdReservation(reservation.getIdReservation())).thenReturn(chambre);
+        when(cles.idEtudiant(123456L)).thenReturn(10L);
+        when(repo.findReservationParIdEtudiant(10L, true)).thenReturn(reservation);
+        // Réservation rattachée à aucune chambre : rien à libérer
+        when(chambreRepository.findIdChambreByIdReservation(reservation.getIdReservation()))
+                .thenReturn(Optional.empty());
 
         String result = reservationService.annulerReservation(123456L);
 
         assertThat(result).contains("est annulée avec succés");
         verify(repo).delete(reservation);
-        verify(chambreRepository).save(chambre);
+        verifyNoInteractions(ledger);
+    }
+
+    @Test
+    void testAnnulerReservation_unknownStudentOrNoValidReservation() {
+        when(cles.idEtudiant(999L)).thenReturn(NaturalKeyCache.INCONNU);
+        when(cles.idEtudiant(123456L)).thenReturn(10L);
+        when(repo.findReservationParIdEtudiant(10L, true)).thenReturn(null);
+
+        assertThat(reservationService.annulerReservation(999L))
+                .isEqualTo("Aucune réservation valide pour l'étudiant de CIN 999");
+        assertThat(reservationService.annulerReservation(123456L))
+                .isEqualTo("Aucune réservation valide pour l'étudiant de CIN 123456");
+        verify(repo, never()).findReservationParIdEtudiant(NaturalKeyCache.INCONNU, true);
+        verify(repo, never()).delete(any());
+        verifyNoInteractions(ledger);
     }
 
     @Test
     void testAffectReservationAChambre() {
         Reservation reservation = new Reservation();
         Chambre chambre = new Chambre();
-        chambre.setReservations(new ArrayList<>());
+        chambre.setReservations(new HashSet<>());
 
         when(repo.findById("res1")).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(1L)).thenReturn(Optional.of(chambre));
@@ -341,7 +420,7 @@ class ReservationServiceTest {
     void testDeaffectReservationAChambre() {
         Reservation reservation = new Reservation();
         Chambre chambre = new Chambre();
-        chambre.setReservations(new ArrayList<>(List.of(reservation)));
+        chambre.setReservations(new HashSet<>(Set.of(reservation)));
 
         when(repo.findById("res1")).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(1L)).thenReturn(Optional.of(chambre));
@@ -360,19 +439,11 @@ class ReservationServiceTest {
             // Only mock LocalDate.now() to return fakeNow
             mockedLocalDate.when(LocalDate::now).thenReturn(fakeNow);
 
-            // Setup reservation with the same date
-            Reservation r1 = new Reservation();
-            r1.setIdReservation("res1");
-            r1.setEstValide(true);
-            r1.setAnneeUniversitaire(fakeNow);
-
-            when(repo.findByEstValideAndAnneeUniversitaireBetween(eq(true), any(LocalDate.class), any(LocalDate.class)))
-                    .thenReturn(List.of(r1));
-
             reservationService.annulerReservations();
 
-            assertThat(r1.isEstValide()).isFalse();
-            verify(repo).save(r1);
+            // Clôture déléguée au job (UPDATE groupés), plus de save par réservation
+            verify(rolloverJob).executer(LocalDate.of(2024, 9, 15), LocalDate.of(2025, 6, 30));
+            verify(repo, never()).save(any(Reservation.class));
         }
     }
 
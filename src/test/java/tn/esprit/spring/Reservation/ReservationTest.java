@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import tn.esprit.spring.dao.entities.*;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashSet;
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -21,7 +21,7 @@ class ReservationTest {
 
         // Initialize etudiants list if null (because your entity doesn't do it)
         if (reservation.getEtudiants() == null) {
-            reservation.setEtudiants(new ArrayList<>());
+            reservation.setEtudiants(new HashSet<>());
         }
 
         // initially, etudiants list should be empty
@@ -38,7 +38,7 @@ class ReservationTest {
         reservation.getEtudiants().add(e1);
 
         assertThat(reservation.getEtudiants()).hasSize(1);
-        assertThat(reservation.getEtudiants().get(0).getNomEt()).isEqualTo("Nom1");
+        assertThat(reservation.getEtudiants().iterator().next().getNomEt()).isEqualTo("Nom1");
     }
 
     @Test
@@ -50,7 +50,7 @@ class ReservationTest {
 
         // Initialize etudiants list if null
         if (reservation.getEtudiants() == null) {
-            reservation.setEtudiants(new ArrayList<>());
+            reservation.setEtudiants(new HashSet<>());
         }
 
         assertThat(reservation.getIdReservation()).isEqualTo("R456");
@@ -63,6 +63,6 @@ class ReservationTest {
         reservation.getEtudiants().add(e2);
 
         assertThat(reservation.getEtudiants()).hasSize(1);
-        assertThat(reservation.getEtudiants().get(0).getPrenomEt()).isEqualTo("Prenom");
+        assertThat(reservation.getEtudiants().iterator().next().getPrenomEt()).isEqualTo("Prenom");
     }
 }
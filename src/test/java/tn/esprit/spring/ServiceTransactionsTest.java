@@ -0,0 +1,183 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.bloc.BlocService;
+import tn.esprit.spring.services.bloc.IBlocService;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.etudiant.EtudiantService;
+import tn.esprit.spring.services.etudiant.IEtudiantService;
+import tn.esprit.spring.services.export.NdjsonExporter;
+import tn.esprit.spring.services.foyer.FoyerService;
+import tn.esprit.spring.services.foyer.IFoyerService;
+import tn.esprit.spring.services.reservation.ReservationService;
+import tn.esprit.spring.services.universite.UniversiteService;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Frontières de transaction des services : lectures en transaction read-only, une
+ * transaction par opération métier. Mesure des connexions demandées par opération
+ * avant (une transaction par appel de repository) et après.
+ */
+@FoyerJpaTestSansTransaction
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Slf4j
+class ServiceTransactionsTest {
+
+    private static final Pattern ECRITURE =
+            Pattern.compile("^(add|ajout|affect|desaffect|deaffect|delete|annuler).*");
+    private static final List<Class<?>> SERVICES = List.of(BlocService.class, ChambreService.class,
+            EtudiantService.class, FoyerService.class, ReservationService.class, UniversiteService.class);
+
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlocService blocService;
+    private FoyerService foyerService;
+    private EtudiantService etudiantService;
+    private Statistics statistiques;
+    private long idFoyer;
+    private long idUniversite;
+
+    @BeforeEach
+    void setup() {
+        Foyer foyer = foyerRepository.save(Foyer.builder().nomFoyer("Foyer El Manar").capaciteFoyer(300).build());
+        idFoyer = foyer.getIdFoyer();
+        idUniversite = universiteRepository.save(Universite.builder().nomUniversite("Esprit").build()).getIdUniversite();
+        for (int i = 1; i <= 10; i++) {
+            blocRepository.save(Bloc.builder().nomBloc("Bloc " + i).capaciteBloc(10).build());
+            etudiantRepository.save(Etudiant.builder().nomEt("Nom " + i).prenomEt("Prenom " + i).cin(i).build());
+            reservationRepository.save(Reservation.builder().idReservation("R" + i)
+                    .anneeUniversitaire(LocalDate.of(2024, 10, i)).estValide(true).build());
+        }
+
+        NaturalKeyCache cles = new NaturalKeyCache(chambreRepository, etudiantRepository, blocRepository,
+                foyerRepository, universiteRepository, new SimpleMeterRegistry(), 1000);
+        AvailabilityIndex availabilityIndex = mock(AvailabilityIndex.class);
+        blocService = new BlocService(blocRepository, chambreRepository, blocRepository, foyerRepository,
+                availabilityIndex, mock(RoomTypeCounters.class), mock(RoomTypeDistribution.class), cles);
+        foyerService = new FoyerService(foyerRepository, foyerRepository, universiteRepository, blocRepository,
+                availabilityIndex, cles);
+        etudiantService = new EtudiantService(etudiantRepository, reservationRepository,
+                mock(NdjsonExporter.class), cles);
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testServices_readsAreReadOnlyAndWritesOpenATransaction() {
+        AnnotationTransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+        for (Class<?> service : SERVICES) {
+            for (Method methode : service.getDeclaredMethods()) {
+                if (!Modifier.isPublic(methode.getModifiers()) || methode.isSynthetic()) {
+                    continue;
+                }
+                TransactionAttribute attribut = source.getTransactionAttribute(methode, service);
+                String nom = service.getSimpleName() + "." + methode.getName();
+                assertThat(attribut).as(nom).isNotNull();
+                if (ECRITURE.matcher(methode.getName()).matches()) {
+                    assertThat(attribut.isReadOnly()).as(nom).isFalse();
+                } else {
+                    assertThat(attribut.isReadOnly()).as(nom).isTrue();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOperations_useOneConnectionEach() {
+        IBlocService blocs = transactionnel(blocService);
+        IFoyerService foyers = transactionnel(foyerService);
+        IEtudiantService etudiants = transactionnel(etudiantService);
+
+        comparer("affecterBlocAFoyer", i -> blocService.affecterBlocAFoyer("Bloc " + i, "Foyer El Manar"),
+                i -> blocs.affecterBlocAFoyer("Bloc " + (i + 5), "Foyer El Manar"));
+        comparer("affecterFoyerAUniversite", i -> foyerService.affecterFoyerAUniversite(idFoyer, idUniversite),
+                i -> foyers.affecterFoyerAUniversite(idFoyer, idUniversite));
+        // Sans transaction, les réservations de l'étudiant ne peuvent même pas être chargées
+        assertThatThrownBy(() -> etudiantService.affecterReservationAEtudiant("R1", "Nom 1", "Prenom 1"))
+                .isInstanceOf(LazyInitializationException.class);
+        statistiques.clear();
+        etudiants.affecterReservationAEtudiant("R8", "Nom 8", "Prenom 8");
+        assertThat(statistiques.getConnectCount()).isEqualTo(1);
+
+        assertThat(blocRepository.findByNomBloc("Bloc 7").getFoyer().getIdFoyer()).isEqualTo(idFoyer);
+    }
+
+    // Quatre appels de chaque variante, après un premier qui remplit les caches
+    private void comparer(String operation, Consumer<Integer> sansTransaction, Consumer<Integer> avecTransaction) {
+        sansTransaction.accept(1);
+        avecTransaction.accept(1);
+        long avant = connexions(sansTransaction);
+        long apres = connexions(avecTransaction);
+        log.info("{} : {} connexion(s) par appel sans transaction, {} avec", operation, avant / 4.0, apres / 4.0);
+        assertThat(apres).as(operation).isEqualTo(4);
+        assertThat(avant).as(operation).isGreaterThan(apres);
+    }
+
+    private long connexions(Consumer<Integer> operation) {
+        statistiques.clear();
+        for (int i = 2; i <= 5; i++) {
+            operation.accept(i);
+        }
+        return statistiques.getConnectCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T transactionnel(Object service) {
+        ProxyFactory proxy = new ProxyFactory(service);
+        proxy.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (T) proxy.getProxy();
+    }
+}
@@ -9,6 +9,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tn.esprit.spring.dao.entities.Universite;
 import tn.esprit.spring.dao.repositories.UniversiteRepository;
 import tn.esprit.spring.services.universite.UniversiteService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.*;
 
@@ -22,6 +23,9 @@ class IUniversiteServiceTest {
     @Mock
     private UniversiteRepository universiteRepository;
 
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private UniversiteService universiteService;  // your implementation class
 
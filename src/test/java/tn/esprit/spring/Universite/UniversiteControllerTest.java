@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.projections.UniversiteVue;
 import tn.esprit.spring.restcontrollers.UniversiteRestController;
 import tn.esprit.spring.services.universite.UniversiteService;
 
@@ -33,6 +34,7 @@ class UniversiteControllerTest {
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
     private Universite universite;
+    private UniversiteVue vue;
 
     @BeforeEach
     void setUp() {
@@ -45,6 +47,7 @@ class UniversiteControllerTest {
                 .nomUniversite("Université de Tunis")
                 .adresse("Rue de la Paix")
                 .build();
+        vue = new UniversiteVue(1L, "Université de Tunis", "Rue de la Paix", 2L, "Foyer El Manar", 300L);
     }
 
     @Test
@@ -61,27 +64,28 @@ class UniversiteControllerTest {
     }
 
     @Test
-    void testFindAll() throws Exception {
-        List<Universite> list = Collections.singletonList(universite);
-        when(universiteService.findAll()).thenReturn(list);
+    void testFindAll_Unpaged() throws Exception {
+        List<UniversiteVue> list = Collections.singletonList(vue);
+        when(universiteService.findAllVues()).thenReturn(list);
 
-        mockMvc.perform(get("/universite/findAll"))
+        mockMvc.perform(get("/universite/findAll").param("nonPagine", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].nomUniversite").value("Université de Tunis"));
 
-        verify(universiteService, times(1)).findAll();
+        verify(universiteService, times(1)).findAllVues();
     }
 
     @Test
     void testFindById() throws Exception {
-        when(universiteService.findById(1L)).thenReturn(universite);
+        when(universiteService.findVueById(1L)).thenReturn(vue);
 
         mockMvc.perform(get("/universite/findById")
                         .param("id", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.idUniversite").value(1));
+                .andExpect(jsonPath("$.idUniversite").value(1))
+                .andExpect(jsonPath("$.foyer.nomFoyer").value("Foyer El Manar"));
 
-        verify(universiteService, times(1)).findById(1L);
+        verify(universiteService, times(1)).findVueById(1L);
     }
 
     @Test
@@ -10,6 +10,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tn.esprit.spring.dao.entities.Universite;
 import tn.esprit.spring.dao.repositories.UniversiteRepository;
 import tn.esprit.spring.services.universite.UniversiteService;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
 
 import java.util.*;
 
@@ -23,6 +24,9 @@ class UniversiteServiceTest {
     @Mock
     private UniversiteRepository universiteRepository;
 
+    @Mock
+    private NaturalKeyCache cles;
+
     @InjectMocks
     private UniversiteService universiteService;
 
@@ -0,0 +1,146 @@
+package tn.esprit.spring.aop;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class ServiceTimingAspectTest {
+
+    private static final List<Duration> SLO = List.of(Duration.ofMillis(5), Duration.ofMillis(100));
+
+    private SimpleMeterRegistry registry;
+    private ChambreRepository chambreRepository;
+    private RoomTypeCounters compteurs;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        chambreRepository = mock(ChambreRepository.class);
+        when(chambreRepository.findPlacements()).thenReturn(List.<Object[]>of(new Object[]{1L, 7L, TypeChambre.SIMPLE}));
+        compteurs = new RoomTypeCounters(chambreRepository);
+        compteurs.initialiser();
+    }
+
+    @Test
+    void testMesurer_recordsOneTimerPerMethodWithSloBuckets() {
+        RoomTypeCounters service = proxy(new ServiceTimingAspect(registry, SLO, List.of(0.99), List.of()));
+
+        assertThat(service.nombre(TypeChambre.SIMPLE, 7L)).isEqualTo(1);
+        assertThat(service.nombre(TypeChambre.DOUBLE, 7L)).isZero();
+
+        Timer timer = registry.get(ServiceTimingAspect.NOM)
+                .tags("classe", "RoomTypeCounters", "methode", "nombre", "resultat", "succes").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(Arrays.stream(timer.takeSnapshot().histogramCounts()).map(CountAtBucket::bucket))
+                .contains((double) Duration.ofMillis(5).toNanos(), (double) Duration.ofMillis(100).toNanos());
+        assertThat(timer.takeSnapshot().percentileValues()).hasSize(1);
+    }
+
+    @Test
+    void testMesurer_recordsFailuresAndRethrows() {
+        RoomTypeCounters service = proxy(new ServiceTimingAspect(registry, SLO, List.of(), List.of()));
+        when(chambreRepository.countChambresParBlocEtType()).thenThrow(new IllegalStateException("base indisponible"));
+
+        service.nombre(TypeChambre.SIMPLE, 7L);
+        assertThatThrownBy(service::reconcilier).hasMessage("base indisponible");
+
+        assertThat(registry.get(ServiceTimingAspect.NOM).tags("methode", "reconcilier", "resultat", "erreur")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(ServiceTimingAspect.NOM).tags("methode", "reconcilier", "resultat", "succes")
+                .timer().count()).isZero();
+        assertThat(registry.find(ServiceTimingAspect.NOM).tags("methode", "nombre", "resultat", "erreur").timer())
+                .isNull();
+    }
+
+    @Test
+    void testActiver_switchesAPackageAtRuntime() {
+        ServiceTimingAspect aspect = new ServiceTimingAspect(registry, SLO, List.of(), List.of("chambre"));
+        InstrumentationEndpoint endpoint = new InstrumentationEndpoint(aspect);
+        RoomTypeCounters service = proxy(aspect);
+
+        assertThat(service.nombre(TypeChambre.SIMPLE, 7L)).isEqualTo(1);
+        assertThat(endpoint.paquets()).isEqualTo(Map.of("chambre", false));
+        assertThat(nombreDAppels()).isZero();
+
+        endpoint.activer("chambre", true);
+        service.nombre(TypeChambre.SIMPLE, 7L);
+        assertThat(nombreDAppels()).isEqualTo(1);
+
+        endpoint.activer("chambre", false);
+        service.nombre(TypeChambre.SIMPLE, 7L);
+        assertThat(nombreDAppels()).isEqualTo(1);
+    }
+
+    // Surcoût par appel comparé à un aspect qui ne fait que proceed(), meilleur de cinq séries.
+    // Mesure au chronomètre, sensible à la charge de la machine : lancée sur demande (-Dfoyer.bench=true)
+    @Test
+    @EnabledIfSystemProperty(named = "foyer.bench", matches = "true")
+    void testMesurer_costsLessThanOneMicrosecondPerCall() {
+        RoomTypeCounters mesure = proxy(new ServiceTimingAspect(registry, SLO, List.of(), List.of()));
+        RoomTypeCounters temoin = proxy(new Transparent());
+
+        long surcout = Long.MAX_VALUE;
+        for (int serie = 0; serie < 5; serie++) {
+            long avecMesure = nanosParAppel(mesure);
+            long sansMesure = nanosParAppel(temoin);
+            surcout = Math.min(surcout, avecMesure - sansMesure);
+            log.info("Série {} : {} ns par appel mesuré, {} ns sans mesure", serie, avecMesure, sansMesure);
+        }
+
+        assertThat(surcout).isLessThan(1000);
+    }
+
+    private long nanosParAppel(RoomTypeCounters service) {
+        int appels = 200_000;
+        long total = 0;
+        long debut = System.nanoTime();
+        for (int i = 0; i < appels; i++) {
+            total += service.nombre(TypeChambre.SIMPLE, 7L);
+        }
+        long duree = System.nanoTime() - debut;
+        assertThat(total).isEqualTo(appels);
+        return duree / appels;
+    }
+
+    private double nombreDAppels() {
+        Timer timer = registry.find(ServiceTimingAspect.NOM).tag("resultat", "succes").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private RoomTypeCounters proxy(Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(compteurs);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Aspect
+    static class Transparent {
+        @Around("execution(* tn.esprit.spring.services..*.*(..))")
+        public Object appeler(ProceedingJoinPoint pjp) throws Throwable {
+            return pjp.proceed();
+        }
+    }
+}
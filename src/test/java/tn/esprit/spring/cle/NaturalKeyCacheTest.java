@@ -0,0 +1,140 @@
+package tn.esprit.spring.cle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NaturalKeyCacheTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+    @Mock
+    private EtudiantRepository etudiantRepository;
+    @Mock
+    private BlocRepository blocRepository;
+    @Mock
+    private FoyerRepository foyerRepository;
+    @Mock
+    private UniversiteRepository universiteRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private NaturalKeyCache cles;
+
+    @BeforeEach
+    void setup() {
+        cles = new NaturalKeyCache(chambreRepository, etudiantRepository, blocRepository, foyerRepository,
+                universiteRepository, registry, 100_000);
+    }
+
+    @Test
+    void testIdChambre_queriesOnceThenServesFromMemory() {
+        when(chambreRepository.findIdByNumeroChambre(101)).thenReturn(Optional.of(7L));
+
+        assertThat(cles.idChambre(101)).isEqualTo(7L);
+        assertThat(cles.idChambre(101)).isEqualTo(7L);
+
+        verify(chambreRepository, times(1)).findIdByNumeroChambre(101);
+        assertThat(resolutions("chambre", "succes")).isEqualTo(1.0);
+        assertThat(resolutions("chambre", "echec")).isEqualTo(1.0);
+        assertThat(registry.get("foyer.cles.taille").tag("cle", "chambre").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("foyer.cles.taux.succes").tag("cle", "chambre").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testIdChambre_unknownNumberIsNotRemembered() {
+        when(chambreRepository.findIdByNumeroChambre(404)).thenReturn(Optional.empty());
+
+        assertThat(cles.idChambre(404)).isEqualTo(NaturalKeyCache.INCONNU);
+        assertThat(cles.idChambre(404)).isEqualTo(NaturalKeyCache.INCONNU);
+        verify(chambreRepository, times(2)).findIdByNumeroChambre(404);
+    }
+
+    @Test
+    void testIdChambre_manyKeysSurviveGrowthAndRemovals() {
+        when(chambreRepository.findIdByNumeroChambre(anyLong()))
+                .thenAnswer(invocation -> Optional.of((long) invocation.getArgument(0) * 10));
+        LongStream.range(0, 10_000).forEach(cles::idChambre);
+        // Une chambre sur deux modifiée : son numéro est oublié, les autres restent en mémoire
+        LongStream.range(0, 10_000).filter(n -> n % 2 == 0).forEach(n -> cles.chambreModifiee(n * 10));
+        clearInvocations(chambreRepository);
+
+        for (long n = 0; n < 10_000; n++) {
+            assertThat(cles.idChambre(n)).isEqualTo(n * 10);
+        }
+        verify(chambreRepository, times(5_000)).findIdByNumeroChambre(anyLong());
+        assertThat(registry.get("foyer.cles.taille").tag("cle", "chambre").gauge().value()).isEqualTo(10_000.0);
+    }
+
+    @Test
+    void testIdEtudiant_unknownCinIsRejectedWithoutQuery() {
+        when(etudiantRepository.findAllCins()).thenReturn(List.of(11111111L, 22222222L));
+        when(etudiantRepository.findIdByCin(11111111L)).thenReturn(Optional.of(1L));
+        cles.chargerCins();
+
+        assertThat(cles.idEtudiant(11111111L)).isEqualTo(1L);
+        assertThat(cles.idEtudiant(99999999L)).isEqualTo(NaturalKeyCache.INCONNU);
+
+        verify(etudiantRepository, never()).findIdByCin(99999999L);
+        assertThat(resolutions("etudiant", "rejet")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testEtudiantModifie_newCinPassesTheFilter() {
+        when(etudiantRepository.findAllCins()).thenReturn(List.of(11111111L));
+        cles.chargerCins();
+        when(etudiantRepository.findIdByCin(33333333L)).thenReturn(Optional.of(3L));
+
+        cles.etudiantModifie(Etudiant.builder().idEtudiant(3L).cin(33333333L).build());
+
+        assertThat(cles.idEtudiant(33333333L)).isEqualTo(3L);
+    }
+
+    @Test
+    void testBlocModifie_forgetsTheRenamedBloc() {
+        when(blocRepository.findIdByNomBloc("Bloc A")).thenReturn(Optional.of(5L));
+        assertThat(cles.idBloc("Bloc A")).isEqualTo(5L);
+
+        // Bloc A renommé en Bloc B
+        cles.blocModifie(5L);
+        when(blocRepository.findIdByNomBloc("Bloc A")).thenReturn(Optional.empty());
+
+        assertThat(cles.idBloc("Bloc A")).isEqualTo(NaturalKeyCache.INCONNU);
+        assertThat(registry.get("foyer.cles.taille").tag("cle", "bloc").gauge().value()).isZero();
+    }
+
+    @Test
+    void testIdFoyer_readOverlappingAWriteIsNotRemembered() {
+        // Le foyer est modifié pendant que sa résolution est en cours
+        when(foyerRepository.findIdByNomFoyer("Foyer 1")).thenAnswer(invocation -> {
+            cles.foyerModifie(2L);
+            return Optional.of(2L);
+        });
+
+        assertThat(cles.idFoyer("Foyer 1")).isEqualTo(2L);
+        assertThat(cles.idFoyer("Foyer 1")).isEqualTo(2L);
+        verify(foyerRepository, times(2)).findIdByNomFoyer("Foyer 1");
+    }
+
+    private double resolutions(String cle, String resultat) {
+        return registry.get("foyer.cles.resolutions").tag("cle", cle).tag("resultat", resultat).counter().count();
+    }
+}
@@ -0,0 +1,298 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class AsyncLoggingTest {
+
+    // Écriture d'un événement par l'appender lent (console ou disque chargés)
+    private static final long ECRITURE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int NB_REQUETES = Integer.getInteger("foyer.bench.requetes", 2_000);
+
+    @Test
+    void testAbandon_countsEveryDroppedEvent() throws InterruptedException {
+        LoggerContext contexte = contexte();
+        CountDownLatch bloque = new CountDownLatch(1);
+        Compteur aval = new Compteur(contexte, () -> attendre(bloque));
+        AsyncLogAppender appender = async(contexte, aval, 4, AsyncLogAppender.Politique.ABANDON);
+        Logger logger = logger(contexte, "tn.esprit.spring.test", appender);
+
+        for (int i = 0; i < 50; i++) {
+            logger.info("Événement {}", i);
+        }
+        long perdus = appender.perdus();
+        bloque.countDown();
+        appender.stop();
+
+        // Quatre en file, au plus un en cours d'écriture quand l'appender aval a bloqué
+        assertThat(perdus).isBetween(45L, 46L);
+        assertThat(aval.recus.get() + perdus).isEqualTo(50);
+        assertThat(aval.isStarted()).isFalse();
+    }
+
+    @Test
+    void testAbandon_neverDropsWarnings() throws InterruptedException {
+        LoggerContext contexte = contexte();
+        CountDownLatch bloque = new CountDownLatch(1);
+        Compteur aval = new Compteur(contexte, () -> attendre(bloque));
+        AsyncLogAppender appender = async(contexte, aval, 4, AsyncLogAppender.Politique.ABANDON);
+        Logger logger = logger(contexte, "tn.esprit.spring.test", appender);
+
+        // L'écrivain bloque sur le premier événement, puis la file se remplit
+        logger.info("Premier événement");
+        while (appender.enFile() > 0) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < 10; i++) {
+            logger.info("Événement {}", i);
+        }
+        long perdus = appender.perdus();
+        // File pleine : l'avertissement attend une place au lieu d'être perdu
+        Thread avertisseur = new Thread(() -> logger.warn("Requête lente"));
+        avertisseur.start();
+        avertisseur.join(200);
+        assertThat(avertisseur.isAlive()).isTrue();
+        bloque.countDown();
+        avertisseur.join();
+        appender.stop();
+
+        assertThat(perdus).isEqualTo(6);
+        assertThat(appender.perdus()).isEqualTo(perdus);
+        assertThat(aval.avertissements.get()).isEqualTo(1);
+        assertThat(aval.recus.get()).isEqualTo(6);
+    }
+
+    @Test
+    void testAttente_losesNothing() {
+        LoggerContext contexte = contexte();
+        Compteur aval = new Compteur(contexte, () -> LockSupport.parkNanos(ECRITURE_NANOS));
+        AsyncLogAppender appender = async(contexte, aval, 4, AsyncLogAppender.Politique.ATTENTE);
+        Logger logger = logger(contexte, "tn.esprit.spring.test", appender);
+
+        for (int i = 0; i < 200; i++) {
+            logger.info("Événement {}", i);
+        }
+        appender.stop();
+
+        assertThat(aval.recus).hasValue(200);
+        assertThat(appender.perdus()).isZero();
+    }
+
+    @Test
+    void testEchantillonnage_keepsOneEventInNPerLoggerAndAllWarnings() {
+        LoggerContext contexte = contexte();
+        LogSampler echantillonnage = new LogSampler(AsyncLogging.taux(List.of(
+                "tn.esprit.spring.schedular:10", "tn.esprit.spring.schedular.Schedular:1")));
+        echantillonnage.setContext(contexte);
+        echantillonnage.start();
+        contexte.addTurboFilter(echantillonnage);
+        ListAppender<ILoggingEvent> liste = new ListAppender<>();
+        liste.setContext(contexte);
+        liste.start();
+        Logger racine = contexte.getLogger(Logger.ROOT_LOGGER_NAME);
+        racine.setLevel(Level.INFO);
+        racine.addAppender(liste);
+
+        Logger bavard = contexte.getLogger("tn.esprit.spring.schedular.S4SE1Class");
+        Logger autre = contexte.getLogger("tn.esprit.spring.schedular.Test");
+        Logger exclu = contexte.getLogger("tn.esprit.spring.schedular.Schedular");
+        Logger service = contexte.getLogger("tn.esprit.spring.services.chambre.ChambreService");
+        for (int i = 0; i < 100; i++) {
+            bavard.info("Hello fixedDelay {}", i);
+            bavard.debug("Sous le niveau du logger {}", i);
+            bavard.isInfoEnabled();
+            autre.info("Bonjour");
+            exclu.info("Digest");
+            service.info("Chambre {} remplie !", TypeChambre.SIMPLE);
+        }
+        bavard.warn("Toujours écrit");
+        bavard.error("Toujours écrit");
+
+        assertThat(nombre(liste, "tn.esprit.spring.schedular.S4SE1Class")).isEqualTo(12);
+        assertThat(nombre(liste, "tn.esprit.spring.schedular.Test")).isEqualTo(10);
+        assertThat(nombre(liste, "tn.esprit.spring.schedular.Schedular")).isEqualTo(100);
+        assertThat(nombre(liste, "tn.esprit.spring.services.chambre.ChambreService")).isEqualTo(100);
+        assertThat(echantillonnage.ecartes()).isEqualTo(180);
+    }
+
+    @Test
+    void testTaux_rejectsEntriesWithoutRate() {
+        assertThat(AsyncLogging.taux(List.of("org.hibernate.SQL:100"))).isEqualTo(Map.of("org.hibernate.SQL", 100));
+        assertThatThrownBy(() -> AsyncLogging.taux(List.of("org.hibernate.SQL")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testAsyncLogging_wrapsRootAppendersAndPublishesMetrics() {
+        Logger racine = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        List<Appender<ILoggingEvent>> origine = appenders(racine);
+        int filtres = racine.getLoggerContext().getTurboFilterList().size();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        AsyncLogging journalisation = new AsyncLogging(registry, 1024, AsyncLogAppender.Politique.ABANDON,
+                List.of("tn.esprit.spring.schedular:10"));
+        try {
+            assertThat(appenders(racine)).containsExactly(journalisation.appender());
+            assertThat(appenders(journalisation.appender())).containsExactlyElementsOf(origine);
+            for (int i = 0; i < 10; i++) {
+                LoggerFactory.getLogger("tn.esprit.spring.schedular.S4SE1Class").info("Hello fixedDelay {}", i);
+            }
+            assertThat(registry.get("foyer.logs.ecartes").tag("raison", "echantillonnage")
+                    .functionCounter().count()).isEqualTo(9);
+            assertThat(registry.get("foyer.logs.ecartes").tag("raison", "file_pleine")
+                    .functionCounter().count()).isZero();
+            assertThat(registry.get("foyer.logs.file").gauge().value()).isBetween(0.0, 1024.0);
+        } finally {
+            journalisation.desinstaller();
+        }
+
+        assertThat(appenders(racine)).containsExactlyElementsOf(origine);
+        assertThat(origine).allMatch(Appender::isStarted);
+        assertThat(racine.getLoggerContext().getTurboFilterList()).hasSize(filtres);
+    }
+
+    // Requête qui journalise quatre lignes (pourcentageChambreParTypeChambre) derrière un appender
+    // lent : écrit sur le thread de la requête, puis déposé dans la file. Comparaison au chronomètre,
+    // sensible à la charge de la machine : lancée sur demande (-Dfoyer.bench=true)
+    @Test
+    @EnabledIfSystemProperty(named = "foyer.bench", matches = "true")
+    void testAsync_removesLogWritesFromRequestLatency() {
+        RoomTypeDistribution repartition = mock(RoomTypeDistribution.class);
+        when(repartition.total()).thenReturn(300L);
+        when(repartition.pourcentage(TypeChambre.SIMPLE)).thenReturn(33.3);
+        ChambreService service = new ChambreService(null, null, null, null, null, repartition, null, null);
+        Logger logger = (Logger) LoggerFactory.getLogger(ChambreService.class);
+        LoggerContext contexte = logger.getLoggerContext();
+        Level niveau = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        try {
+            Compteur synchrone = new Compteur(contexte, () -> LockSupport.parkNanos(ECRITURE_NANOS));
+            logger.addAppender(synchrone);
+            long avant = nanosParRequete(service);
+            logger.detachAppender(synchrone);
+
+            Compteur aval = new Compteur(contexte, () -> LockSupport.parkNanos(ECRITURE_NANOS));
+            AsyncLogAppender appender = async(contexte, aval, 4 * NB_REQUETES * 2, AsyncLogAppender.Politique.ABANDON);
+            logger.addAppender(appender);
+            long apres = nanosParRequete(service);
+            logger.detachAppender(appender);
+            appender.stop();
+
+            log.info("{} requêtes, 4 lignes par requête : {} µs par requête en écriture synchrone, {} µs avec la file",
+                    NB_REQUETES, avant / 1000, apres / 1000);
+            assertThat(synchrone.recus).hasValue(4 * NB_REQUETES);
+            assertThat(aval.recus).hasValue(4 * NB_REQUETES);
+            assertThat(appender.perdus()).isZero();
+            assertThat(apres).isLessThan(avant / 5);
+        } finally {
+            logger.setAdditive(true);
+            logger.setLevel(niveau);
+        }
+    }
+
+    private static long nanosParRequete(ChambreService service) {
+        long debut = System.nanoTime();
+        for (int i = 0; i < NB_REQUETES; i++) {
+            service.pourcentageChambreParTypeChambre();
+        }
+        return (System.nanoTime() - debut) / NB_REQUETES;
+    }
+
+    // Contexte isolé du contexte global ; le MDC est copié dans les événements différés
+    private static LoggerContext contexte() {
+        LoggerContext contexte = new LoggerContext();
+        contexte.setMDCAdapter(new LogbackMDCAdapter());
+        return contexte;
+    }
+
+    private static AsyncLogAppender async(LoggerContext contexte, Appender<ILoggingEvent> aval, int capacite,
+                                          AsyncLogAppender.Politique politique) {
+        AsyncLogAppender appender = new AsyncLogAppender();
+        appender.setName("test");
+        appender.setContext(contexte);
+        appender.setCapacite(capacite);
+        appender.setPolitique(politique);
+        appender.setDelaiVidage(TimeUnit.SECONDS.toMillis(30));
+        appender.addAppender(aval);
+        appender.start();
+        return appender;
+    }
+
+    private static Logger logger(LoggerContext contexte, String nom, Appender<ILoggingEvent> appender) {
+        Logger logger = contexte.getLogger(nom);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private static List<Appender<ILoggingEvent>> appenders(ch.qos.logback.core.spi.AppenderAttachable<ILoggingEvent> a) {
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        a.iteratorForAppenders().forEachRemaining(appenders::add);
+        return appenders;
+    }
+
+    private static long nombre(ListAppender<ILoggingEvent> liste, String logger) {
+        return liste.list.stream().filter(e -> e.getLoggerName().equals(logger)).count();
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Appender aval : formate le message, simule l'écriture, compte les événements reçus
+    private static final class Compteur extends AppenderBase<ILoggingEvent> {
+        final AtomicInteger recus = new AtomicInteger();
+        final AtomicInteger avertissements = new AtomicInteger();
+        private final Runnable ecriture;
+
+        Compteur(LoggerContext contexte, Runnable ecriture) {
+            this.ecriture = ecriture;
+            setContext(contexte);
+            start();
+        }
+
+        @Override
+        protected void append(ILoggingEvent evenement) {
+            evenement.getFormattedMessage();
+            ecriture.run();
+            recus.incrementAndGet();
+            if (evenement.getLevel().isGreaterOrEqual(Level.WARN)) {
+                avertissements.incrementAndGet();
+            }
+        }
+    }
+}
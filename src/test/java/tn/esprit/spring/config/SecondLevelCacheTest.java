@@ -0,0 +1,175 @@
+package tn.esprit.spring.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Caches;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Foyer;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.Universite;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.FoyerRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.dao.repositories.UniversiteRepository;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTestSansTransaction
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SecondLevelCacheTest {
+
+    private static final int NB_BLOCS = 3;
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistiques;
+    private TransactionTemplate transaction;
+    private long idUniversite;
+    private long idFoyer;
+    private long idBloc;
+
+    @BeforeEach
+    void setup() {
+        Foyer foyer = Foyer.builder().nomFoyer("Foyer El Manar").capaciteFoyer(300).build();
+        Universite universite = universiteRepository.save(
+                Universite.builder().nomUniversite("Esprit").adresse("Ariana").foyer(foyer).build());
+        idUniversite = universite.getIdUniversite();
+        idFoyer = universite.getFoyer().getIdFoyer();
+        for (int i = 1; i <= NB_BLOCS; i++) {
+            idBloc = blocRepository.save(Bloc.builder().nomBloc("Bloc " + i).capaciteBloc(10)
+                    .foyer(universite.getFoyer()).build()).getIdBloc();
+        }
+        transaction = new TransactionTemplate(transactionManager);
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testFindById_repeatedReadsDoNotQueryTheDatabase() {
+        lireParId();
+        statistiques.clear();
+
+        lireParId();
+
+        assertThat(statistiques.getPrepareStatementCount()).isZero();
+        assertThat(statistiques.getDomainDataRegionStatistics(Caches.UNIVERSITE).getHitCount()).isEqualTo(1);
+        assertThat(statistiques.getDomainDataRegionStatistics(Caches.BLOC).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFoyerBlocs_collectionIsServedFromTheCache() {
+        assertThat(nombreDeBlocs()).isEqualTo(NB_BLOCS);
+        statistiques.clear();
+
+        assertThat(nombreDeBlocs()).isEqualTo(NB_BLOCS);
+
+        assertThat(statistiques.getPrepareStatementCount()).isZero();
+        assertThat(statistiques.getDomainDataRegionStatistics(Caches.FOYER_BLOCS).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFoyerBlocs_newBlocEvictsTheCollection() {
+        nombreDeBlocs();
+
+        Foyer foyer = foyerRepository.findById(idFoyer).orElseThrow();
+        blocRepository.save(Bloc.builder().nomBloc("Bloc 4").capaciteBloc(10).foyer(foyer).build());
+
+        assertThat(nombreDeBlocs()).isEqualTo(NB_BLOCS + 1);
+    }
+
+    @Test
+    void testFindByNom_queryCacheUntilTheTableChanges() {
+        blocRepository.findByNomBloc("Bloc 2");
+        foyerRepository.findByNomFoyer("Foyer El Manar");
+        universiteRepository.findByNomUniversite("Esprit");
+        statistiques.clear();
+
+        assertThat(blocRepository.findByNomBloc("Bloc 2").getNomBloc()).isEqualTo("Bloc 2");
+        assertThat(foyerRepository.findByNomFoyer("Foyer El Manar").getIdFoyer()).isEqualTo(idFoyer);
+        assertThat(universiteRepository.findByNomUniversite("Esprit").getIdUniversite()).isEqualTo(idUniversite);
+        assertThat(statistiques.getPrepareStatementCount()).isZero();
+        assertThat(statistiques.getQueryCacheHitCount()).isEqualTo(3);
+
+        Bloc bloc = blocRepository.findById(idBloc).orElseThrow();
+        bloc.setNomBloc("Bloc 3 bis");
+        blocRepository.save(bloc);
+        statistiques.clear();
+
+        // Écriture sur t_bloc : le résultat mémorisé n'est plus utilisé
+        assertThat(blocRepository.findByNomBloc("Bloc 2").getNomBloc()).isEqualTo("Bloc 2");
+        assertThat(blocRepository.findByNomBloc("Bloc 3 bis").getIdBloc()).isEqualTo(idBloc);
+        assertThat(statistiques.getQueryCacheHitCount()).isZero();
+    }
+
+    @Test
+    void testAjouterReservationAChambre_keepsTheCacheWarm() {
+        long idChambre = chambreRepository.save(Chambre.builder().numeroChambre(101).build()).getIdChambre();
+        reservationRepository.save(Reservation.builder().idReservation("R1")
+                .anneeUniversitaire(LocalDate.of(2024, 10, 1)).estValide(true).build());
+        lireParId();
+
+        // Requête native : seule la table de jointure est déclarée modifiée
+        transaction.executeWithoutResult(statut -> chambreRepository.ajouterReservationAChambre(idChambre, "R1"));
+        statistiques.clear();
+        lireParId();
+
+        assertThat(statistiques.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void testHibernateMetrics_exportRegionHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "default", Tags.empty())
+                .bindTo(registry);
+        statistiques.clear();
+
+        lireParId();
+        lireParId();
+
+        assertThat(registry.get("hibernate.second.level.cache.requests")
+                .tags("region", Caches.BLOC, "result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("hibernate.second.level.cache.requests")
+                .tags("region", Caches.BLOC, "result", "miss").functionCounter().count()).isZero();
+        assertThat(registry.get("hibernate.second.level.cache.puts")
+                .tag("region", Caches.FOYER).functionCounter()).isNotNull();
+    }
+
+    private void lireParId() {
+        transaction.executeWithoutResult(statut -> {
+            assertThat(universiteRepository.findById(idUniversite)).isPresent();
+            assertThat(foyerRepository.findById(idFoyer)).isPresent();
+            assertThat(blocRepository.findById(idBloc)).isPresent();
+        });
+    }
+
+    private int nombreDeBlocs() {
+        return transaction.execute(statut -> foyerRepository.findById(idFoyer).orElseThrow().getBlocs().size());
+    }
+}
@@ -0,0 +1,58 @@
+package tn.esprit.spring.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Bloc;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.BlocRepository;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contexte neuf : aucun bloc d'identifiants ne doit avoir été réservé avant l'alignement
+@FoyerJpaTestSansTransaction
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class SequenceAlignerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Test
+    @DirtiesContext
+    void testAligner_neverHandsOutIdsCreatedByAutoIncrement() {
+        // Lignes créées du temps de l'AUTO_INCREMENT
+        jdbcTemplate.update("insert into t_bloc (id_bloc, nom_bloc, capacite_bloc) values (1000, 'Ancien', 10)");
+        jdbcTemplate.update("insert into t_chambre (id_chambre, numero_chambre, typec) values (700, 1, 'SIMPLE')");
+
+        // Le constructeur ne touche pas à la base : l'alignement attend le démarrage
+        SequenceAligner aligner = new SequenceAligner(jdbcTemplate);
+        assertThat(jdbcTemplate.queryForObject("select valeur from t_sequence where nom_sequence = 'T_BLOC'", Long.class))
+                .isLessThan(1000);
+        aligner.run(new DefaultApplicationArguments());
+
+        assertThat(jdbcTemplate.queryForObject("select valeur from t_sequence where nom_sequence = 'T_BLOC'", Long.class))
+                .isGreaterThan(1000);
+        assertThat(aligner.aligner()).isZero();
+
+        List<Bloc> blocs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            blocs.add(Bloc.builder().nomBloc("Bloc " + i).capaciteBloc(10).build());
+        }
+        assertThat(blocRepository.saveAll(blocs)).allMatch(b -> b.getIdBloc() > 1000);
+        Chambre chambre = chambreRepository.save(Chambre.builder().numeroChambre(2).typeC(TypeChambre.DOUBLE).build());
+        assertThat(chambre.getIdChambre()).isGreaterThan(700);
+        assertThat(blocRepository.count()).isEqualTo(121);
+    }
+}
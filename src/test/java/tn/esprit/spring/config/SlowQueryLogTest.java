@@ -0,0 +1,154 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTest
+@TestPropertySource(properties = "foyer.sql.seuil-lent=0ms")
+@Import({SlowQueryLog.class, SlowQueryDataSourcePostProcessor.class, SlowQueryLogTest.Registre.class})
+@DirtiesContext
+class SlowQueryLogTest {
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private SlowQueryLog journal;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.class);
+    private final ListAppender<ILoggingEvent> lignes = new ListAppender<>();
+
+    @BeforeEach
+    void setup() {
+        lignes.start();
+        logger.addAppender(lignes);
+    }
+
+    @AfterEach
+    void fin() {
+        logger.detachAppender(lignes);
+    }
+
+    @Test
+    void testNormaliser_replacesLiteralsListsAndRows() {
+        assertThat(SlowQueryLog.normaliser("SELECT c1_0.id_chambre FROM t_chambre c1_0\n  WHERE c1_0.numero_chambre = 101 "
+                + "AND c1_0.typec = 'SIMPLE' AND c1_0.id_chambre IN (?, ?,?)"))
+                .isEqualTo("select c1_0.id_chambre from t_chambre c1_0 where c1_0.numero_chambre = ? "
+                        + "and c1_0.typec = ? and c1_0.id_chambre in (?)");
+        assertThat(SlowQueryLog.normaliser("insert into t_bloc (nom_bloc, capacite_bloc) values (?, ?), (?, ?), ('A', 3)"))
+                .isEqualTo(SlowQueryLog.normaliser("insert into t_bloc (nom_bloc, capacite_bloc) values (?,?)"));
+        assertThat(SlowQueryLog.normaliser("select * from t_chambre where id_chambre in (1, 2)"))
+                .isEqualTo(SlowQueryLog.normaliser("select * from t_chambre where id_chambre in (7, 8, 9, 10)"));
+    }
+
+    @Test
+    void testRepository_logsParametersAndCallerAboveThreshold() {
+        assertThat(dataSource).isInstanceOf(ProxyDataSource.class);
+        chambreRepository.saveAndFlush(Chambre.builder().numeroChambre(101).typeC(TypeChambre.DOUBLE).build());
+        lignes.list.clear();
+
+        assertThat(chambreRepository.findByNumeroChambre(101)).isNotNull();
+
+        assertThat(lignes.list).hasSize(1);
+        String ligne = lignes.list.get(0).getFormattedMessage();
+        assertThat(ligne).startsWith("Requête lente")
+                .contains("from t_chambre")
+                .contains("paramètres [1=101]")
+                .contains("appelée par ChambreRepository.findByNumeroChambre depuis SlowQueryLogTest."
+                        + "testRepository_logsParametersAndCallerAboveThreshold");
+
+        String empreinte = journal.empreintes().entrySet().stream()
+                .filter(e -> e.getValue().contains("where c1_0.numero_chambre=?"))
+                .map(Map.Entry::getKey).findFirst().orElseThrow();
+        assertThat(empreinte).matches("[0-9a-f]{16}");
+        assertThat(ligne).contains("[" + empreinte + "]");
+        Timer timer = registry.get(SlowQueryLog.NOM).tags("empreinte", empreinte, "type", "select").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.takeSnapshot().histogramCounts()).hasSize(6);
+    }
+
+    @Test
+    void testIdentifiant_separatesQueriesWithTheSameHashCode() {
+        // "Aa" et "BB" ont le même hashCode, comme toute requête qui ne diffère que par eux
+        assertThat("select * from t_bloc where nom_bloc='Aa'".hashCode())
+                .isEqualTo("select * from t_bloc where nom_bloc='BB'".hashCode());
+
+        assertThat(SlowQueryLog.identifiant("select * from t_bloc where nom_bloc='Aa'"))
+                .isNotEqualTo(SlowQueryLog.identifiant("select * from t_bloc where nom_bloc='BB'"));
+    }
+
+    @Test
+    void testBatch_logsFirstParameterSetsOnly() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        lignes.list.clear();
+
+        jdbcTemplate.batchUpdate("insert into t_chambre (id_chambre, numero_chambre, typec) values (?, ?, 'SIMPLE')",
+                IntStream.rangeClosed(1, 8).mapToObj(i -> new Object[]{1000 + i, 2000 + i}).toList());
+
+        assertThat(lignes.list).hasSize(1);
+        assertThat(lignes.list.get(0).getFormattedMessage())
+                .contains("[1=1001, 2=2001] [1=1002, 2=2002]")
+                .contains("(et 3 autres jeux)")
+                .contains("appelée par SlowQueryLogTest.testBatch_logsFirstParameterSetsOnly");
+    }
+
+    @Test
+    void testSeuil_timesEveryStatementButLogsOnlySlowOnes() {
+        SimpleMeterRegistry mesures = new SimpleMeterRegistry();
+        SlowQueryLog lent = new SlowQueryLog(mesures, Duration.ofHours(1), List.of(Duration.ofMillis(1)), 2);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(ProxyDataSourceBuilder.create(dataSource).listener(lent).build());
+        lignes.list.clear();
+
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.queryForObject("select count(*) from t_chambre where numero_chambre = " + i, Long.class);
+            jdbcTemplate.queryForObject("select count(*) from t_bloc where capacite_bloc > " + i, Long.class);
+            jdbcTemplate.queryForObject("select count(*) from t_foyer where capacite_foyer > " + i, Long.class);
+        }
+
+        // Seul le journal du contexte (seuil 0), devant lequel passe aussi ce proxy, a journalisé
+        assertThat(lignes.list).hasSize(9);
+        assertThat(lent.empreintes()).hasSize(3).containsKey(SlowQueryLog.AUTRES);
+        assertThat(mesures.get(SlowQueryLog.NOM).timers()).hasSize(3);
+        assertThat(mesures.get(SlowQueryLog.NOM).tag("empreinte", SlowQueryLog.AUTRES).timer().count()).isEqualTo(3);
+    }
+
+    @TestConfiguration
+    static class Registre {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
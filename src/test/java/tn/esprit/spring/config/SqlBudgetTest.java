@@ -0,0 +1,214 @@
+package tn.esprit.spring.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@FoyerJpaTestSansTransaction
+@Import({SqlBudget.class, SlowQueryDataSourcePostProcessor.class})
+@DirtiesContext
+class SqlBudgetTest {
+    private static final String ROUTE = "/chambre/nbPlacesDisponibleParChambreAnneeEnCours";
+
+    @Autowired
+    private SqlBudget budget;
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    private SimpleMeterRegistry registry;
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SqlBudgetFilter.class);
+    private final ListAppender<ILoggingEvent> lignes = new ListAppender<>();
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        if (chambreRepository.count() == 0) {
+            for (int i = 1; i <= 5; i++) {
+                chambreRepository.save(Chambre.builder().numeroChambre(i).typeC(TypeChambre.SIMPLE).build());
+            }
+        }
+        lignes.start();
+        logger.addAppender(lignes);
+    }
+
+    @AfterEach
+    void fin() {
+        logger.detachAppender(lignes);
+    }
+
+    @Test
+    void testFiltre_recordsStatementsPerEndpoint() throws Exception {
+        SqlBudgetFilter filtre = filtre(new MockEnvironment(), 10, List.of());
+
+        // Hors requête HTTP : rien n'est compté
+        chambreRepository.findByNumeroChambre(1);
+        filtre.doFilter(requete(), new MockHttpServletResponse(), uneRequeteParChambre(3));
+        filtre.doFilter(new MockHttpServletRequest("GET", "/Foyer/absente"), new MockHttpServletResponse(),
+                (req, res) -> chambreRepository.findByNumeroChambre(1));
+
+        DistributionSummary instructions = registry.get("foyer.http.sql.instructions")
+                .tags("methode", "GET", "uri", ROUTE).summary();
+        assertThat(instructions.count()).isEqualTo(1);
+        assertThat(instructions.totalAmount()).isEqualTo(3);
+        assertThat(registry.get("foyer.http.sql.duree").tags("uri", ROUTE).timer().count()).isEqualTo(1);
+        assertThat(registry.get("foyer.http.sql.instructions").tags("uri", SqlBudgetFilter.INCONNUE).summary()
+                .totalAmount()).isEqualTo(1);
+        assertThat(registry.get("foyer.http.sql.depassements").tags("uri", ROUTE).counter().count()).isZero();
+        assertThat(lignes.list).isEmpty();
+    }
+
+    @Test
+    void testDepassement_warnsOutsideStrictProfiles() throws Exception {
+        SqlBudgetFilter filtre = filtre(new MockEnvironment(), 2, List.of());
+
+        filtre.doFilter(requete(), new MockHttpServletResponse(), uneRequeteParChambre(5));
+
+        assertThat(registry.get("foyer.http.sql.depassements").tags("uri", ROUTE).counter().count()).isEqualTo(1);
+        assertThat(lignes.list).singleElement().extracting(ILoggingEvent::getFormattedMessage).asString()
+                .startsWith("Budget SQL dépassé par GET " + ROUTE + " : 5 instructions (budget 2)");
+    }
+
+    @Test
+    void testDepassement_failsUnderTestProfile() {
+        MockEnvironment environnement = new MockEnvironment();
+        environnement.setActiveProfiles("test");
+        SqlBudgetFilter filtre = filtre(environnement, 2, List.of());
+
+        // L'instruction qui franchit le budget échoue : les suivantes ne sont pas exécutées
+        assertThatThrownBy(() -> filtre.doFilter(requete(), new MockHttpServletResponse(), uneRequeteParChambre(5)))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Budget SQL dépassé par GET " + ROUTE + " : 3 instructions (budget 2)");
+        assertThat(registry.get("foyer.http.sql.instructions").tags("uri", ROUTE).summary().totalAmount())
+                .isEqualTo(3);
+        assertThat(registry.get("foyer.http.sql.depassements").tags("uri", ROUTE).counter().count()).isEqualTo(1);
+        assertThat(lignes.list).isEmpty();
+    }
+
+    @Test
+    void testBudgetParEndpoint_overridesDefault() throws Exception {
+        MockEnvironment environnement = new MockEnvironment();
+        environnement.setActiveProfiles("test");
+        SqlBudgetFilter filtre = filtre(environnement, 2, List.of(ROUTE + ":5"));
+
+        filtre.doFilter(requete(), new MockHttpServletResponse(), uneRequeteParChambre(5));
+
+        assertThat(registry.get("foyer.http.sql.depassements").tags("uri", ROUTE).counter().count()).isZero();
+        assertThatThrownBy(() -> SqlBudgetFilter.budgets(List.of(ROUTE)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testStreaming_countsStatementsOfTheAsyncBody() throws Exception {
+        MockMvc mockMvc = mockMvc(filtre(new MockEnvironment(), 10, List.of()));
+
+        // Le corps est écrit par le thread de l'exécuteur MVC, après le retour du filtre
+        MvcResult resultat = mockMvc.perform(get(ROUTE).param("chambres", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(resultat)).andExpect(status().isOk());
+
+        DistributionSummary instructions = registry.get("foyer.http.sql.instructions")
+                .tags("methode", "GET", "uri", ROUTE).summary();
+        assertThat(instructions.count()).isEqualTo(1);
+        assertThat(instructions.totalAmount()).isEqualTo(3);
+        assertThat(lignes.list).isEmpty();
+    }
+
+    @Test
+    void testStreaming_failsOverBudgetUnderTestProfile() throws Exception {
+        MockEnvironment environnement = new MockEnvironment();
+        environnement.setActiveProfiles("test");
+        MockMvc mockMvc = mockMvc(filtre(environnement, 2, List.of()));
+
+        MvcResult resultat = mockMvc.perform(get(ROUTE).param("chambres", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThatThrownBy(() -> mockMvc.perform(asyncDispatch(resultat)))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .rootCause()
+                .hasMessageStartingWith("Budget SQL dépassé par GET " + ROUTE + " : 3 instructions (budget 2)");
+        assertThat(registry.get("foyer.http.sql.instructions").tags("uri", ROUTE).summary().totalAmount())
+                .isEqualTo(3);
+        assertThat(registry.get("foyer.http.sql.depassements").tags("uri", ROUTE).counter().count()).isEqualTo(1);
+    }
+
+    private MockMvc mockMvc(SqlBudgetFilter filtre) {
+        return MockMvcBuilders.standaloneSetup(new Rapport(chambreRepository)).addFilters(filtre).build();
+    }
+
+    private SqlBudgetFilter filtre(MockEnvironment environnement, int instructions, List<String> parEndpoint) {
+        return new SqlBudgetFilter(budget, registry, environnement, instructions, Duration.ofSeconds(10),
+                parEndpoint, List.of("test"));
+    }
+
+    private static MockHttpServletRequest requete() {
+        return new MockHttpServletRequest("GET", "/Foyer" + ROUTE);
+    }
+
+    // N+1 : une lecture par chambre, route posée avant le contrôleur comme par le DispatcherServlet
+    private FilterChain uneRequeteParChambre(int chambres) {
+        return (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, ROUTE);
+            for (int i = 1; i <= chambres; i++) {
+                chambreRepository.findByNumeroChambre(i);
+            }
+        };
+    }
+
+    // Rapport écrit en flux comme /chambre/nbPlacesDisponibleParChambreAnneeEnCours, une lecture par chambre
+    @RestController
+    static class Rapport {
+        private final ChambreRepository chambreRepository;
+
+        Rapport(ChambreRepository chambreRepository) {
+            this.chambreRepository = chambreRepository;
+        }
+
+        @GetMapping(ROUTE)
+        StreamingResponseBody rapport(@RequestParam int chambres) {
+            return out -> {
+                for (int i = 1; i <= chambres; i++) {
+                    out.write(String.valueOf(chambreRepository.findByNumeroChambre(i).getNumeroChambre())
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package tn.esprit.spring.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.FoyerJpaTestSansTransaction;
+import tn.esprit.spring.dao.entities.Chambre;
+import tn.esprit.spring.dao.entities.Etudiant;
+import tn.esprit.spring.dao.entities.Reservation;
+import tn.esprit.spring.dao.entities.TypeChambre;
+import tn.esprit.spring.dao.repositories.ChambreRepository;
+import tn.esprit.spring.dao.repositories.EtudiantRepository;
+import tn.esprit.spring.dao.repositories.ReservationRepository;
+import tn.esprit.spring.services.export.NdjsonExporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@FoyerJpaTestSansTransaction
+class NdjsonExporterTest {
+
+    private static final int NB_LIGNES = 1_000_000;
+    private static final long HAUSSE_TOLEREE = 64L * 1024 * 1024;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void nettoyer() {
+        chambreRepository.deleteAll();
+        jdbcTemplate.update("delete from t_reservation_etudiants");
+        jdbcTemplate.update("delete from t_reservation");
+        jdbcTemplate.update("delete from t_etudiant");
+    }
+
+    @Test
+    void testExporter_writesOneLinePerEntityWithoutCollections() throws Exception {
+        Reservation reservation = reservationRepository.save(Reservation.builder()
+                .idReservation("R1").anneeUniversitaire(LocalDate.of(2024, 10, 1)).estValide(true).build());
+        etudiantRepository.save(Etudiant.builder().nomEt("Ben Ali").prenomEt("Sami").cin(12345678)
+                .dateNaissance(LocalDate.of(2002, 3, 4)).build());
+        chambreRepository.save(Chambre.builder().numeroChambre(101).typeC(TypeChambre.DOUBLE)
+                .reservations(Set.of(reservation)).build());
+
+        List<JsonNode> etudiants = lire(exporter(etudiantRepository));
+        List<JsonNode> chambres = lire(exporter(chambreRepository));
+        List<JsonNode> reservations = lire(exporter(reservationRepository));
+
+        assertThat(etudiants).hasSize(1);
+        assertThat(etudiants.get(0).get("cin").asLong()).isEqualTo(12345678);
+        assertThat(etudiants.get(0).get("dateNaissance").asText()).isEqualTo("2002-03-04");
+        assertThat(etudiants.get(0).has("reservations")).isFalse();
+        assertThat(chambres).hasSize(1);
+        assertThat(chambres.get(0).get("typeC").asText()).isEqualTo("DOUBLE");
+        assertThat(chambres.get(0).has("reservations")).isFalse();
+        assertThat(reservations).hasSize(1);
+        assertThat(reservations.get(0).get("anneeUniversitaire").asText()).isEqualTo("2024-10-01");
+    }
+
+    // Un million de lignes et un tas mesuré après System.gc() : lent et indicatif, lancé sur demande
+    // (-Dfoyer.bench=true)
+    @Test
+    @EnabledIfSystemProperty(named = "foyer.bench", matches = "true")
+    void testExporter_keepsHeapFlatOnAMillionRows() {
+        jdbcTemplate.update("insert into t_reservation (id_reservation, annee_universitaire, est_valide) "
+                + "select 'R' || lpad(x, 7, '0'), date '2024-10-01', true from system_range(1, " + NB_LIGNES + ")");
+        MemoryMXBean memoire = ManagementFactory.getMemoryMXBean();
+        long avant = utilisee(memoire);
+        SortieMesuree sortie = new SortieMesuree(memoire);
+
+        Long nb = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            try {
+                return new NdjsonExporter(entityManager).exporter(reservationRepository.streamAll(), sortie);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(nb).isEqualTo(NB_LIGNES);
+        assertThat(sortie.lignes).isEqualTo(NB_LIGNES);
+        assertThat(sortie.mesures).isGreaterThanOrEqualTo(9);
+        assertThat(sortie.pic - avant).isLessThan(HAUSSE_TOLEREE);
+    }
+
+    private byte[] exporter(Object repository) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            NdjsonExporter exporter = new NdjsonExporter(entityManager);
+            try {
+                if (repository instanceof EtudiantRepository r) {
+                    exporter.exporter(r.streamAll(), out);
+                } else if (repository instanceof ChambreRepository r) {
+                    exporter.exporter(r.streamAll(), out);
+                } else {
+                    exporter.exporter(((ReservationRepository) repository).streamAll(), out);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return out.toByteArray();
+    }
+
+    private static List<JsonNode> lire(byte[] ndjson) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String texte = new String(ndjson, StandardCharsets.UTF_8);
+        assertThat(texte).endsWith("\n");
+        return texte.lines().map(ligne -> {
+            try {
+                return mapper.readTree(ligne);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+    }
+
+    private static long utilisee(MemoryMXBean memoire) {
+        System.gc();
+        return memoire.getHeapMemoryUsage().getUsed();
+    }
+
+    // Jette les octets écrits et mesure le tas après GC toutes les 100 000 lignes
+    private static final class SortieMesuree extends OutputStream {
+        private final MemoryMXBean memoire;
+        long lignes;
+        long pic;
+        int mesures;
+        private long prochaineMesure = 100_000;
+
+        SortieMesuree(MemoryMXBean memoire) {
+            this.memoire = memoire;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lignes++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (lignes >= prochaineMesure) {
+                prochaineMesure += 100_000;
+                mesures++;
+                pic = Math.max(pic, utilisee(memoire));
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package tn.esprit.spring.projections;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tn.esprit.spring.FoyerJpaTest;
+import tn.esprit.spring.config.SlowQueryDataSourcePostProcessor;
+import tn.esprit.spring.config.SqlBudget;
+import tn.esprit.spring.config.SqlBudgetFilter;
+import tn.esprit.spring.dao.entities.*;
+import tn.esprit.spring.dao.repositories.*;
+import tn.esprit.spring.restcontrollers.*;
+import tn.esprit.spring.services.bloc.BlocService;
+import tn.esprit.spring.services.chambre.AvailabilityIndex;
+import tn.esprit.spring.services.chambre.ChambreService;
+import tn.esprit.spring.services.chambre.RoomTypeCounters;
+import tn.esprit.spring.services.chambre.RoomTypeDistribution;
+import tn.esprit.spring.services.cle.NaturalKeyCache;
+import tn.esprit.spring.services.etudiant.EtudiantService;
+import tn.esprit.spring.services.export.NdjsonExporter;
+import tn.esprit.spring.services.foyer.FoyerService;
+import tn.esprit.spring.services.reservation.*;
+import tn.esprit.spring.services.universite.UniversiteService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Chaque endpoint de lecture, appelé par MockMvc sur les vrais contrôleurs et services,
+ * lit sa réponse en une seule requête : la sérialisation JSON ne déclenche aucun
+ * chargement paresseux. Un contrôleur qui renverrait de nouveau des entités échoue ici.
+ * Les requêtes passent par {@link SqlBudgetFilter} sous le profil {@code test}, avec un
+ * budget d'une instruction : la seconde instruction d'une requête la fait échouer.
+ */
+@FoyerJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "foyer.sql.budget.instructions=1"})
+@ActiveProfiles("test")
+@Import({UniversiteRestController.class, FoyerRestController.class, BlocRestController.class,
+        ChambreRestController.class, EtudiantRestController.class, ReservationRestController.class,
+        UniversiteService.class, FoyerService.class, BlocService.class, ChambreService.class,
+        EtudiantService.class, ReservationService.class, AvailabilityIndex.class, OccupancyLedger.class,
+        RoomTypeCounters.class, RoomTypeDistribution.class, NaturalKeyCache.class, NdjsonExporter.class,
+        AtomicReservationBooking.class, BulkReservationService.class, ReservationRolloverJob.class,
+        SqlBudget.class, SqlBudgetFilter.class, SlowQueryDataSourcePostProcessor.class, SimpleMeterRegistry.class})
+class VueQueryCountTest {
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+    @Autowired
+    private FoyerRepository foyerRepository;
+    @Autowired
+    private BlocRepository blocRepository;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private OccupancyLedger ledger;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private UniversiteRestController universiteRestController;
+    @Autowired
+    private FoyerRestController foyerRestController;
+    @Autowired
+    private BlocRestController blocRestController;
+    @Autowired
+    private ChambreRestController chambreRestController;
+    @Autowired
+    private EtudiantRestController etudiantRestController;
+    @Autowired
+    private ReservationRestController reservationRestController;
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
+    @Autowired
+    private MeterRegistry registry;
+
+    private MockMvc mockMvc;
+    private long idUniversite;
+    private long idFoyer;
+    private long idBloc;
+    private long idChambre;
+    private long idEtudiant;
+
+    @BeforeEach
+    void setup() {
+        Foyer foyer = foyerRepository.save(Foyer.builder().nomFoyer("Foyer El Manar").capaciteFoyer(300).build());
+        Universite universite = universiteRepository.save(Universite.builder()
+                .nomUniversite("Université de Tunis").adresse("Tunis").foyer(foyer).build());
+        Bloc bloc = blocRepository.save(Bloc.builder().nomBloc("Bloc A").capaciteBloc(40).foyer(foyer).build());
+        List<Etudiant> etudiants = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            etudiants.add(etudiantRepository.save(Etudiant.builder().nomEt("Ben Ali").prenomEt("Sami" + i)
+                    .cin(1000 + i).ecole("ESPRIT").dateNaissance(LocalDate.of(2002, 1, i)).build()));
+        }
+        Chambre chambre = null;
+        for (int i = 1; i <= 3; i++) {
+            Reservation reservation = reservationRepository.save(Reservation.builder().idReservation("R" + i)
+                    .anneeUniversitaire(LocalDate.of(2024, 10, i)).estValide(true)
+                    .etudiants(new HashSet<>(Set.of(etudiants.get(i - 1)))).build());
+            chambre = chambreRepository.save(Chambre.builder().numeroChambre(100 + i).typeC(TypeChambre.SIMPLE)
+                    .bloc(bloc).reservations(new HashSet<>(Set.of(reservation))).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        idUniversite = universite.getIdUniversite();
+        idFoyer = foyer.getIdFoyer();
+        idBloc = bloc.getIdBloc();
+        idChambre = chambre.getIdChambre();
+        idEtudiant = etudiants.get(0).getIdEtudiant();
+        // Comme au démarrage de l'application : registre et index rechargés depuis les données du test
+        ledger.initialiser();
+        availabilityIndex.invalider();
+        availabilityIndex.initialiser();
+        mockMvc = MockMvcBuilders.standaloneSetup(universiteRestController, foyerRestController,
+                        blocRestController, chambreRestController, etudiantRestController, reservationRestController)
+                .addFilters(sqlBudgetFilter)
+                .build();
+    }
+
+    static Stream<Arguments> endpoints() {
+        return Stream.of(
+                endpoint("universite/findAll", t -> get("/universite/findAll").param("nonPagine", "true")),
+                endpoint("universite/findAll?curseur", t -> get("/universite/findAll")),
+                endpoint("universite/findById", t -> get("/universite/findById").param("id", id(t.idUniversite))),
+                endpoint("foyer/findAll", t -> get("/foyer/findAll").param("nonPagine", "true")),
+                endpoint("foyer/findAll?curseur", t -> get("/foyer/findAll")),
+                endpoint("foyer/findById", t -> get("/foyer/findById").param("id", id(t.idFoyer))),
+                endpoint("bloc/findAll", t -> get("/bloc/findAll").param("nonPagine", "true")),
+                endpoint("bloc/findAll?curseur", t -> get("/bloc/findAll")),
+                endpoint("bloc/findById", t -> get("/bloc/findById").param("id", id(t.idBloc))),
+                endpoint("chambre/findAll", t -> get("/chambre/findAll").param("nonPagine", "true")),
+                endpoint("chambre/findAll?curseur", t -> get("/chambre/findAll")),
+                endpoint("chambre/findById", t -> get("/chambre/findById").param("id", id(t.idChambre))),
+                endpoint("chambre/getChambresParNomBloc",
+                        t -> get("/chambre/getChambresParNomBloc").param("nomBloc", "Bloc A")),
+                endpoint("chambre/getChambresNonReserveParNomFoyerEtTypeChambre",
+                        t -> get("/chambre/getChambresNonReserveParNomFoyerEtTypeChambre")
+                                .param("nomFoyer", "Foyer El Manar").param("type", "SIMPLE")),
+                endpoint("etudiant/findAll", t -> get("/etudiant/findAll").param("nonPagine", "true")),
+                endpoint("etudiant/findAll?curseur", t -> get("/etudiant/findAll")),
+                endpoint("etudiant/findById", t -> get("/etudiant/findById").param("id", id(t.idEtudiant))),
+                endpoint("etudiant/selectJPQL", t -> get("/etudiant/selectJPQL").param("nom", "Ben Ali")),
+                endpoint("reservation/findAll", t -> get("/reservation/findAll").param("nonPagine", "true")),
+                endpoint("reservation/findAll?curseur", t -> get("/reservation/findAll")),
+                endpoint("reservation/findById", t -> get("/reservation/findById").param("id", "R1")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("endpoints")
+    void testEndpoint_readsAndSerializesWithOneStatement(
+            String endpoint, Function<VueQueryCountTest, MockHttpServletRequestBuilder> requete) throws Exception {
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+
+        String json = mockMvc.perform(requete.apply(this))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(json).isNotIn("", "[]", "null");
+        assertThat(statistiques.getPrepareStatementCount()).as(endpoint).isEqualTo(1);
+        assertThat(statistiques.getEntityLoadCount()).as(endpoint).isZero();
+    }
+
+    // Rapport écrit en flux par le thread de l'exécuteur MVC : son instruction est comptée dans le budget
+    @Test
+    void testRapportOccupation_streamsWithOneStatement() throws Exception {
+        String route = "/chambre/nbPlacesDisponibleParChambreAnneeEnCours";
+        MvcResult resultat = mockMvc.perform(get(route))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(resultat)).andExpect(status().isOk());
+
+        DistributionSummary instructions = registry.get("foyer.http.sql.instructions").tags("uri", route).summary();
+        assertThat(instructions.count()).isEqualTo(1);
+        assertThat(instructions.totalAmount()).isEqualTo(1);
+    }
+
+    private static Arguments endpoint(String nom, Function<VueQueryCountTest, MockHttpServletRequestBuilder> requete) {
+        return Arguments.of(nom, requete);
+    }
+
+    private static String id(long id) {
+        return String.valueOf(id);
+    }
+}
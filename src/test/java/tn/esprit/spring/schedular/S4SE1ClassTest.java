@@ -9,7 +9,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+// Sans échantillonnage : les exécutions planifiées au démarrage consomment les tirages du logger
+@SpringBootTest(properties = "foyer.logs.echantillonnage=")
  class S4SE1ClassTest {
 
     @Test
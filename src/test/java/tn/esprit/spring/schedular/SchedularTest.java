@@ -29,5 +29,11 @@ class SchedularTest {
         schedular.service1();
         verify(chambreService, times(1)).listeChambresParBloc();
     }
+
+    @Test
+    void testService2_callsAnnulerReservations() {
+        schedular.service2();
+        verify(reservationService, times(1)).annulerReservations();
+    }
 }
 